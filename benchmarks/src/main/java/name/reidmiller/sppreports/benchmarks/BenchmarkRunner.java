@@ -0,0 +1,48 @@
+package name.reidmiller.sppreports.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar. Accepts the usual JMH command line and
+ * always adds the GC profiler, so every run reports allocation alongside the
+ * timings. Unless a benchmark mode is given on the command line, the
+ * benchmarks run twice: for throughput in operations and rows per second, then
+ * for average time in nanoseconds per operation and per row. A single time
+ * unit can not show both legibly.
+ */
+public class BenchmarkRunner {
+	public static void main(String[] args) throws IOException,
+			RunnerException, CommandLineOptionException {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		if (commandLine.shouldHelp() || commandLine.shouldList()
+				|| commandLine.shouldListProfilers()) {
+			org.openjdk.jmh.Main.main(args);
+			return;
+		}
+
+		if (commandLine.getBenchModes().isEmpty()) {
+			new Runner(getOptions(commandLine).mode(Mode.Throughput)
+					.timeUnit(TimeUnit.SECONDS).build()).run();
+			new Runner(getOptions(commandLine).mode(Mode.AverageTime)
+					.timeUnit(TimeUnit.NANOSECONDS).build()).run();
+		} else {
+			new Runner(getOptions(commandLine).build()).run();
+		}
+	}
+
+	private static ChainedOptionsBuilder getOptions(
+			CommandLineOptions commandLine) {
+		return new OptionsBuilder().parent(commandLine).addProfiler(
+				GCProfiler.class);
+	}
+}
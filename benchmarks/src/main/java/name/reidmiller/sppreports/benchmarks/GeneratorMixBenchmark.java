@@ -0,0 +1,197 @@
+package name.reidmiller.sppreports.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import name.reidmiller.sppreports.client.GeneratorMixClient;
+import name.reidmiller.sppreports.client.ParsedReportCache;
+import name.reidmiller.sppreports.client.ReportArchive;
+import name.reidmiller.sppreports.model.GeneratorMix;
+import name.reidmiller.sppreports.model.GeneratorMixRecord;
+import name.reidmiller.sppreports.model.GeneratorMixSeries;
+import name.reidmiller.sppreports.model.SamplingFrequency;
+
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Download and parse of generator mix reports from a {@link ReportStub}. The
+ * range benchmarks span the last half of FIRST_YEAR and the first half of the
+ * year after, so they read two reports and discard part of each. The archived
+ * benchmarks read FIRST_YEAR back from a {@link ReportArchive} instead, and
+ * query a single day of it. The cached benchmark reads FIRST_YEAR from a
+ * {@link ParsedReportCache} which already holds it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeneratorMixBenchmark {
+	private static final int FIRST_YEAR = 2012;
+	@Param({ "FIVE_MINUTES", "HOURLY" })
+	public SamplingFrequency samplingFrequency;
+	private ReportStub reportStub;
+	private GeneratorMixClient client;
+	private GeneratorMixClient cachedClient;
+	private Date rangeStart;
+	private Date rangeEnd;
+	private Date dayStart;
+	private Date dayEnd;
+	private File archiveDirectory;
+	private ReportArchive archive;
+
+	@Setup
+	public void setUp() throws IOException {
+		reportStub = new ReportStub();
+		for (int year = FIRST_YEAR; year <= FIRST_YEAR + 1; year++) {
+			reportStub.addReport(
+					ReportFixtures.getGeneratorMixPath(year, samplingFrequency),
+					ReportFixtures.getGeneratorMixReport(year, samplingFrequency));
+		}
+		client = new GeneratorMixClient() {
+			@Override
+			public String getUrlString(int year,
+					SamplingFrequency samplingFrequency) {
+				return reportStub.getUrlString(ReportFixtures
+						.getGeneratorMixPath(year, samplingFrequency));
+			}
+		};
+		cachedClient = new GeneratorMixClient() {
+			@Override
+			public String getUrlString(int year,
+					SamplingFrequency samplingFrequency) {
+				return reportStub.getUrlString(ReportFixtures
+						.getGeneratorMixPath(year, samplingFrequency));
+			}
+		};
+		cachedClient.getEngine().setParsedReportCache(
+				new ParsedReportCache(ParsedReportCache.DEFAULT_MAX_WEIGHT,
+						ParsedReportCache.DEFAULT_OPEN_YEAR_TTL_MILLIS));
+		cachedClient.getGenMixesForYear(FIRST_YEAR, samplingFrequency);
+		DateTime start = new DateTime(FIRST_YEAR, 7, 1, 0, 0,
+				GeneratorMixClient.US_CENTRAL_ZONE);
+		rangeStart = start.toDate();
+		rangeEnd = start.plusYears(1).toDate();
+		DateTime day = new DateTime(FIRST_YEAR, 12, 30, 0, 0,
+				GeneratorMixClient.US_CENTRAL_ZONE);
+		dayStart = day.toDate();
+		dayEnd = day.plusDays(1).toDate();
+
+		archiveDirectory = Files.createTempDirectory("spp-benchmark-archive")
+				.toFile();
+		archive = new ReportArchive(archiveDirectory);
+		client.archiveGenMixesForYear(FIRST_YEAR, samplingFrequency, archive);
+	}
+
+	@TearDown
+	public void tearDown() {
+		reportStub.stop();
+		for (File file : archiveDirectory.listFiles()) {
+			file.delete();
+		}
+		archiveDirectory.delete();
+	}
+
+	@Benchmark
+	public List<GeneratorMix> getGenMixesForYear(RowCounter rowCounter) {
+		List<GeneratorMix> generatorMixes = client.getGenMixesForYear(
+				FIRST_YEAR, samplingFrequency);
+		rowCounter.rows += generatorMixes.size();
+		return generatorMixes;
+	}
+
+	@Benchmark
+	public List<GeneratorMixRecord> getGenMixRecordsForYear(
+			RowCounter rowCounter) {
+		List<GeneratorMixRecord> records = client.getGenMixRecordsForYear(
+				FIRST_YEAR, samplingFrequency);
+		rowCounter.rows += records.size();
+		return records;
+	}
+
+	@Benchmark
+	public GeneratorMixSeries getGenMixSeriesForYear(RowCounter rowCounter) {
+		GeneratorMixSeries series = client.getGenMixSeriesForYear(FIRST_YEAR,
+				samplingFrequency);
+		rowCounter.rows += series.size();
+		return series;
+	}
+
+	@Benchmark
+	public List<GeneratorMix> getGeneratorMixesInRange(RowCounter rowCounter) {
+		List<GeneratorMix> generatorMixes = client.getGeneratorMixesInRange(
+				samplingFrequency, rangeStart, rangeEnd);
+		rowCounter.rows += generatorMixes.size();
+		return generatorMixes;
+	}
+
+	@Benchmark
+	public List<GeneratorMix> getGeneratorMixesInRangeParallel(
+			RowCounter rowCounter) {
+		List<GeneratorMix> generatorMixes = client.getGeneratorMixesInRange(
+				samplingFrequency, rangeStart, rangeEnd, 2);
+		rowCounter.rows += generatorMixes.size();
+		return generatorMixes;
+	}
+
+	@Benchmark
+	public GeneratorMixSeries getGenMixSeriesInRange(RowCounter rowCounter) {
+		GeneratorMixSeries series = client.getGenMixSeriesInRange(
+				samplingFrequency, rangeStart, rangeEnd);
+		rowCounter.rows += series.size();
+		return series;
+	}
+
+	@Benchmark
+	public List<GeneratorMix> getArchivedGenMixesForYear(RowCounter rowCounter)
+			throws IOException {
+		List<GeneratorMix> generatorMixes = client.getArchivedGenMixesForYear(
+				FIRST_YEAR, samplingFrequency, archive);
+		rowCounter.rows += generatorMixes.size();
+		return generatorMixes;
+	}
+
+	@Benchmark
+	public GeneratorMixSeries getArchivedGenMixSeriesForYear(
+			RowCounter rowCounter) throws IOException {
+		GeneratorMixSeries series = client.getArchivedGenMixSeriesForYear(
+				FIRST_YEAR, samplingFrequency, archive);
+		rowCounter.rows += series.size();
+		return series;
+	}
+
+	@Benchmark
+	public List<GeneratorMix> getArchivedGeneratorMixesForDay(
+			RowCounter rowCounter) {
+		List<GeneratorMix> generatorMixes = client
+				.getArchivedGeneratorMixesInRange(samplingFrequency, dayStart,
+						dayEnd, archive);
+		rowCounter.rows += generatorMixes.size();
+		return generatorMixes;
+	}
+
+	@Benchmark
+	public List<GeneratorMix> getCachedGenMixesForYear(RowCounter rowCounter) {
+		List<GeneratorMix> generatorMixes = cachedClient.getGenMixesForYear(
+				FIRST_YEAR, samplingFrequency);
+		rowCounter.rows += generatorMixes.size();
+		return generatorMixes;
+	}
+}
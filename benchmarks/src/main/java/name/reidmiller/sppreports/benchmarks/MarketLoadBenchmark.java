@@ -0,0 +1,114 @@
+package name.reidmiller.sppreports.benchmarks;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import name.reidmiller.sppreports.client.LoadForecastClient;
+import name.reidmiller.sppreports.model.MarketLoad;
+import name.reidmiller.sppreports.model.MarketLoadSeries;
+import name.reidmiller.sppreports.model.SamplingFrequency;
+
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Download and parse of load forecast reports from a {@link ReportStub}. The
+ * range benchmarks span the last half of FIRST_YEAR and the first half of the
+ * year after, so they read two reports and discard part of each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MarketLoadBenchmark {
+	private static final int FIRST_YEAR = 2012;
+	@Param({ "FIVE_MINUTES", "HOURLY" })
+	public SamplingFrequency samplingFrequency;
+	private ReportStub reportStub;
+	private LoadForecastClient client;
+	private Date rangeStart;
+	private Date rangeEnd;
+
+	@Setup
+	public void setUp() throws IOException {
+		reportStub = new ReportStub();
+		for (int year = FIRST_YEAR; year <= FIRST_YEAR + 1; year++) {
+			reportStub.addReport(
+					ReportFixtures.getMarketLoadPath(year, samplingFrequency),
+					ReportFixtures.getMarketLoadReport(year, samplingFrequency));
+		}
+		client = new LoadForecastClient() {
+			@Override
+			public String getUrlString(int year,
+					SamplingFrequency samplingFrequency) {
+				return reportStub.getUrlString(ReportFixtures
+						.getMarketLoadPath(year, samplingFrequency));
+			}
+		};
+		DateTime start = new DateTime(FIRST_YEAR, 7, 1, 0, 0,
+				LoadForecastClient.US_CENTRAL_ZONE);
+		rangeStart = start.toDate();
+		rangeEnd = start.plusYears(1).toDate();
+	}
+
+	@TearDown
+	public void tearDown() {
+		reportStub.stop();
+	}
+
+	@Benchmark
+	public List<MarketLoad> getMarketLoadsForYear(RowCounter rowCounter) {
+		List<MarketLoad> marketLoads = client.getMarketLoadsForYear(
+				FIRST_YEAR, samplingFrequency);
+		rowCounter.rows += marketLoads.size();
+		return marketLoads;
+	}
+
+	@Benchmark
+	public MarketLoadSeries getMarketLoadSeriesForYear(RowCounter rowCounter) {
+		MarketLoadSeries series = client.getMarketLoadSeriesForYear(FIRST_YEAR,
+				samplingFrequency);
+		rowCounter.rows += series.size();
+		return series;
+	}
+
+	@Benchmark
+	public List<MarketLoad> getMarketLoadsInRange(RowCounter rowCounter) {
+		List<MarketLoad> marketLoads = client.getMarketLoadsInRange(
+				samplingFrequency, rangeStart, rangeEnd);
+		rowCounter.rows += marketLoads.size();
+		return marketLoads;
+	}
+
+	@Benchmark
+	public List<MarketLoad> getMarketLoadsInRangeParallel(
+			RowCounter rowCounter) {
+		List<MarketLoad> marketLoads = client.getMarketLoadsInRange(
+				samplingFrequency, rangeStart, rangeEnd, 2);
+		rowCounter.rows += marketLoads.size();
+		return marketLoads;
+	}
+
+	@Benchmark
+	public MarketLoadSeries getMarketLoadSeriesInRange(RowCounter rowCounter) {
+		MarketLoadSeries series = client.getMarketLoadSeriesInRange(
+				samplingFrequency, rangeStart, rangeEnd);
+		rowCounter.rows += series.size();
+		return series;
+	}
+}
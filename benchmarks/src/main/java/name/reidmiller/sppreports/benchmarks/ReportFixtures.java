@@ -0,0 +1,154 @@
+package name.reidmiller.sppreports.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import name.reidmiller.sppreports.client.GeneratorMixClient;
+import name.reidmiller.sppreports.model.SamplingFrequency;
+
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDateTime;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+
+/**
+ * Report files served to the benchmarks. Recorded SPP reports are used when
+ * the system property {@value #FIXTURE_DIRECTORY_PROPERTY} names a directory
+ * laid out like spp.org, for example
+ * "GenerationMix/2013_5Minute_GenMix.csv". Any report missing from it is
+ * generated instead: a full year in the exact layout SPP publishes, including
+ * the hour skipped in March and the hour repeated in November, with values
+ * from a fixed seed so that every run parses the same bytes.
+ */
+public class ReportFixtures {
+	public static final String FIXTURE_DIRECTORY_PROPERTY = "spp.fixtures";
+	private static final DateTimeZone US_CENTRAL_ZONE = GeneratorMixClient.US_CENTRAL_ZONE;
+	private static final DateTimeFormatter REPORT_FORMAT = DateTimeFormat
+			.forPattern(GeneratorMixClient.GENERATOR_MIX_REPORT_DATE_FORMAT);
+	private static final String GENERATOR_MIX_HEADER = "Date,Coal,Hydro,Diesel Fuel Oil,Natural Gas,Nuclear,Wind,Market Load";
+	private static final String MARKET_LOAD_HEADER = "Date,Current Load,Load Forecast";
+
+	/**
+	 * @return Path of the generator mix report relative to the report host.
+	 */
+	public static String getGeneratorMixPath(int year,
+			SamplingFrequency samplingFrequency) {
+		return "/GenerationMix/" + year + "_" + samplingFrequency.getUrlPart()
+				+ "_GenMix.csv";
+	}
+
+	/**
+	 * @return Path of the load forecast report relative to the report host.
+	 */
+	public static String getMarketLoadPath(int year,
+			SamplingFrequency samplingFrequency) {
+		return "/LoadForecast/" + year + "_" + samplingFrequency.getUrlPart()
+				+ "_Load.csv";
+	}
+
+	public static byte[] getGeneratorMixReport(int year,
+			SamplingFrequency samplingFrequency) throws IOException {
+		byte[] recorded = readRecorded(getGeneratorMixPath(year,
+				samplingFrequency));
+		if (recorded != null) {
+			return recorded;
+		}
+
+		Random random = new Random(year * 31 + samplingFrequency.ordinal());
+		StringBuilder csv = new StringBuilder(GENERATOR_MIX_HEADER).append("\r\n");
+		for (LocalDateTime local : getTimestamps(year, samplingFrequency)) {
+			double load = 22000 + 8000 * Math.sin(local.getMillisOfDay()
+					* Math.PI / 43200000.0) + random.nextInt(5000) / 10.0;
+			double wind = random.nextInt(60000) / 10.0;
+			double nuclear = 1790 + random.nextInt(200) / 10.0;
+			double hydro = 300 + random.nextInt(3000) / 10.0;
+			double naturalGas = Math.max(0, load * 0.25 - wind / 4);
+			double coal = Math.max(0, load - wind - nuclear - hydro - naturalGas);
+			appendRow(csv, local, coal, hydro, 0, naturalGas, nuclear, wind, load);
+		}
+		return csv.toString().getBytes(StandardCharsets.US_ASCII);
+	}
+
+	public static byte[] getMarketLoadReport(int year,
+			SamplingFrequency samplingFrequency) throws IOException {
+		byte[] recorded = readRecorded(getMarketLoadPath(year,
+				samplingFrequency));
+		if (recorded != null) {
+			return recorded;
+		}
+
+		Random random = new Random(year * 37 + samplingFrequency.ordinal());
+		StringBuilder csv = new StringBuilder(MARKET_LOAD_HEADER).append("\r\n");
+		for (LocalDateTime local : getTimestamps(year, samplingFrequency)) {
+			double load = 22000 + 8000 * Math.sin(local.getMillisOfDay()
+					* Math.PI / 43200000.0) + random.nextInt(5000) / 10.0;
+			double forecast = load + (random.nextInt(10000) - 5000) / 10.0;
+			appendRow(csv, local, load, forecast);
+		}
+		return csv.toString().getBytes(StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * @return Every local timestamp of the year at the sampling frequency as
+	 *         SPP writes them: times in the spring gap are absent and times in
+	 *         the fall overlap appear twice.
+	 */
+	private static List<LocalDateTime> getTimestamps(int year,
+			SamplingFrequency samplingFrequency) {
+		List<LocalDateTime> timestamps = new ArrayList<LocalDateTime>();
+		int stepMinutes = (int) (samplingFrequency.getPeriodMillis() / 60000);
+		LocalDateTime local = new LocalDateTime(year, 1, 1, 0, 0);
+		while (local.getYear() == year) {
+			if (!US_CENTRAL_ZONE.isLocalDateTimeGap(local)) {
+				timestamps.add(local);
+			}
+			local = local.plusMinutes(stepMinutes);
+		}
+
+		// Repeat the hour that occurs twice when daylight savings time ends
+		long fallBack = US_CENTRAL_ZONE.nextTransition(US_CENTRAL_ZONE
+				.nextTransition(new LocalDateTime(year, 1, 1, 0, 0).toDateTime(
+						US_CENTRAL_ZONE).getMillis()));
+		LocalDateTime repeatStart = new LocalDateTime(fallBack, US_CENTRAL_ZONE);
+		LocalDateTime repeatEnd = repeatStart.plusHours(1);
+		List<LocalDateTime> withRepeat = new ArrayList<LocalDateTime>(
+				timestamps.size() + 12);
+		for (LocalDateTime timestamp : timestamps) {
+			withRepeat.add(timestamp);
+			if (timestamp.equals(repeatEnd.minusMinutes(stepMinutes))) {
+				for (LocalDateTime repeat = repeatStart; repeat
+						.isBefore(repeatEnd); repeat = repeat
+						.plusMinutes(stepMinutes)) {
+					withRepeat.add(repeat);
+				}
+			}
+		}
+		return withRepeat;
+	}
+
+	private static void appendRow(StringBuilder csv, LocalDateTime local,
+			double... values) {
+		csv.append(REPORT_FORMAT.print(local));
+		for (double value : values) {
+			csv.append(',').append(Math.round(value * 10) / 10.0);
+		}
+		csv.append("\r\n");
+	}
+
+	private static byte[] readRecorded(String path) throws IOException {
+		String directory = System.getProperty(FIXTURE_DIRECTORY_PROPERTY);
+		if (directory == null) {
+			return null;
+		}
+		File file = new File(directory, path);
+		if (!file.isFile()) {
+			return null;
+		}
+		return Files.readAllBytes(file.toPath());
+	}
+}
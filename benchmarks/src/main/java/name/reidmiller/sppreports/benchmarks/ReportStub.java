@@ -0,0 +1,72 @@
+package name.reidmiller.sppreports.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local HTTP server standing in for spp.org, so that benchmarks measure the
+ * client rather than the network. Reports are held in memory and served with a
+ * Content-Length, as spp.org does.
+ */
+public class ReportStub {
+	private HttpServer server;
+	private ExecutorService executor;
+	private Map<String, byte[]> reports = new ConcurrentHashMap<String, byte[]>();
+
+	/**
+	 * Starts the server on an ephemeral port of the loopback interface.
+	 */
+	public ReportStub() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				byte[] report = reports.get(exchange.getRequestURI().getPath());
+				if (report == null) {
+					exchange.sendResponseHeaders(404, -1);
+				} else {
+					exchange.getResponseHeaders().add("Content-Type", "text/csv");
+					exchange.sendResponseHeaders(200, report.length);
+					OutputStream out = exchange.getResponseBody();
+					out.write(report);
+					out.close();
+				}
+				exchange.close();
+			}
+		});
+		executor = Executors.newCachedThreadPool();
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	/**
+	 * @param path
+	 *            Path the report is served at, starting with '/'.
+	 * @param report
+	 *            Bytes of the report file.
+	 */
+	public void addReport(String path, byte[] report) {
+		reports.put(path, report);
+	}
+
+	/**
+	 * @return URL of the path on this server.
+	 */
+	public String getUrlString(String path) {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+	}
+
+	public void stop() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+}
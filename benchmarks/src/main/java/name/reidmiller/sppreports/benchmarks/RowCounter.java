@@ -0,0 +1,23 @@
+package name.reidmiller.sppreports.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Counts the rows each benchmark invocation returns. JMH reports the counter
+ * next to the primary result, normalized the same way, so a throughput run
+ * shows rows per second and an average time run shows time per row.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class RowCounter {
+	public long rows;
+
+	@Setup(Level.Iteration)
+	public void reset() {
+		rows = 0;
+	}
+}
@@ -0,0 +1,120 @@
+package name.reidmiller.sppreports.client;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only view of a year of a report written by a {@link ReportArchive}. The
+ * file is mapped into memory with {@link FileChannel#map}, so opening it costs
+ * the same however many rows it holds, and rows are read straight out of the
+ * mapping when accessed. Nothing is parsed and no object is created per row.
+ * <p>
+ * An archive file is a header followed by fixed-width records, little-endian:
+ *
+ * <pre>
+ * header: int magic, int version, int numValues, int numRows
+ * record: int epochMinute, double value[numValues]
+ * </pre>
+ *
+ * Only absolute reads are made on the mapping, so an ArchivedReport may be read
+ * from any number of threads at once.
+ */
+public class ArchivedReport extends ReportTable {
+	static final int MAGIC = 0x41505053; // "SPPA"
+	static final int VERSION = 1;
+	static final int HEADER_BYTES = 16;
+	private static final long MILLIS_PER_MINUTE = 60 * 1000L;
+	private ByteBuffer buffer;
+	private int numValues;
+	private int size;
+	private int recordBytes;
+
+	/**
+	 * Maps an archive file into memory. The file is closed again before this
+	 * returns; the mapping stays valid until the ArchivedReport is garbage
+	 * collected.
+	 *
+	 * @param file
+	 *            Archive file written by {@link ReportArchive}.
+	 * @param numValues
+	 *            Number of value columns the file is expected to hold.
+	 * @throws IOException
+	 *             If the file cannot be read, is not an archive or is
+	 *             truncated.
+	 */
+	public ArchivedReport(File file, int numValues) throws IOException {
+		FileChannel channel = FileChannel.open(file.toPath(),
+				StandardOpenOption.READ);
+		try {
+			if (channel.size() < HEADER_BYTES) {
+				throw new IOException(file + " is not a report archive");
+			}
+			MappedByteBuffer mapped = channel.map(
+					FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			this.buffer = mapped.order(ReportArchive.BYTE_ORDER);
+		} finally {
+			channel.close();
+		}
+
+		if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+			throw new IOException(file + " is not a version " + VERSION
+					+ " report archive");
+		}
+		if (buffer.getInt(8) != numValues) {
+			throw new IOException(file + " holds " + buffer.getInt(8)
+					+ " values per row, expected " + numValues);
+		}
+		this.numValues = numValues;
+		this.recordBytes = getRecordBytes(numValues);
+		this.size = buffer.getInt(12);
+		if (buffer.capacity() != HEADER_BYTES + (long) size * recordBytes) {
+			throw new IOException(file + " is truncated");
+		}
+	}
+
+	/**
+	 * @param numValues
+	 *            Number of value columns.
+	 * @return Width of one record in bytes.
+	 */
+	static int getRecordBytes(int numValues) {
+		return 4 + 8 * numValues;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public int getNumValues() {
+		return numValues;
+	}
+
+	/**
+	 * @param index
+	 *            Row of the archive.
+	 * @return Timestamp of the row in minutes since the epoch.
+	 */
+	public int getEpochMinute(int index) {
+		this.checkIndex(index);
+		return buffer.getInt(HEADER_BYTES + index * recordBytes);
+	}
+
+	@Override
+	public long getTime(int index) {
+		return this.getEpochMinute(index) * MILLIS_PER_MINUTE;
+	}
+
+	@Override
+	public double getValue(int index, int column) {
+		this.checkIndex(index);
+		this.checkColumn(column);
+		return buffer.getDouble(HEADER_BYTES + index * recordBytes + 4 + 8
+				* column);
+	}
+}
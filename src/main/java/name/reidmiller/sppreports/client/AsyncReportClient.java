@@ -0,0 +1,257 @@
+package name.reidmiller.sppreports.client;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import name.reidmiller.sppreports.model.SamplingFrequency;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.joda.time.DateTime;
+
+/**
+ * Non-blocking counterpart of the year, range and default queries of
+ * {@link GeneratorMixClient} and {@link LoadForecastClient}. Each yearly
+ * report is read as a separate task, and each query returns a
+ * {@link ReportFuture} straight away, so a calling thread is never held while
+ * SPP is slow and requests for many reports and years proceed at once.
+ * <p>
+ * Tasks run on virtual threads when the JVM provides them, and otherwise on a
+ * shared pool of at most {@value #DEFAULT_MAX_THREADS} daemon threads, unless
+ * an executor is given. Cancelling a future, directly or with
+ * {@link ReportFuture#cancelAfter(long, TimeUnit)}, stops parsing at the next
+ * row; a read blocked on the network ends at the latest when the transport's
+ * read timeout passes.
+ *
+ * @param <T>
+ *            Type of record the report rows are parsed into.
+ */
+public class AsyncReportClient<T> {
+	public static final int DEFAULT_MAX_THREADS = 16;
+	private static ExecutorService defaultExecutor;
+	private Logger logger = LogManager.getLogger(this.getClass());
+	private SppReportEngine<T> engine;
+	private ExecutorService executor;
+
+	/**
+	 * AsyncReportClient running requests on the default executor, see
+	 * {@link #getDefaultExecutor()}.
+	 *
+	 * @param engine
+	 *            Engine reports are read with.
+	 */
+	public AsyncReportClient(SppReportEngine<T> engine) {
+		this(engine, getDefaultExecutor());
+	}
+
+	/**
+	 * @param engine
+	 *            Engine reports are read with.
+	 * @param executor
+	 *            Executor each yearly report is read on, which the caller owns.
+	 */
+	public AsyncReportClient(SppReportEngine<T> engine, ExecutorService executor) {
+		this.engine = engine;
+		this.executor = executor;
+	}
+
+	public SppReportEngine<T> getEngine() {
+		return engine;
+	}
+
+	public ExecutorService getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * @param samplingFrequency
+	 *            Five-minute or hourly report.
+	 * @return Future of the records from the start of the current year, in
+	 *         the zone of the report, to the current date.
+	 */
+	public ReportFuture<List<T>> getDefault(SamplingFrequency samplingFrequency) {
+		return this.getForYear(DateTime.now(engine.getSchema().getZone())
+				.getYear(), samplingFrequency);
+	}
+
+	/**
+	 * @param year
+	 *            Year of report.
+	 * @param samplingFrequency
+	 *            Five-minute or hourly report.
+	 * @return Future of the records for the year, see
+	 *         {@link SppReportEngine#getForYear(int, SamplingFrequency)},
+	 *         failing with the IOException if the report could not be opened
+	 *         or read in full.
+	 */
+	public ReportFuture<List<T>> getForYear(final int year,
+			final SamplingFrequency samplingFrequency) {
+		ReportFuture<List<T>> future = new ReportFuture<List<T>>(
+				new Callable<List<T>>() {
+					@Override
+					public List<T> call() throws InterruptedException,
+							IOException {
+						return readYear(year, samplingFrequency);
+					}
+				});
+		executor.execute(future);
+		return future;
+	}
+
+	/**
+	 * Reads every year touched by the range concurrently. No thread waits on
+	 * the years: the last one to finish assembles the result. Cancelling the
+	 * future returned cancels every year still being read, and a failure of
+	 * any year fails the range.
+	 *
+	 * @param samplingFrequency
+	 *            Five-minute or hourly report.
+	 * @param startDate
+	 *            Lower bound of records returned.
+	 * @param endDate
+	 *            Upper bound of records returned.
+	 * @return Future of the chronologically ordered records in the range.
+	 */
+	public ReportFuture<List<T>> getInRange(SamplingFrequency samplingFrequency,
+			final Date startDate, final Date endDate) {
+		final ReportFuture<List<T>> range = new ReportFuture<List<T>>();
+		final List<ReportFuture<List<T>>> years = new ArrayList<ReportFuture<List<T>>>();
+		for (int year : engine.getYearRange(startDate, endDate)) {
+			years.add(this.getForYear(year, samplingFrequency));
+		}
+
+		if (years.isEmpty()) {
+			range.complete(new ArrayList<T>());
+			return range;
+		}
+
+		final List<List<T>> yearRecords = new ArrayList<List<T>>(years.size());
+		for (int i = 0; i < years.size(); i++) {
+			yearRecords.add(null);
+		}
+		final AtomicInteger remaining = new AtomicInteger(years.size());
+		for (int i = 0; i < years.size(); i++) {
+			final int index = i;
+			years.get(i).addCallback(new ReportCallback<List<T>>() {
+				@Override
+				public void onSuccess(List<T> records) {
+					synchronized (yearRecords) {
+						yearRecords.set(index, records);
+					}
+					if (remaining.decrementAndGet() == 0) {
+						List<T> rangeRecords = new ArrayList<T>();
+						synchronized (yearRecords) {
+							for (List<T> year : yearRecords) {
+								engine.addInRange(rangeRecords, year,
+										startDate, endDate);
+							}
+						}
+						range.complete(rangeRecords);
+					}
+				}
+
+				@Override
+				public void onFailure(Throwable t) {
+					range.fail(t);
+				}
+			});
+		}
+
+		range.addCallback(new ReportCallback<List<T>>() {
+			@Override
+			public void onSuccess(List<T> records) {
+			}
+
+			@Override
+			public void onFailure(Throwable t) {
+				for (ReportFuture<List<T>> year : years) {
+					year.cancel(true);
+				}
+			}
+		});
+		return range;
+	}
+
+	/**
+	 * @return Executor shared by every client created without one, running
+	 *         each task on a new virtual thread when the JVM supports them and
+	 *         on a pool of {@value #DEFAULT_MAX_THREADS} daemon threads
+	 *         otherwise.
+	 */
+	public static synchronized ExecutorService getDefaultExecutor() {
+		if (defaultExecutor == null) {
+			defaultExecutor = newVirtualThreadExecutor();
+		}
+		if (defaultExecutor == null) {
+			ThreadPoolExecutor pool = new ThreadPoolExecutor(
+					DEFAULT_MAX_THREADS, DEFAULT_MAX_THREADS, 60,
+					TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+					new ThreadFactory() {
+						@Override
+						public Thread newThread(Runnable runnable) {
+							Thread thread = new Thread(runnable,
+									"async-report-client");
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+			pool.allowCoreThreadTimeOut(true);
+			defaultExecutor = pool;
+		}
+		return defaultExecutor;
+	}
+
+	/**
+	 * @return Executors.newVirtualThreadPerTaskExecutor(), looked up
+	 *         reflectively since the library is built for JVMs without it, or
+	 *         null if it is not available.
+	 */
+	private static ExecutorService newVirtualThreadExecutor() {
+		try {
+			Method factory = java.util.concurrent.Executors.class
+					.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Reads a year's records, checking for cancellation between rows. Errors
+	 * opening or reading the report are thrown, so that they fail the future
+	 * rather than complete it with the rows read so far.
+	 */
+	private List<T> readYear(int year, SamplingFrequency samplingFrequency)
+			throws InterruptedException, IOException {
+		List<T> records = new ArrayList<T>();
+		ReportIterator<T> iterator = engine.openYear(year, samplingFrequency);
+		try {
+			T record;
+			while ((record = iterator.readNext()) != null) {
+				if (Thread.interrupted()) {
+					throw new InterruptedException("Reading " + year + " "
+							+ engine.getSchema().getName()
+							+ " report cancelled");
+				}
+				records.add(record);
+			}
+		} finally {
+			try {
+				iterator.close();
+			} catch (IOException e) {
+				logger.warn("Could not close report: " + e.getMessage());
+			}
+		}
+		return records;
+	}
+}
@@ -0,0 +1,108 @@
+package name.reidmiller.sppreports.client;
+
+import name.reidmiller.sppreports.model.SamplingFrequency;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeConstants;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Duration;
+import org.joda.time.Instant;
+
+/**
+ * SPP reports provide times without offset or daylight savings information, so
+ * the hour before the transition from daylight savings to standard time is
+ * reported twice and parses as daylight savings time both times. This class
+ * walks the rows of a yearly report in order and shifts the second of those
+ * repeated hours forward to standard time. One instance is used per pass over
+ * a report since it keeps track of where in the report it is.
+ */
+class DstCorrection {
+	static final DateTimeZone US_CENTRAL_ZONE = DateTimeZone.forID("America/Chicago");
+	private Logger logger = LogManager.getLogger(this.getClass());
+	// Instant of last daylight savings sample in the report.
+	private Instant lastCdt = null;
+	// When last sample in DST has been hit, trigger standard time fix.
+	private boolean startCstFix = false;
+	// Number of records to fix changes for five-minute or hourly report.
+	private int numCstFixed = 0;
+	private int cstFixLimit = 0;
+
+	/**
+	 * @param year
+	 *            Year of report.
+	 * @param samplingFrequency
+	 *            Five-minute or hourly report, which controls how many rows
+	 *            need to be corrected.
+	 */
+	DstCorrection(int year, SamplingFrequency samplingFrequency) {
+		// An arbitrary date known to be in the middle of daylight savings.
+		DateTime august1st = new DateTime(year, 8, 1, 0, 0, 0, 0, US_CENTRAL_ZONE);
+		// Instant of transition from daylight savings to standard time.
+		Instant cdtToCst = new Instant(US_CENTRAL_ZONE.nextTransition(august1st
+				.toInstant().getMillis()));
+		switch (samplingFrequency) {
+		case FIVE_MINUTES:
+			lastCdt = cdtToCst.minus(Duration.standardMinutes(5));
+			cstFixLimit = 12;
+			break;
+		case HOURLY:
+			lastCdt = cdtToCst.minus(Duration.standardHours(1));
+			cstFixLimit = 1;
+			break;
+		}
+		logger.debug("Last sample of CDT is "
+				+ lastCdt.toDateTime(US_CENTRAL_ZONE));
+	}
+
+	/**
+	 * @param other
+	 *            Correction to continue from, which is left unchanged as this
+	 *            copy is advanced.
+	 */
+	DstCorrection(DstCorrection other) {
+		this.lastCdt = other.lastCdt;
+		this.startCstFix = other.startCstFix;
+		this.numCstFixed = other.numCstFixed;
+		this.cstFixLimit = other.cstFixLimit;
+	}
+
+	/**
+	 * @param reportMillis
+	 *            Time of the next row in the report in epoch milliseconds, as
+	 *            parsed from the CSV.
+	 * @return Epoch milliseconds of the row with the daylight savings error
+	 *         corrected.
+	 */
+	long correct(long reportMillis) {
+		long millis;
+
+		// If DST flag has been set and fix count is under limit
+		if (startCstFix && numCstFixed < cstFixLimit) {
+			millis = reportMillis + DateTimeConstants.MILLIS_PER_HOUR;
+			if (logger.isDebugEnabled()) {
+				logger.debug("Incorrect Date "
+						+ new DateTime(reportMillis, US_CENTRAL_ZONE)
+						+ " corrected to " + new DateTime(millis, US_CENTRAL_ZONE));
+			}
+			numCstFixed++;
+		} else {
+			millis = reportMillis;
+		}
+
+		// When last DST row hit, trigger fix to start next iteration
+		if (reportMillis == lastCdt.getMillis()) {
+			startCstFix = true;
+		}
+
+		return millis;
+	}
+
+	/**
+	 * @return Number of rows shifted to standard time so far.
+	 */
+	int getNumCorrected() {
+		return numCstFixed;
+	}
+}
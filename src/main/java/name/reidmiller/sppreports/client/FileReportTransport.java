@@ -0,0 +1,41 @@
+package name.reidmiller.sppreports.client;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+
+/**
+ * {@link ReportTransport} serving reports from a directory laid out like the
+ * report host, so the report at "http://www.spp.org/GenerationMix/2013_Hourly_GenMix.csv"
+ * is read from "GenerationMix/2013_Hourly_GenMix.csv" under the directory.
+ */
+public class FileReportTransport extends LocalReportTransport {
+	private File directory;
+
+	/**
+	 * @param directory
+	 *            Directory holding copies of the reports.
+	 */
+	public FileReportTransport(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * @param urlString
+	 *            URL of the report.
+	 * @return File the report at urlString is read from.
+	 * @throws MalformedURLException
+	 *             If urlString is not a URL.
+	 */
+	public File getReportFile(String urlString) throws MalformedURLException {
+		return new File(directory, new URL(urlString).getPath());
+	}
+
+	@Override
+	protected byte[] getReport(String urlString) throws IOException {
+		File file = this.getReportFile(urlString);
+		return file.isFile() ? Files.readAllBytes(file.toPath()) : null;
+	}
+}
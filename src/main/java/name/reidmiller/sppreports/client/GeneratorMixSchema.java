@@ -0,0 +1,45 @@
+package name.reidmiller.sppreports.client;
+
+import java.util.Date;
+
+import name.reidmiller.sppreports.model.GeneratorMix;
+
+/**
+ * {@link ReportSchema} of the GenerationMix reports.
+ */
+public class GeneratorMixSchema extends ReportSchema<GeneratorMix> {
+	public static final String URL_TEMPLATE = "http://www.spp.org/GenerationMix/"
+			+ YEAR_PLACEHOLDER + "_" + FREQUENCY_PLACEHOLDER + "_GenMix.csv";
+	public static final int COAL = 0;
+	public static final int HYDRO = 1;
+	public static final int DIESEL_FUEL_OIL = 2;
+	public static final int NATURAL_GAS = 3;
+	public static final int NUCLEAR = 4;
+	public static final int WIND = 5;
+	public static final int MARKET_LOAD = 6;
+
+	public GeneratorMixSchema() {
+		super("GeneratorMix", URL_TEMPLATE, GeneratorMixClient.US_CENTRAL_ZONE,
+				"Coal", "Hydro", "Diesel Fuel Oil", "Natural Gas", "Nuclear",
+				"Wind", "Market Load");
+	}
+
+	@Override
+	public GeneratorMix createRecord(Date date, ReportRow row) {
+		GeneratorMix generatorMix = new GeneratorMix();
+		generatorMix.setDate(date);
+		generatorMix.setCoal(row.getValue(COAL));
+		generatorMix.setHydro(row.getValue(HYDRO));
+		generatorMix.setDieselFuelOil(row.getValue(DIESEL_FUEL_OIL));
+		generatorMix.setNaturalGas(row.getValue(NATURAL_GAS));
+		generatorMix.setNuclear(row.getValue(NUCLEAR));
+		generatorMix.setWind(row.getValue(WIND));
+		generatorMix.setMarketLoad(row.getValue(MARKET_LOAD));
+		return generatorMix;
+	}
+
+	@Override
+	public Date getDate(GeneratorMix generatorMix) {
+		return generatorMix.getDate();
+	}
+}
@@ -0,0 +1,174 @@
+package name.reidmiller.sppreports.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.UnknownHostException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Default {@link ReportTransport}, fetching reports over HTTP with
+ * {@link HttpURLConnection}. Connections are never disconnected explicitly, so
+ * once a response body has been read and closed the JDK returns the socket to
+ * its keep-alive pool and the next report from spp.org reuses it. The size of
+ * that pool is set with the "http.maxConnections" system property.
+ * <p>
+ * Reports are requested gzip compressed unless the request sets its own
+ * Accept-Encoding, and are decompressed transparently. Connect and read
+ * timeouts keep a stalled socket from hanging a fetch forever. Failures to
+ * connect or read the response status, other than an unknown host, as well as
+ * 5xx and 429 responses, are retried a bounded number of times with
+ * exponential backoff.
+ */
+public class HttpReportTransport implements ReportTransport {
+	public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 10 * 1000;
+	public static final int DEFAULT_READ_TIMEOUT_MILLIS = 30 * 1000;
+	public static final int DEFAULT_MAX_RETRIES = 3;
+	public static final long DEFAULT_RETRY_BACKOFF_MILLIS = 500;
+	private static final int HTTP_TOO_MANY_REQUESTS = 429;
+	private Logger logger = LogManager.getLogger(this.getClass());
+	private int connectTimeoutMillis;
+	private int readTimeoutMillis;
+	private int maxRetries;
+	private long retryBackoffMillis;
+
+	/**
+	 * HttpReportTransport with {@value #DEFAULT_CONNECT_TIMEOUT_MILLIS}ms
+	 * connect and {@value #DEFAULT_READ_TIMEOUT_MILLIS}ms read timeouts, and
+	 * up to {@value #DEFAULT_MAX_RETRIES} retries starting
+	 * {@value #DEFAULT_RETRY_BACKOFF_MILLIS}ms apart.
+	 */
+	public HttpReportTransport() {
+		this(DEFAULT_CONNECT_TIMEOUT_MILLIS, DEFAULT_READ_TIMEOUT_MILLIS,
+				DEFAULT_MAX_RETRIES, DEFAULT_RETRY_BACKOFF_MILLIS);
+	}
+
+	/**
+	 * @param connectTimeoutMillis
+	 *            Time allowed to establish a connection.
+	 * @param readTimeoutMillis
+	 *            Time allowed between bytes of the response.
+	 * @param maxRetries
+	 *            Number of times a failed fetch is retried, 0 for none.
+	 * @param retryBackoffMillis
+	 *            Wait before the first retry, doubled for each one after.
+	 */
+	public HttpReportTransport(int connectTimeoutMillis, int readTimeoutMillis,
+			int maxRetries, long retryBackoffMillis) {
+		this.connectTimeoutMillis = connectTimeoutMillis;
+		this.readTimeoutMillis = readTimeoutMillis;
+		this.maxRetries = maxRetries;
+		this.retryBackoffMillis = retryBackoffMillis;
+	}
+
+	@Override
+	public ReportResponse fetch(ReportRequest request) throws IOException {
+		for (int attempt = 0;; attempt++) {
+			try {
+				ReportResponse response = this.fetchOnce(request);
+				if (attempt < maxRetries && this.isRetryable(response)) {
+					logger.warn("HTTP " + response.getStatusCode() + " from "
+							+ request.getUrlString() + ", retrying");
+					response.close();
+				} else {
+					return response;
+				}
+			} catch (MalformedURLException e) {
+				throw e;
+			} catch (UnknownHostException e) {
+				// Not transient enough to be worth retrying
+				throw e;
+			} catch (IOException e) {
+				if (attempt >= maxRetries) {
+					throw e;
+				}
+				logger.warn("Could not fetch " + request.getUrlString()
+						+ ", retrying: " + e.getMessage());
+			}
+			this.backOff(attempt);
+		}
+	}
+
+	public int getConnectTimeoutMillis() {
+		return connectTimeoutMillis;
+	}
+
+	public int getReadTimeoutMillis() {
+		return readTimeoutMillis;
+	}
+
+	public int getMaxRetries() {
+		return maxRetries;
+	}
+
+	public long getRetryBackoffMillis() {
+		return retryBackoffMillis;
+	}
+
+	private ReportResponse fetchOnce(ReportRequest request) throws IOException {
+		URLConnection connection = new URL(request.getUrlString())
+				.openConnection();
+		connection.setConnectTimeout(connectTimeoutMillis);
+		connection.setReadTimeout(readTimeoutMillis);
+		if (!(connection instanceof HttpURLConnection)) {
+			// Such as a file: URL, which has no status or request headers
+			return new ReportResponse(HttpURLConnection.HTTP_OK,
+					new HashMap<String, String>(),
+					connection.getLastModified(), connection.getInputStream());
+		}
+
+		HttpURLConnection http = (HttpURLConnection) connection;
+		for (Map.Entry<String, String> header : request.getHeaders()
+				.entrySet()) {
+			http.setRequestProperty(header.getKey(), header.getValue());
+		}
+		if (request.getHeader("Accept-Encoding") == null) {
+			http.setRequestProperty("Accept-Encoding", "gzip");
+		}
+		if (request.getIfModifiedSince() > 0) {
+			http.setIfModifiedSince(request.getIfModifiedSince());
+		}
+
+		int statusCode = http.getResponseCode();
+		Map<String, String> headers = new HashMap<String, String>();
+		for (Map.Entry<String, List<String>> header : http.getHeaderFields()
+				.entrySet()) {
+			if (header.getKey() != null && !header.getValue().isEmpty()) {
+				headers.put(header.getKey(), header.getValue().get(0));
+			}
+		}
+
+		InputStream body = statusCode < HttpURLConnection.HTTP_BAD_REQUEST ? http
+				.getInputStream() : http.getErrorStream();
+		if (body != null && "gzip".equalsIgnoreCase(http.getContentEncoding())) {
+			body = new GZIPInputStream(body);
+		}
+		return new ReportResponse(statusCode, headers, http.getLastModified(),
+				body);
+	}
+
+	private boolean isRetryable(ReportResponse response) {
+		return response.getStatusCode() >= HttpURLConnection.HTTP_INTERNAL_ERROR
+				|| response.getStatusCode() == HTTP_TOO_MANY_REQUESTS;
+	}
+
+	private void backOff(int attempt) throws InterruptedIOException {
+		try {
+			Thread.sleep(retryBackoffMillis << Math.min(attempt, 16));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(
+					"Interrupted while waiting to retry");
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package name.reidmiller.sppreports.client;
+
+import java.util.List;
+
+import name.reidmiller.sppreports.model.GeneratorMix;
+import name.reidmiller.sppreports.model.SamplingFrequency;
+
+import org.joda.time.DateTime;
+
+/**
+ * {@link IncrementalReportClient} following the current year's GenerationMix
+ * report.
+ */
+public class IncrementalGeneratorMixClient extends
+		IncrementalReportClient<GeneratorMix> {
+	/**
+	 * @param samplingFrequency
+	 *            Either five-minute or hourly report.
+	 */
+	public IncrementalGeneratorMixClient(SamplingFrequency samplingFrequency) {
+		this(new GeneratorMixClient(), samplingFrequency, DateTime.now(
+				GeneratorMixClient.US_CENTRAL_ZONE).getYear());
+	}
+
+	/**
+	 * @param genMixClient
+	 *            Client used to build report URLs and parse rows.
+	 * @param samplingFrequency
+	 *            Either five-minute or hourly report.
+	 * @param year
+	 *            Year of the report to start following.
+	 */
+	public IncrementalGeneratorMixClient(GeneratorMixClient genMixClient,
+			SamplingFrequency samplingFrequency, int year) {
+		super(genMixClient.getEngine(), samplingFrequency, year);
+	}
+
+	/**
+	 * @return List of {@link GeneratorMix} objects newer than any returned by
+	 *         a previous call, see {@link #getNewRecords()}.
+	 */
+	public List<GeneratorMix> getNewGeneratorMixes() {
+		return this.getNewRecords();
+	}
+}
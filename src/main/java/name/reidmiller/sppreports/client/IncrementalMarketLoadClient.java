@@ -0,0 +1,45 @@
+package name.reidmiller.sppreports.client;
+
+import java.util.List;
+
+import name.reidmiller.sppreports.model.MarketLoad;
+import name.reidmiller.sppreports.model.SamplingFrequency;
+
+import org.joda.time.DateTime;
+
+/**
+ * {@link IncrementalReportClient} following the current year's LoadForecast
+ * report.
+ */
+public class IncrementalMarketLoadClient extends
+		IncrementalReportClient<MarketLoad> {
+	/**
+	 * @param samplingFrequency
+	 *            Either five-minute or hourly report.
+	 */
+	public IncrementalMarketLoadClient(SamplingFrequency samplingFrequency) {
+		this(new LoadForecastClient(), samplingFrequency, DateTime.now(
+				LoadForecastClient.US_CENTRAL_ZONE).getYear());
+	}
+
+	/**
+	 * @param loadForecastClient
+	 *            Client used to build report URLs and parse rows.
+	 * @param samplingFrequency
+	 *            Either five-minute or hourly report.
+	 * @param year
+	 *            Year of the report to start following.
+	 */
+	public IncrementalMarketLoadClient(LoadForecastClient loadForecastClient,
+			SamplingFrequency samplingFrequency, int year) {
+		super(loadForecastClient.getEngine(), samplingFrequency, year);
+	}
+
+	/**
+	 * @return List of {@link MarketLoad} objects newer than any returned by a
+	 *         previous call, see {@link #getNewRecords()}.
+	 */
+	public List<MarketLoad> getNewMarketLoads() {
+		return this.getNewRecords();
+	}
+}
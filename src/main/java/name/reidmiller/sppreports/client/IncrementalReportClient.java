@@ -0,0 +1,177 @@
+package name.reidmiller.sppreports.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import name.reidmiller.sppreports.model.SamplingFrequency;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.joda.time.DateTime;
+
+/**
+ * Polls the current year's report of a {@link SppReportEngine} and returns
+ * only the rows published since the previous poll. The report is followed
+ * with a {@link ReportTail}, so each poll downloads only the bytes appended to
+ * the report rather than the whole year.
+ *
+ * @param <T>
+ *            Type of record the report rows are parsed into.
+ */
+public class IncrementalReportClient<T> implements ReportPoller<T> {
+	private Logger logger = LogManager.getLogger(this.getClass());
+	private SppReportEngine<T> engine;
+	private SamplingFrequency samplingFrequency;
+	private int year;
+	private ReportTail reportTail;
+	private DstCorrection dstCorrection;
+	private Date lastDate;
+
+	/**
+	 * Follows the current year's report in the zone of the engine's schema.
+	 *
+	 * @param engine
+	 *            Engine used to build report URLs and parse rows.
+	 * @param samplingFrequency
+	 *            Either five-minute or hourly report.
+	 */
+	public IncrementalReportClient(SppReportEngine<T> engine,
+			SamplingFrequency samplingFrequency) {
+		this(engine, samplingFrequency, DateTime.now(
+				engine.getSchema().getZone()).getYear());
+	}
+
+	/**
+	 * @param engine
+	 *            Engine used to build report URLs and parse rows.
+	 * @param samplingFrequency
+	 *            Either five-minute or hourly report.
+	 * @param year
+	 *            Year of the report to start following.
+	 */
+	public IncrementalReportClient(SppReportEngine<T> engine,
+			SamplingFrequency samplingFrequency, int year) {
+		this.engine = engine;
+		this.samplingFrequency = samplingFrequency;
+		this.followYear(year);
+	}
+
+	/**
+	 * The first call returns every row published so far this year, later calls
+	 * only the rows published since. Once the year is over and its report has
+	 * stopped growing, the client moves on to the next year's report. Errors
+	 * are logged, see {@link #poll()} to handle them instead.
+	 *
+	 * @return List of records newer than any returned by a previous call.
+	 */
+	public synchronized List<T> getNewRecords() {
+		try {
+			return this.poll();
+		} catch (MalformedURLException e) {
+			logger.warn("Could not create " + URL.class + " from \""
+					+ reportTail.getUrlString() + "\"");
+		} catch (IOException e) {
+			logger.error(e.getMessage());
+		}
+		return new ArrayList<T>();
+	}
+
+	/**
+	 * Same as {@link #getNewRecords()}, but throws rather than logs an error
+	 * reading the report. Rows which can not be parsed are logged and skipped
+	 * either way.
+	 */
+	@Override
+	public synchronized List<T> poll() throws IOException {
+		List<T> records = new ArrayList<T>();
+		int numNew = this.readAppended(records);
+		int currentYear = DateTime.now(engine.getSchema().getZone()).getYear();
+		if (numNew == 0 && currentYear > year) {
+			this.followYear(year + 1);
+			this.readAppended(records);
+		}
+		return records;
+	}
+
+	/**
+	 * @return Date of the newest record returned so far, or null if nothing
+	 *         has been returned yet.
+	 */
+	public synchronized Date getLastDate() {
+		return lastDate;
+	}
+
+	/**
+	 * @return Year of the report currently being followed.
+	 */
+	public synchronized int getYear() {
+		return year;
+	}
+
+	public SppReportEngine<T> getEngine() {
+		return engine;
+	}
+
+	private void followYear(int year) {
+		this.year = year;
+		this.reportTail = new ReportTail(engine.getUrlString(year,
+				samplingFrequency), engine.getReportTransport());
+		this.dstCorrection = new DstCorrection(year, samplingFrequency);
+	}
+
+	/**
+	 * Parses the rows appended to {@link #reportTail} and adds those newer than
+	 * {@link #lastDate} to records. Rows which can not be parsed are logged and
+	 * skipped. The tail's offset, {@link #lastDate} and {@link #dstCorrection}
+	 * are only moved forward once every appended row has been read, so a
+	 * failure part way through leaves them for the next poll to read again.
+	 *
+	 * @return Number of records added.
+	 */
+	private int readAppended(List<T> records) throws IOException {
+		byte[] appended = reportTail.peekAppended();
+		boolean fromStart = reportTail.isFromStart();
+		// Whole report is being read, so DST state starts over as well
+		DstCorrection batchDstCorrection = fromStart ? new DstCorrection(year,
+				samplingFrequency) : new DstCorrection(dstCorrection);
+
+		ReportSchema<T> schema = engine.getSchema();
+		List<T> batch = new ArrayList<T>();
+		Date batchLastDate = lastDate;
+		ReportIterator<T> iterator = engine.iterate(new ByteArrayInputStream(
+				appended), fromStart, batchDstCorrection);
+		try {
+			while (true) {
+				T record;
+				try {
+					record = iterator.readNext();
+				} catch (IllegalArgumentException e) {
+					logger.warn("Skipping unparsable row of "
+							+ reportTail.getUrlString() + ": " + e.getMessage());
+					continue;
+				}
+				if (record == null) {
+					break;
+				}
+				Date date = schema.getDate(record);
+				if (batchLastDate == null || date.after(batchLastDate)) {
+					batch.add(record);
+					batchLastDate = date;
+				}
+			}
+		} finally {
+			iterator.close();
+		}
+
+		records.addAll(batch);
+		lastDate = batchLastDate;
+		dstCorrection = batchDstCorrection;
+		reportTail.commit();
+		return batch.size();
+	}
+}
@@ -0,0 +1,310 @@
+package name.reidmiller.sppreports.client;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import name.reidmiller.sppreports.model.SamplingFrequency;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Polls a report in the background and pushes the newly published records to
+ * every registered {@link ReportListener}, so that any number of consumers
+ * share a single fetch.
+ * <p>
+ * Polls are aligned to the report's sampling period: each is made a
+ * publication delay after a period boundary, plus a random jitter so that
+ * many feeds do not all hit spp.org at the same instant. When a poll fails or
+ * finds nothing new yet, it is retried with exponential backoff until the next
+ * aligned poll is due.
+ * <p>
+ * Records are handed to listeners on a publisher executor. Each listener has
+ * its own queue of batches, so a slow listener neither delays polling nor the
+ * other listeners.
+ *
+ * @param <T>
+ *            Type of record the report rows are parsed into.
+ */
+public class LiveReportFeed<T> {
+	public static final long DEFAULT_PUBLICATION_DELAY_MILLIS = 60 * 1000L;
+	public static final long DEFAULT_MAX_JITTER_MILLIS = 10 * 1000L;
+	public static final long DEFAULT_RETRY_BACKOFF_MILLIS = 5 * 1000L;
+	private Logger logger = LogManager.getLogger(this.getClass());
+	private ReportPoller<T> poller;
+	private long periodMillis;
+	private long publicationDelayMillis;
+	private long maxJitterMillis;
+	private long retryBackoffMillis;
+	private ScheduledExecutorService scheduler;
+	private Executor publisher;
+	private boolean ownsExecutors;
+	private List<Subscription> subscriptions = new CopyOnWriteArrayList<Subscription>();
+	private volatile boolean running = false;
+	private ScheduledFuture<?> nextPoll;
+	private int attempt = 0;
+
+	/**
+	 * LiveReportFeed polling {@value #DEFAULT_PUBLICATION_DELAY_MILLIS}ms after
+	 * each sampling period, with up to {@value #DEFAULT_MAX_JITTER_MILLIS}ms of
+	 * jitter and retries starting {@value #DEFAULT_RETRY_BACKOFF_MILLIS}ms
+	 * apart. The feed runs on threads of its own, which {@link #stop()} shuts
+	 * down.
+	 *
+	 * @param poller
+	 *            Source of newly published records, such as an
+	 *            {@link IncrementalGeneratorMixClient}.
+	 * @param samplingFrequency
+	 *            Sampling frequency of the report polled.
+	 */
+	public LiveReportFeed(ReportPoller<T> poller,
+			SamplingFrequency samplingFrequency) {
+		this(poller, samplingFrequency.getPeriodMillis(),
+				DEFAULT_PUBLICATION_DELAY_MILLIS, DEFAULT_MAX_JITTER_MILLIS,
+				DEFAULT_RETRY_BACKOFF_MILLIS, Executors
+						.newSingleThreadScheduledExecutor(getThreadFactory()),
+				Executors.newCachedThreadPool(getThreadFactory()));
+		this.ownsExecutors = true;
+	}
+
+	/**
+	 * @param poller
+	 *            Source of newly published records.
+	 * @param periodMillis
+	 *            Sampling period of the report; polls are aligned to
+	 *            multiples of it.
+	 * @param publicationDelayMillis
+	 *            Time after a period boundary the new row is expected to have
+	 *            been published.
+	 * @param maxJitterMillis
+	 *            Upper bound of the random delay added to each aligned poll.
+	 * @param retryBackoffMillis
+	 *            Wait before the first retry of a poll which failed or found
+	 *            nothing new, doubled for each one after.
+	 * @param scheduler
+	 *            Executor polls are scheduled on, owned by the caller.
+	 * @param publisher
+	 *            Executor listeners are called on, owned by the caller.
+	 */
+	public LiveReportFeed(ReportPoller<T> poller, long periodMillis,
+			long publicationDelayMillis, long maxJitterMillis,
+			long retryBackoffMillis, ScheduledExecutorService scheduler,
+			Executor publisher) {
+		this.poller = poller;
+		this.periodMillis = periodMillis;
+		this.publicationDelayMillis = publicationDelayMillis;
+		this.maxJitterMillis = maxJitterMillis;
+		this.retryBackoffMillis = retryBackoffMillis;
+		this.scheduler = scheduler;
+		this.publisher = publisher;
+	}
+
+	/**
+	 * @param listener
+	 *            Listener to receive every batch published from now on.
+	 */
+	public void addListener(ReportListener<T> listener) {
+		subscriptions.add(new Subscription(listener));
+	}
+
+	/**
+	 * @param listener
+	 *            Listener to stop sending batches to. Batches already queued
+	 *            for it are still delivered.
+	 */
+	public void removeListener(ReportListener<T> listener) {
+		for (Subscription subscription : subscriptions) {
+			if (subscription.listener == listener) {
+				subscriptions.remove(subscription);
+			}
+		}
+	}
+
+	/**
+	 * Starts polling. The first poll is made straight away, to catch up with
+	 * everything published before the feed started.
+	 *
+	 * @throws IllegalStateException
+	 *             If the scheduler has been shut down, as it is when a feed
+	 *             which created its own executors is stopped. Such a feed can
+	 *             not be started again; create a new one instead.
+	 */
+	public synchronized void start() {
+		if (running) {
+			return;
+		}
+		if (scheduler.isShutdown()) {
+			throw new IllegalStateException(
+					"Can not start feed, its scheduler has been shut down");
+		}
+		running = true;
+		this.schedule(0);
+	}
+
+	/**
+	 * Stops polling, and shuts down the feed's executors if it created them,
+	 * after which the feed can not be started again. A feed running on
+	 * executors owned by the caller can be.
+	 */
+	public synchronized void stop() {
+		running = false;
+		if (nextPoll != null) {
+			nextPoll.cancel(false);
+		}
+		if (ownsExecutors) {
+			scheduler.shutdown();
+			((ExecutorService) publisher).shutdown();
+		}
+	}
+
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Polls once, publishes whatever is new and schedules the next poll.
+	 */
+	void poll() {
+		if (!running) {
+			return;
+		}
+		long delay;
+		try {
+			List<T> records = poller.poll();
+			if (records.isEmpty()) {
+				logger.debug("Nothing new published yet");
+				delay = this.getRetryDelay();
+			} else {
+				attempt = 0;
+				this.publish(Collections.unmodifiableList(records));
+				delay = this.getAlignedDelay();
+			}
+		} catch (IOException e) {
+			logger.warn("Could not poll report, retrying: " + e.getMessage());
+			delay = this.getRetryDelay();
+		} catch (RuntimeException e) {
+			logger.error("Could not poll report, retrying: " + e.getMessage());
+			delay = this.getRetryDelay();
+		}
+		this.schedule(delay);
+	}
+
+	private synchronized void schedule(long delayMillis) {
+		if (running) {
+			nextPoll = scheduler.schedule(new Runnable() {
+				@Override
+				public void run() {
+					poll();
+				}
+			}, delayMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private void publish(List<T> records) {
+		for (Subscription subscription : subscriptions) {
+			subscription.offer(records);
+		}
+	}
+
+	/**
+	 * @return Milliseconds until the publication delay after the next period
+	 *         boundary, plus jitter.
+	 */
+	private long getAlignedDelay() {
+		long now = System.currentTimeMillis();
+		long sinceBoundary = (now - publicationDelayMillis) % periodMillis;
+		if (sinceBoundary < 0) {
+			sinceBoundary += periodMillis;
+		}
+		long jitter = maxJitterMillis > 0 ? ThreadLocalRandom.current()
+				.nextLong(maxJitterMillis + 1) : 0;
+		return periodMillis - sinceBoundary + jitter;
+	}
+
+	/**
+	 * @return Exponential backoff for the current attempt, or the aligned
+	 *         delay if that is sooner.
+	 */
+	private long getRetryDelay() {
+		long backoff = retryBackoffMillis << Math.min(attempt, 16);
+		attempt++;
+		return Math.min(backoff, this.getAlignedDelay());
+	}
+
+	private static ThreadFactory getThreadFactory() {
+		return new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "live-report-feed");
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+	}
+
+	/**
+	 * Queue of batches waiting for one listener, drained by at most one
+	 * publisher task at a time so the listener sees batches in order and is
+	 * never called concurrently.
+	 */
+	private class Subscription implements Runnable {
+		private ReportListener<T> listener;
+		private Queue<List<T>> batches = new ConcurrentLinkedQueue<List<T>>();
+		private AtomicBoolean draining = new AtomicBoolean(false);
+
+		Subscription(ReportListener<T> listener) {
+			this.listener = listener;
+		}
+
+		void offer(List<T> records) {
+			batches.add(records);
+			this.scheduleDrain();
+		}
+
+		@Override
+		public void run() {
+			try {
+				List<T> records = batches.poll();
+				while (records != null) {
+					try {
+						listener.handleRecords(records);
+					} catch (RuntimeException e) {
+						logger.error("Listener failed: " + e.getMessage());
+					}
+					records = batches.poll();
+				}
+			} finally {
+				draining.set(false);
+			}
+			// A batch may have arrived after the queue was seen empty
+			if (!batches.isEmpty()) {
+				this.scheduleDrain();
+			}
+		}
+
+		private void scheduleDrain() {
+			if (draining.compareAndSet(false, true)) {
+				try {
+					publisher.execute(this);
+				} catch (RuntimeException e) {
+					draining.set(false);
+					logger.warn("Could not publish to listener: "
+							+ e.getMessage());
+				}
+			}
+		}
+	}
+}
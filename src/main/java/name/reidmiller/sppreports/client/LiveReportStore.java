@@ -0,0 +1,161 @@
+package name.reidmiller.sppreports.client;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import name.reidmiller.sppreports.model.SamplingFrequency;
+
+import org.joda.time.DateTime;
+
+/**
+ * Append-only store of a report's rows which any number of threads can read
+ * without locking while a single writer keeps adding newly published rows.
+ * <p>
+ * Rows are held in primitive arrays. The writer fills rows past the published
+ * length, then publishes a new {@link #getSnapshot() snapshot} through a
+ * single volatile write. A snapshot is the arrays plus the length published
+ * with them, and the rows below that length are never written again, so a
+ * reader sees a consistent set of rows for as long as it holds the snapshot.
+ * When the arrays fill up the writer copies them into larger ones, and older
+ * snapshots keep the arrays they were published with.
+ * <p>
+ * {@link #refresh(int)} appends the rows of a year's report newer than the
+ * last row stored, reading the report through the engine, and so through its
+ * {@link ParsedReportCache} when it has one. Refreshes are serialized with
+ * each other; rows may also be appended directly through
+ * {@link #handleRow(long, ReportRow)} and {@link #publish()} as long as there
+ * is only one writer.
+ *
+ * @param <T>
+ *            Type of record the report rows are parsed into.
+ */
+public class LiveReportStore<T> implements ReportRowHandler {
+	private static final int DEFAULT_CAPACITY = 16;
+	private SppReportEngine<T> engine;
+	private SamplingFrequency samplingFrequency;
+	private int numValues;
+	private volatile ParsedReport snapshot;
+	// Written only by the writer
+	private long[] times;
+	private double[] values;
+	private int size = 0;
+
+	/**
+	 * @param engine
+	 *            Engine the report is read with.
+	 * @param samplingFrequency
+	 *            Five-minute or hourly report.
+	 */
+	public LiveReportStore(SppReportEngine<T> engine,
+			SamplingFrequency samplingFrequency) {
+		this.engine = engine;
+		this.samplingFrequency = samplingFrequency;
+		this.numValues = engine.getSchema().getNumValues();
+		this.times = new long[DEFAULT_CAPACITY];
+		this.values = new double[DEFAULT_CAPACITY * numValues];
+		this.snapshot = ParsedReport.wrap(times, values, numValues, 0);
+	}
+
+	public SppReportEngine<T> getEngine() {
+		return engine;
+	}
+
+	public SamplingFrequency getSamplingFrequency() {
+		return samplingFrequency;
+	}
+
+	/**
+	 * @return Rows published so far. The snapshot never changes, so a reader
+	 *         making several calls should hold on to one snapshot rather than
+	 *         calling this again.
+	 */
+	public ReportTable getSnapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * @return Number of rows published so far.
+	 */
+	public int size() {
+		return snapshot.size();
+	}
+
+	/**
+	 * @return Read-only List view of the rows published so far, see
+	 *         {@link SppReportEngine#asList(ReportTable)}.
+	 */
+	public List<T> asList() {
+		return engine.asList(snapshot);
+	}
+
+	/**
+	 * @param startDate
+	 *            Lower bound of records in the view, inclusive.
+	 * @param endDate
+	 *            Upper bound of records in the view, inclusive.
+	 * @return Read-only List view of the rows published so far from startDate
+	 *         to endDate.
+	 */
+	public List<T> asList(Date startDate, Date endDate) {
+		return engine.asList(snapshot, startDate, endDate);
+	}
+
+	/**
+	 * Same as {@link #refresh(int)} for the current year of the report's zone.
+	 */
+	public int refresh() {
+		return this.refresh(DateTime.now(engine.getSchema().getZone())
+				.getYear());
+	}
+
+	/**
+	 * Appends and publishes the rows of the year's report newer than the last
+	 * row stored. Errors reading the report are logged by the engine and the
+	 * rows read before them are kept.
+	 *
+	 * @param year
+	 *            Year of report.
+	 * @return Number of rows appended.
+	 */
+	public synchronized int refresh(int year) {
+		int before = size;
+		long after = size == 0 ? Long.MIN_VALUE : times[size - 1] + 1;
+		engine.scanYear(year, samplingFrequency, after, Long.MAX_VALUE, this);
+		this.publish();
+		return size - before;
+	}
+
+	/**
+	 * Appends a row without publishing it. Rows not newer than the last row
+	 * stored are ignored, so that overlapping reads append each row once.
+	 * Must only be called by the single writer.
+	 */
+	@Override
+	public void handleRow(long time, ReportRow row) {
+		if (size > 0 && time <= times[size - 1]) {
+			return;
+		}
+		if (size == times.length) {
+			int capacity = size + (size >> 1);
+			times = Arrays.copyOf(times, capacity);
+			values = Arrays.copyOf(values, capacity * numValues);
+		}
+		times[size] = time;
+		int offset = size * numValues;
+		for (int column = 0; column < numValues; column++) {
+			values[offset + column] = row.getValue(column);
+		}
+		size++;
+	}
+
+	/**
+	 * Makes every row appended so far visible to readers. Must only be called
+	 * by the single writer.
+	 */
+	public void publish() {
+		if (snapshot.size() != size) {
+			snapshot = ParsedReport.wrap(times, values, numValues, size);
+		}
+	}
+}
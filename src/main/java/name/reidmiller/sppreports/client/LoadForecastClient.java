@@ -1,43 +1,120 @@
 package name.reidmiller.sppreports.client;
 
-import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.MalformedURLException;
-import java.net.URL;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
 
+import name.reidmiller.sppreports.model.HourlyAggregation;
 import name.reidmiller.sppreports.model.MarketLoad;
+import name.reidmiller.sppreports.model.MarketLoadRecord;
+import name.reidmiller.sppreports.model.MarketLoadSeries;
+import name.reidmiller.sppreports.model.RollupPeriod;
 import name.reidmiller.sppreports.model.SamplingFrequency;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
-import org.joda.time.Duration;
-import org.joda.time.Instant;
-import org.joda.time.format.DateTimeFormat;
-import org.joda.time.format.DateTimeFormatter;
-
-import au.com.bytecode.opencsv.CSVReader;
 
+/**
+ * Client to the SPP LoadForecast reports. Fetching, parsing and date range
+ * handling are done by a {@link SppReportEngine} for the
+ * {@link LoadForecastSchema}.
+ */
 public class LoadForecastClient {
 	public static final String LOAD_FORECAST_REPORT_DATE_FORMAT = "M/d/yyyy H:mm";
 	public static final DateTimeZone US_CENTRAL_ZONE = DateTimeZone.forID("America/Chicago");
 	private Logger logger = LogManager.getLogger(this.getClass());
-	private DateTimeFormatter centralTimeFormat;
+	private SppReportEngine<MarketLoad> engine;
 
 	/**
-	 * MarketLoadClient constructor sets {@link #centralTimeFormat} using
-	 * {@value #GENERATOR_MIX_REPORT_DATE_FORMAT} and {@link #US_CENTRAL_ZONE}.
+	 * Same as {@link #LoadForecastClient(ReportTransport)} with an
+	 * {@link HttpReportTransport} fetching reports from spp.org.
 	 */
 	public LoadForecastClient() {
-		DateTimeFormatter localDateTimeFormat = DateTimeFormat
-				.forPattern(LOAD_FORECAST_REPORT_DATE_FORMAT);
-		this.centralTimeFormat = localDateTimeFormat.withZone(US_CENTRAL_ZONE);
+		this(new HttpReportTransport());
+	}
+
+	/**
+	 * Same as {@link #LoadForecastClient()}, but parsed years are shared through the
+	 * {@link ParsedReportCache} provided, usually
+	 * {@link ParsedReportCache#getShared()}, so that creating a client per
+	 * request does not parse the same year over and over.
+	 *
+	 * @param parsedReportCache
+	 *            In-memory cache of parsed years.
+	 */
+	public LoadForecastClient(ParsedReportCache parsedReportCache) {
+		this(new HttpReportTransport());
+		engine.setParsedReportCache(parsedReportCache);
+	}
+
+	/**
+	 * @param reportTransport
+	 *            Transport reports are fetched with.
+	 */
+	public LoadForecastClient(ReportTransport reportTransport) {
+		this(reportTransport, null);
+	}
+
+	/**
+	 * Same as {@link #LoadForecastClient(ReportTransport)} with the cache's
+	 * transport, but reports are read through the {@link ReportCache}
+	 * provided instead of being downloaded on every call.
+	 *
+	 * @param reportCache
+	 *            On-disk cache of yearly reports.
+	 */
+	public LoadForecastClient(ReportCache reportCache) {
+		this(reportCache.getReportTransport(), reportCache);
+	}
+
+	private LoadForecastClient(ReportTransport reportTransport,
+			ReportCache reportCache) {
+		// Report URLs come from this client so subclasses can redirect them
+		this.engine = new SppReportEngine<MarketLoad>(
+				new LoadForecastSchema(), reportTransport, reportCache) {
+			@Override
+			public String getUrlString(int year,
+					SamplingFrequency samplingFrequency) {
+				return LoadForecastClient.this.getUrlString(year,
+						samplingFrequency);
+			}
+		};
+	}
+
+	/**
+	 * @return Engine doing the work of this client.
+	 */
+	public SppReportEngine<MarketLoad> getEngine() {
+		return this.engine;
+	}
+
+	/**
+	 * @return Transport reports are fetched with.
+	 */
+	public ReportTransport getReportTransport() {
+		return this.engine.getReportTransport();
+	}
+
+	/**
+	 * @return On-disk cache reports are read through, or null if every call
+	 *         downloads the report.
+	 */
+	public ReportCache getReportCache() {
+		return this.engine.getReportCache();
+	}
+
+	/**
+	 * @return Non-blocking counterpart of this client's year, range and
+	 *         default queries, sharing its engine and running on
+	 *         {@link AsyncReportClient#getDefaultExecutor()}.
+	 */
+	public AsyncReportClient<MarketLoad> getAsyncClient() {
+		return new AsyncReportClient<MarketLoad>(engine);
 	}
 
 	/**
@@ -58,12 +135,12 @@ public class LoadForecastClient {
 	 * @param samplingFrequency
 	 *            Switches the report URL String between five-minute and hourly
 	 *            using {@link SamplingFrequency#getUrlPart()}.
-	 * @return SPP GenerationMix report URL string stitched together based on
+	 * @return SPP LoadForecast report URL string stitched together based on
 	 *         parameters passed to method.
 	 */
 	public String getUrlString(int year, SamplingFrequency samplingFrequency) {
-		String urlString = "http://www.spp.org/LoadForecast/" + year + "_"
-				+ samplingFrequency.getUrlPart() + "_Load.csv";
+		String urlString = engine.getSchema().getUrlString(year,
+				samplingFrequency);
 		logger.debug("Parsing URL " + urlString);
 		return urlString;
 	}
@@ -73,9 +150,9 @@ public class LoadForecastClient {
 	 * {@link #getMarketLoadsForYear(int, SamplingFrequency)} to build out the List
 	 * of {@link MarketLoad} objects. Items outside of date range are filtered
 	 * out if necessary.
-	 * 
+	 *
 	 * @param samplingFrequency
-	 * 
+	 *
 	 * @param startDate
 	 *            Lower bound of {@link MarketLoad} objects in the List
 	 *            returned.
@@ -86,45 +163,59 @@ public class LoadForecastClient {
 	 */
 	public List<MarketLoad> getMarketLoadsInRange(
 			SamplingFrequency samplingFrequency, Date startDate, Date endDate) {
-		DateTime startDateTime = new DateTime(startDate);
-		DateTime endDateTime = new DateTime(endDate);
-
-		TreeSet<Integer> yearRange = new TreeSet<Integer>();
-		for (int y = startDateTime.getYear(); y <= endDateTime.getYear(); y++) {
-			yearRange.add(y);
-		}
-
-		List<MarketLoad> marketLoads = new ArrayList<MarketLoad>();
-		for (int year : yearRange) {
-			List<MarketLoad> yearMarketLoads = this.getMarketLoadsForYear(year,
-					samplingFrequency);
-
-			if (year > startDateTime.getYear() && year < endDateTime.getYear()) {
-				marketLoads.addAll(yearMarketLoads);
-			} else if (year == startDateTime.getYear()
-					&& year == endDateTime.getYear()) {
-				for (MarketLoad marketLoad : yearMarketLoads) {
-					if (marketLoad.getDate().compareTo(startDate) >= 0
-							&& marketLoad.getDate().compareTo(endDate) <= 0) {
-						marketLoads.add(marketLoad);
-					}
-				}
-			} else if (year == startDateTime.getYear()) {
-				for (MarketLoad marketLoad : yearMarketLoads) {
-					if (marketLoad.getDate().compareTo(startDate) >= 0) {
-						marketLoads.add(marketLoad);
-					}
-				}
-			} else if (year == endDateTime.getYear()) {
-				for (MarketLoad marketLoad : yearMarketLoads) {
-					if (marketLoad.getDate().compareTo(endDate) <= 0) {
-						marketLoads.add(marketLoad);
-					}
-				}
-			}
-		}
+		return engine.getInRange(samplingFrequency, startDate, endDate);
+	}
 
-		return marketLoads;
+	/**
+	 * Same as {@link #getMarketLoadsInRange(SamplingFrequency, Date, Date)},
+	 * but downloads and parses up to maxParallelism years concurrently using a
+	 * thread pool that lives only for the duration of the call.
+	 *
+	 * @param samplingFrequency
+	 *            Five-minute or hourly report.
+	 * @param startDate
+	 *            Lower bound of {@link MarketLoad} objects in the List
+	 *            returned.
+	 * @param endDate
+	 *            Upper bound of {@link MarketLoad} objects in the List
+	 *            returned.
+	 * @param maxParallelism
+	 *            Maximum number of yearly reports fetched at the same time.
+	 * @return Chronologically ordered List of {@link MarketLoad} objects in the
+	 *         specified date range.
+	 */
+	public List<MarketLoad> getMarketLoadsInRange(
+			SamplingFrequency samplingFrequency, Date startDate, Date endDate,
+			int maxParallelism) {
+		return engine.getInRange(samplingFrequency, startDate, endDate,
+				maxParallelism);
+	}
+
+	/**
+	 * Same as {@link #getMarketLoadsInRange(SamplingFrequency, Date, Date)},
+	 * but each year's report is downloaded and parsed as a separate task on
+	 * the executor provided. Parallelism is bounded by the executor, which the
+	 * caller owns and is responsible for shutting down. Results are still
+	 * assembled in year order, so the List returned is chronological.
+	 *
+	 * @param samplingFrequency
+	 *            Five-minute or hourly report.
+	 * @param startDate
+	 *            Lower bound of {@link MarketLoad} objects in the List
+	 *            returned.
+	 * @param endDate
+	 *            Upper bound of {@link MarketLoad} objects in the List
+	 *            returned.
+	 * @param executor
+	 *            Executor which runs the per-year fetches.
+	 * @return Chronologically ordered List of {@link MarketLoad} objects in the
+	 *         specified date range.
+	 */
+	public List<MarketLoad> getMarketLoadsInRange(
+			SamplingFrequency samplingFrequency, Date startDate, Date endDate,
+			ExecutorService executor) {
+		return engine.getInRange(samplingFrequency, startDate, endDate,
+				executor);
 	}
 
 	/**
@@ -132,7 +223,7 @@ public class LoadForecastClient {
 	 * CSV provides times without offset or daylight savings information, this
 	 * method does a bit of work to find and correct the error, creating
 	 * {@link Date} objects with proper offset information.
-	 * 
+	 *
 	 * @param year
 	 *            Year of report.
 	 * @param samplingFrequency
@@ -143,87 +234,277 @@ public class LoadForecastClient {
 	 */
 	public List<MarketLoad> getMarketLoadsForYear(int year,
 			SamplingFrequency samplingFrequency) {
-		// An arbitrary date known to be in the middle of daylight savings.
-		DateTime august1st = new DateTime(year, 8, 1, 0, 0, 0, 0, US_CENTRAL_ZONE);
-		// Instant of transition from daylight savings to standard time.
-		Instant cdtToCst = new Instant(US_CENTRAL_ZONE.nextTransition(august1st
-				.toInstant().getMillis()));
-		// Instant of last daylight savings sample in the report.
-		Instant lastCdt = null;
-		// When last sample in DST has been hit, trigger standard time fix.
-		boolean startCstFix = false;
-		// Number of records to fix changes for five-minute or hourly report.
-		int numCstFixed = 0;
-		int cstFixLimit = 0;
-		switch (samplingFrequency) {
-		case FIVE_MINUTES:
-			lastCdt = cdtToCst.minus(Duration.standardMinutes(5));
-			cstFixLimit = 12;
-			break;
-		case HOURLY:
-			lastCdt = cdtToCst.minus(Duration.standardHours(1));
-			cstFixLimit = 1;
-			break;
-		}
-		logger.debug("Last sample of CDT is "
-				+ lastCdt.toDateTime(US_CENTRAL_ZONE));
-
-		List<MarketLoad> marketLoads = new ArrayList<MarketLoad>();
-		String urlString = this.getUrlString(year, samplingFrequency);
-		try {
-			URL url = new URL(urlString);
-			BufferedReader in = new BufferedReader(new InputStreamReader(
-					url.openStream()));
-			CSVReader reader = new CSVReader(in);
-
-			// Loop over each row of CSV report
-			String[] csvLine = reader.readNext();
-			for (int i = 0; csvLine != null; i++) {
-				// Skip first row and empty rows
-				if (i > 0 && csvLine[0] != null && !csvLine[0].isEmpty()) {
-					MarketLoad marketLoad = new MarketLoad();
-					DateTime marketLoadDateTime = centralTimeFormat
-							.parseDateTime(csvLine[0]);
-
-					// If DST flag has been set and fix count is under limit
-					if (startCstFix && numCstFixed < cstFixLimit) {
-						Instant incorrectCst = marketLoadDateTime.toInstant();
-						Instant correctCdt = incorrectCst.plus(Duration
-								.standardHours(1));
-						logger.debug("Incorrect Date "
-								+ incorrectCst.toDateTime(US_CENTRAL_ZONE)
-								+ " corrected to "
-								+ correctCdt.toDateTime(US_CENTRAL_ZONE));
-						marketLoad.setDate(correctCdt.toDate());
-						numCstFixed++;
-					} else {
-						marketLoad.setDate(marketLoadDateTime.toDate());
-					}
+		return engine.getForYear(year, samplingFrequency);
+	}
+
+	/**
+	 * Streaming counterpart of {@link #getMarketLoadsForYear(int, SamplingFrequency)}.
+	 * Rows are parsed into {@link MarketLoad} objects one at a time as the
+	 * iterator is advanced, with the same daylight savings correction.
+	 *
+	 * @param year
+	 *            Year of report.
+	 * @param samplingFrequency
+	 *            Five-minute or hourly sampling frequency controls which report
+	 *            URL is created.
+	 * @return Iterator over the {@link MarketLoad} objects for the year, empty if
+	 *         the report could not be opened.
+	 */
+	public ReportIterator<MarketLoad> iterateMarketLoadsForYear(int year,
+			SamplingFrequency samplingFrequency) {
+		return engine.iterateForYear(year, samplingFrequency);
+	}
 
-					// When last DST row hit, trigger fix to tart next iteration
-					if (marketLoadDateTime.isEqual(lastCdt)) {
-						startCstFix = true;
+	/**
+	 * Streaming counterpart of
+	 * {@link #getMarketLoadsInRange(SamplingFrequency, Date, Date)}. Yearly reports
+	 * are opened one after another as the iterator is advanced, so memory use
+	 * does not grow with the length of the range, and reading stops as soon as
+	 * endDate is passed.
+	 *
+	 * @param samplingFrequency
+	 *            Five-minute or hourly report.
+	 * @param startDate
+	 *            Lower bound of {@link MarketLoad} objects returned.
+	 * @param endDate
+	 *            Upper bound of {@link MarketLoad} objects returned.
+	 * @return Iterator over the {@link MarketLoad} objects in the specified date
+	 *         range, in chronological order.
+	 */
+	public ReportIterator<MarketLoad> iterateMarketLoadsInRange(
+			SamplingFrequency samplingFrequency, Date startDate, Date endDate) {
+		return engine.iterateInRange(samplingFrequency, startDate, endDate);
+	}
+
+	/**
+	 * Columnar counterpart of {@link #getMarketLoadsForYear(int, SamplingFrequency)}.
+	 * Rows are parsed straight into the primitive columns of a
+	 * {@link MarketLoadSeries} without creating a {@link MarketLoad} or
+	 * {@link Date} per row.
+	 *
+	 * @param year
+	 *            Year of report.
+	 * @param samplingFrequency
+	 *            Five-minute or hourly report.
+	 * @return MarketLoadSeries holding the year's report.
+	 */
+	public MarketLoadSeries getMarketLoadSeriesForYear(int year,
+			SamplingFrequency samplingFrequency) {
+		MarketLoadSeries series = new MarketLoadSeries(
+				samplingFrequency.getMaxSamplesPerYear());
+		engine.scanYear(year, samplingFrequency, Long.MIN_VALUE,
+				Long.MAX_VALUE, this.getSeriesFiller(series));
+		series.trimToSize();
+		return series;
+	}
+
+	/**
+	 * Columnar counterpart of
+	 * {@link #getMarketLoadsInRange(SamplingFrequency, Date, Date)}.
+	 *
+	 * @param samplingFrequency
+	 *            Five-minute or hourly report.
+	 * @param startDate
+	 *            Lower bound of rows in the series returned.
+	 * @param endDate
+	 *            Upper bound of rows in the series returned.
+	 * @return MarketLoadSeries holding the rows in the specified date range.
+	 */
+	public MarketLoadSeries getMarketLoadSeriesInRange(
+			SamplingFrequency samplingFrequency, Date startDate, Date endDate) {
+		MarketLoadSeries series = new MarketLoadSeries();
+		engine.scanRange(samplingFrequency, startDate, endDate,
+				this.getSeriesFiller(series));
+		series.trimToSize();
+		return series;
+	}
+
+	/**
+	 * Compact counterpart of {@link #getMarketLoadsForYear(int, SamplingFrequency)},
+	 * parsing each row straight into an immutable {@link MarketLoadRecord} rather
+	 * than a {@link MarketLoad} and its {@link Date}.
+	 *
+	 * @param year
+	 *            Year of report.
+	 * @param samplingFrequency
+	 *            Five-minute or hourly report.
+	 * @return List of {@link MarketLoadRecord} objects in report order.
+	 */
+	public List<MarketLoadRecord> getMarketLoadRecordsForYear(int year,
+			SamplingFrequency samplingFrequency) {
+		final List<MarketLoadRecord> records = new ArrayList<MarketLoadRecord>(
+				samplingFrequency.getMaxSamplesPerYear());
+		engine.scanYear(year, samplingFrequency, Long.MIN_VALUE,
+				Long.MAX_VALUE, new ReportRowHandler() {
+					@Override
+					public void handleRow(long time, ReportRow row) {
+						records.add(new MarketLoadRecord(time, row.getValue(0), row
+								.getValue(1)));
 					}
+				});
+		return records;
+	}
+
+	/**
+	 * Hourly counterpart of {@link #getMarketLoadSeriesForYear(int, SamplingFrequency)}
+	 * derived from the five-minute report, see {@link HourlyAggregation}.
+	 * When the client shares a {@link ParsedReportCache} the five-minute year
+	 * is downloaded once and serves both shapes.
+	 *
+	 * @param year
+	 *            Year of report.
+	 * @param aggregation
+	 *            How the five-minute rows of each hour are combined.
+	 * @return MarketLoadSeries with one row per hour of the year.
+	 */
+	public MarketLoadSeries getHourlyMarketLoadSeriesForYear(int year,
+			HourlyAggregation aggregation) {
+		return this.getMarketLoadSeriesForYear(year, SamplingFrequency.FIVE_MINUTES)
+				.toHourly(aggregation);
+	}
+
+	/**
+	 * List counterpart of
+	 * {@link #getHourlyMarketLoadSeriesForYear(int, HourlyAggregation)}.
+	 *
+	 * @param year
+	 *            Year of report.
+	 * @param aggregation
+	 *            How the five-minute rows of each hour are combined.
+	 * @return List of {@link MarketLoad} objects, one per hour of the year.
+	 */
+	public List<MarketLoad> getHourlyMarketLoadsForYear(int year,
+			HourlyAggregation aggregation) {
+		return this.getHourlyMarketLoadSeriesForYear(year, aggregation).asList();
+	}
 
-					marketLoad.setCurrentLoad(Double.parseDouble(csvLine[1]));
-					marketLoad.setLoadForecast(Double.parseDouble(csvLine[2]));
+	/**
+	 * Aggregates a year's report per hour, day or month of Central time,
+	 * without creating a {@link MarketLoad} per row. Columns of the rollup are
+	 * indexed by the column constants of {@link LoadForecastSchema}. When the client
+	 * shares a {@link ParsedReportCache}, rollups for the periods passed to
+	 * {@link SppReportEngine#setIngestRollupPeriods(java.util.Set)} are built
+	 * while the year is parsed and later calls return in microseconds.
+	 *
+	 * @param year
+	 *            Year of report.
+	 * @param samplingFrequency
+	 *            Five-minute or hourly report.
+	 * @param period
+	 *            Period rows are rolled up into.
+	 * @return Rollup of the year, empty if the report could not be read.
+	 */
+	public ReportRollup getMarketLoadRollupForYear(int year,
+			SamplingFrequency samplingFrequency, RollupPeriod period) {
+		return engine.getRollupForYear(year, samplingFrequency, period);
+	}
 
-					marketLoads.add(marketLoad);
-				}
+	/**
+	 * Converts a year's report into the binary format of archive, so that it
+	 * can later be reloaded without parsing with
+	 * {@link #getArchivedMarketLoadsForYear(int, SamplingFrequency, ReportArchive)}.
+	 *
+	 * @param year
+	 *            Year of report.
+	 * @param samplingFrequency
+	 *            Five-minute or hourly report.
+	 * @param archive
+	 *            Archive the report is written to.
+	 * @return File the report was archived in.
+	 * @throws IOException
+	 *             If the report could not be read in full or the archive file
+	 *             could not be written.
+	 */
+	public File archiveMarketLoadsForYear(int year,
+			SamplingFrequency samplingFrequency, ReportArchive archive)
+			throws IOException {
+		return engine.archiveYear(year, samplingFrequency, archive);
+	}
 
-				// Step to next line
-				csvLine = reader.readNext();
-			}
+	/**
+	 * Archived counterpart of {@link #getMarketLoadsForYear(int, SamplingFrequency)}.
+	 * The archive file is memory mapped, and a {@link MarketLoad} is only created
+	 * when an element of the List is accessed.
+	 *
+	 * @param year
+	 *            Year of report.
+	 * @param samplingFrequency
+	 *            Five-minute or hourly report.
+	 * @param archive
+	 *            Archive the report was written to.
+	 * @return Read-only List of {@link MarketLoad} objects for the year.
+	 * @throws IOException
+	 *             If the year has not been archived or its archive file cannot
+	 *             be read.
+	 */
+	public List<MarketLoad> getArchivedMarketLoadsForYear(int year,
+			SamplingFrequency samplingFrequency, ReportArchive archive)
+			throws IOException {
+		return engine.getArchivedForYear(year, samplingFrequency, archive);
+	}
 
-			reader.close();
+	/**
+	 * Archived counterpart of
+	 * {@link #getMarketLoadsInRange(SamplingFrequency, Date, Date)}, suited to
+	 * frequent small queries such as the last day. The bounds of the range
+	 * are found by binary search in the memory mapped archive files, so only
+	 * the {@link MarketLoad} objects in range are created. Years missing from the
+	 * archive are read from their reports.
+	 *
+	 * @param samplingFrequency
+	 *            Five-minute or hourly report.
+	 * @param startDate
+	 *            Lower bound of {@link MarketLoad} objects in the List returned.
+	 * @param endDate
+	 *            Upper bound of {@link MarketLoad} objects in the List returned.
+	 * @param archive
+	 *            Archive years are read from when present.
+	 * @return Chronologically ordered List of {@link MarketLoad} objects in the
+	 *         specified date range.
+	 */
+	public List<MarketLoad> getArchivedMarketLoadsInRange(
+			SamplingFrequency samplingFrequency, Date startDate, Date endDate,
+			ReportArchive archive) {
+		return engine.getArchivedInRange(samplingFrequency, startDate,
+				endDate, archive);
+	}
 
-		} catch (MalformedURLException e) {
-			logger.warn("Could not create " + URL.class + " from \""
-					+ urlString + "\"");
-		} catch (IOException e) {
-			logger.error(e.getMessage());
-		}
+	/**
+	 * Archived counterpart of
+	 * {@link #getMarketLoadSeriesForYear(int, SamplingFrequency)}, copying the
+	 * columns out of the memory mapped archive file.
+	 *
+	 * @param year
+	 *            Year of report.
+	 * @param samplingFrequency
+	 *            Five-minute or hourly report.
+	 * @param archive
+	 *            Archive the report was written to.
+	 * @return MarketLoadSeries holding the year's report.
+	 * @throws IOException
+	 *             If the year has not been archived or its archive file cannot
+	 *             be read.
+	 */
+	public MarketLoadSeries getArchivedMarketLoadSeriesForYear(int year,
+			SamplingFrequency samplingFrequency, ReportArchive archive)
+			throws IOException {
+		ArchivedReport report = archive.open(engine.getSchema(), year,
+				samplingFrequency);
+		MarketLoadSeries series = new MarketLoadSeries(report.size());
+		report.scan(Long.MIN_VALUE, Long.MAX_VALUE,
+				this.getSeriesFiller(series));
+		return series;
+	}
 
-		return marketLoads;
+	/**
+	 * @return Handler appending each row it is passed to series.
+	 */
+	private ReportRowHandler getSeriesFiller(final MarketLoadSeries series) {
+		return new ReportRowHandler() {
+			@Override
+			public void handleRow(long time, ReportRow row) {
+				series.add(time, row.getValue(0), row.getValue(1));
+			}
+		};
 	}
 }
@@ -0,0 +1,34 @@
+package name.reidmiller.sppreports.client;
+
+import java.util.Date;
+
+import name.reidmiller.sppreports.model.MarketLoad;
+
+/**
+ * {@link ReportSchema} of the LoadForecast reports.
+ */
+public class LoadForecastSchema extends ReportSchema<MarketLoad> {
+	public static final String URL_TEMPLATE = "http://www.spp.org/LoadForecast/"
+			+ YEAR_PLACEHOLDER + "_" + FREQUENCY_PLACEHOLDER + "_Load.csv";
+	public static final int CURRENT_LOAD = 0;
+	public static final int LOAD_FORECAST = 1;
+
+	public LoadForecastSchema() {
+		super("MarketLoad", URL_TEMPLATE, LoadForecastClient.US_CENTRAL_ZONE,
+				"Current Load", "Load Forecast");
+	}
+
+	@Override
+	public MarketLoad createRecord(Date date, ReportRow row) {
+		MarketLoad marketLoad = new MarketLoad();
+		marketLoad.setDate(date);
+		marketLoad.setCurrentLoad(row.getValue(CURRENT_LOAD));
+		marketLoad.setLoadForecast(row.getValue(LOAD_FORECAST));
+		return marketLoad;
+	}
+
+	@Override
+	public Date getDate(MarketLoad marketLoad) {
+		return marketLoad.getDate();
+	}
+}
@@ -0,0 +1,68 @@
+package name.reidmiller.sppreports.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link ReportTransport} serving reports held locally, answering the way an
+ * HTTP server would: 404 for a missing report, and 206 or 416 for a Range
+ * request, so that {@link ReportTail} can be exercised without a network.
+ */
+public abstract class LocalReportTransport implements ReportTransport {
+	private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+
+	/**
+	 * @param urlString
+	 *            URL of the report.
+	 * @return Complete content of the report, or null if there is none.
+	 * @throws IOException
+	 *             If the report exists but could not be read.
+	 */
+	protected abstract byte[] getReport(String urlString) throws IOException;
+
+	@Override
+	public ReportResponse fetch(ReportRequest request) throws IOException {
+		byte[] report = this.getReport(request.getUrlString());
+		Map<String, String> headers = new HashMap<String, String>();
+		if (report == null) {
+			return new ReportResponse(HttpURLConnection.HTTP_NOT_FOUND,
+					headers, 0, null);
+		}
+
+		long first = this.getRangeStart(request.getHeader("Range"));
+		if (first < 0) {
+			return new ReportResponse(HttpURLConnection.HTTP_OK, headers, 0,
+					new ByteArrayInputStream(report));
+		} else if (first >= report.length) {
+			headers.put("Content-Range", "bytes */" + report.length);
+			return new ReportResponse(HTTP_RANGE_NOT_SATISFIABLE, headers, 0,
+					null);
+		}
+		headers.put("Content-Range", "bytes " + first + "-"
+				+ (report.length - 1) + "/" + report.length);
+		return new ReportResponse(HttpURLConnection.HTTP_PARTIAL, headers, 0,
+				new ByteArrayInputStream(report, (int) first, report.length
+						- (int) first));
+	}
+
+	/**
+	 * @param range
+	 *            Range header of the form "bytes=first-", the only form
+	 *            {@link ReportTail} sends.
+	 * @return First byte requested, or -1 if there is no range to honour.
+	 */
+	private long getRangeStart(String range) {
+		if (range == null || !range.startsWith("bytes=") || !range.endsWith("-")) {
+			return -1;
+		}
+		try {
+			return Long.parseLong(range.substring("bytes=".length(),
+					range.length() - 1));
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+}
@@ -0,0 +1,32 @@
+package name.reidmiller.sppreports.client;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link ReportTransport} serving reports from memory by URL. Reports can be
+ * replaced while in use, for example to append rows between polls of an
+ * incremental client.
+ */
+public class MemoryReportTransport extends LocalReportTransport {
+	private Map<String, byte[]> reports = new ConcurrentHashMap<String, byte[]>();
+
+	/**
+	 * @param urlString
+	 *            URL the report is served at.
+	 * @param report
+	 *            Complete content of the report.
+	 */
+	public void putReport(String urlString, byte[] report) {
+		reports.put(urlString, report);
+	}
+
+	public void removeReport(String urlString) {
+		reports.remove(urlString);
+	}
+
+	@Override
+	protected byte[] getReport(String urlString) {
+		return reports.get(urlString);
+	}
+}
@@ -0,0 +1,58 @@
+package name.reidmiller.sppreports.client;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counts the bytes read from a report and the time spent blocked reading
+ * them, so that download time can be told apart from parse time when the two
+ * are interleaved.
+ */
+class MeteredInputStream extends FilterInputStream {
+	private long bytes = 0;
+	private long nanos = 0;
+
+	MeteredInputStream(InputStream in) {
+		super(in);
+	}
+
+	@Override
+	public int read() throws IOException {
+		long start = System.nanoTime();
+		int b = super.read();
+		nanos += System.nanoTime() - start;
+		if (b >= 0) {
+			bytes++;
+		}
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		long start = System.nanoTime();
+		int n = super.read(b, off, len);
+		nanos += System.nanoTime() - start;
+		if (n > 0) {
+			bytes += n;
+		}
+		return n;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		long start = System.nanoTime();
+		long skipped = super.skip(n);
+		nanos += System.nanoTime() - start;
+		bytes += skipped;
+		return skipped;
+	}
+
+	long getBytes() {
+		return bytes;
+	}
+
+	long getNanos() {
+		return nanos;
+	}
+}
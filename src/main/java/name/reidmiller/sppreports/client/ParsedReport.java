@@ -0,0 +1,159 @@
+package name.reidmiller.sppreports.client;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import name.reidmiller.sppreports.model.RollupPeriod;
+
+/**
+ * Year of a report parsed into primitive arrays held in memory: one of epoch
+ * milliseconds, and one of values with the values of each row side by side.
+ * A ParsedReport cannot be modified once built, so a single instance can be
+ * shared by any number of clients and threads through a
+ * {@link ParsedReportCache}. Records are created from it on demand, so
+ * callers never share a record. {@link ReportRollup}s built while the report
+ * was parsed are kept alongside the rows.
+ */
+public class ParsedReport extends ReportTable {
+	private long[] times;
+	private double[] values;
+	private int numValues;
+	private int size;
+	private Map<RollupPeriod, ReportRollup> rollups;
+
+	private ParsedReport(long[] times, double[] values, int numValues,
+			int size, Map<RollupPeriod, ReportRollup> rollups) {
+		this.times = times;
+		this.values = values;
+		this.numValues = numValues;
+		this.size = size;
+		this.rollups = Collections.unmodifiableMap(rollups);
+	}
+
+	/**
+	 * @return ParsedReport over the first size rows of times and values,
+	 *         without copying them. Those rows must never be modified
+	 *         afterwards, though rows after them may still be written.
+	 */
+	static ParsedReport wrap(long[] times, double[] values, int numValues,
+			int size) {
+		return new ParsedReport(times, values, numValues, size,
+				new EnumMap<RollupPeriod, ReportRollup>(RollupPeriod.class));
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public int getNumValues() {
+		return numValues;
+	}
+
+	@Override
+	public long getTime(int index) {
+		this.checkIndex(index);
+		return times[index];
+	}
+
+	@Override
+	public double getValue(int index, int column) {
+		this.checkIndex(index);
+		this.checkColumn(column);
+		return values[index * numValues + column];
+	}
+
+	/**
+	 * @param period
+	 *            Period rows are rolled up into.
+	 * @return Rollup built while the report was parsed, or null if none was
+	 *         built for period.
+	 */
+	public ReportRollup getRollup(RollupPeriod period) {
+		return rollups.get(period);
+	}
+
+	/**
+	 * @return Approximate number of bytes of memory the report and its
+	 *         rollups take.
+	 */
+	public long getWeight() {
+		long weight = 8L * times.length + 8L * values.length;
+		for (ReportRollup rollup : rollups.values()) {
+			// Start, end and count plus sum, min and max of each column
+			weight += rollup.size() * (20L + 24L * numValues);
+		}
+		return weight;
+	}
+
+	/**
+	 * Collects the rows it is passed into a {@link ParsedReport}.
+	 */
+	static class Builder implements ReportRowHandler {
+		private static final int DEFAULT_CAPACITY = 16;
+		private long[] times;
+		private double[] values;
+		private int numValues;
+		private int size = 0;
+		private List<ReportRollup.Builder> rollupBuilders = new ArrayList<ReportRollup.Builder>();
+
+		/**
+		 * @param numValues
+		 *            Number of value columns of every row.
+		 * @param initialCapacity
+		 *            Number of rows held before the arrays need to grow.
+		 */
+		Builder(int numValues, int initialCapacity) {
+			this.numValues = numValues;
+			this.times = new long[Math.max(1, initialCapacity)];
+			this.values = new double[times.length * numValues];
+		}
+
+		/**
+		 * @param rollupBuilder
+		 *            Rollup to build in the same pass as the report.
+		 */
+		void addRollup(ReportRollup.Builder rollupBuilder) {
+			rollupBuilders.add(rollupBuilder);
+		}
+
+		@Override
+		public void handleRow(long time, ReportRow row) {
+			for (int i = 0; i < rollupBuilders.size(); i++) {
+				rollupBuilders.get(i).handleRow(time, row);
+			}
+			if (size == times.length) {
+				int capacity = Math.max(DEFAULT_CAPACITY, size + (size >> 1));
+				times = Arrays.copyOf(times, capacity);
+				values = Arrays.copyOf(values, capacity * numValues);
+			}
+			times[size] = time;
+			int offset = size * numValues;
+			for (int column = 0; column < numValues; column++) {
+				values[offset + column] = row.getValue(column);
+			}
+			size++;
+		}
+
+		/**
+		 * @return ParsedReport holding every row passed so far, trimmed to
+		 *         size. The builder must not be used afterwards.
+		 */
+		ParsedReport build() {
+			Map<RollupPeriod, ReportRollup> rollups = new EnumMap<RollupPeriod, ReportRollup>(
+					RollupPeriod.class);
+			for (ReportRollup.Builder rollupBuilder : rollupBuilders) {
+				ReportRollup rollup = rollupBuilder.build();
+				rollups.put(rollup.getPeriod(), rollup);
+			}
+			return new ParsedReport(Arrays.copyOf(times, size),
+					Arrays.copyOf(values, size * numValues), numValues, size,
+					rollups);
+		}
+	}
+}
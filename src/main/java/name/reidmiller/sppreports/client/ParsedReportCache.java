@@ -0,0 +1,246 @@
+package name.reidmiller.sppreports.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Thread-safe in-process cache of {@link ParsedReport} years, keyed by report
+ * URL, which names the report, year and sampling frequency. Clients are cheap
+ * to create per request because every client using the same cache shares the
+ * years it has parsed.
+ * <p>
+ * The cache is bounded by the total {@link ParsedReport#getWeight()} of its
+ * entries, evicting the least recently used first. Years which have closed
+ * never expire; the year still being published is reloaded once it is older
+ * than the open year time-to-live. Concurrent misses on the same key wait on
+ * a single load, so a burst of requests for a year downloads it only once.
+ * Failed loads are not cached, and when reloading an expired year fails the
+ * expired report is served until a reload succeeds.
+ */
+public class ParsedReportCache {
+	public static final long DEFAULT_MAX_WEIGHT = 256L * 1024 * 1024;
+	public static final long DEFAULT_OPEN_YEAR_TTL_MILLIS = 5 * 60 * 1000L;
+	private static final ParsedReportCache SHARED = new ParsedReportCache(
+			DEFAULT_MAX_WEIGHT, DEFAULT_OPEN_YEAR_TTL_MILLIS);
+	private Logger logger = LogManager.getLogger(this.getClass());
+	private long maxWeight;
+	private long openYearTtlNanos;
+	private LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(
+			16, 0.75f, true);
+	private Map<String, FutureTask<ParsedReport>> loads = new HashMap<String, FutureTask<ParsedReport>>();
+	private long weight = 0;
+	private long hitCount = 0;
+	private long missCount = 0;
+	private long loadCount = 0;
+
+	/**
+	 * @param maxWeight
+	 *            Maximum total weight of the cached years, in bytes.
+	 * @param openYearTtlMillis
+	 *            Time a year which is still being published is served from the
+	 *            cache before it is reloaded.
+	 */
+	public ParsedReportCache(long maxWeight, long openYearTtlMillis) {
+		this.maxWeight = maxWeight;
+		this.openYearTtlNanos = TimeUnit.MILLISECONDS
+				.toNanos(openYearTtlMillis);
+	}
+
+	/**
+	 * @return Cache which clients may opt in to sharing, holding up to
+	 *         {@value #DEFAULT_MAX_WEIGHT} bytes of years and reloading the
+	 *         open year after {@value #DEFAULT_OPEN_YEAR_TTL_MILLIS}ms.
+	 */
+	public static ParsedReportCache getShared() {
+		return SHARED;
+	}
+
+	/**
+	 * Returns the cached report for key, loading it if it is missing or has
+	 * expired. If another thread is already loading key, waits for that load
+	 * instead of starting another.
+	 *
+	 * @param key
+	 *            Report URL.
+	 * @param closedPeriod
+	 *            True if the report will no longer change, in which case it
+	 *            never expires.
+	 * @param loader
+	 *            Downloads and parses the report on a miss.
+	 * @return The cached or newly loaded report, or the expired report if
+	 *         reloading it failed.
+	 * @throws IOException
+	 *             If the load failed, whether it was made by this thread or
+	 *             another one, and there was no expired report to fall back
+	 *             on.
+	 */
+	public ParsedReport get(String key, boolean closedPeriod,
+			Callable<ParsedReport> loader) throws IOException {
+		FutureTask<ParsedReport> load;
+		boolean loading = false;
+		Entry stale;
+		synchronized (this) {
+			Entry entry = entries.get(key);
+			if (entry != null && !this.isExpired(entry)) {
+				hitCount++;
+				return entry.report;
+			}
+			stale = entry;
+			missCount++;
+			load = loads.get(key);
+			if (load == null) {
+				load = new FutureTask<ParsedReport>(loader);
+				loads.put(key, load);
+				loading = true;
+				loadCount++;
+			}
+		}
+
+		if (loading) {
+			try {
+				load.run();
+			} finally {
+				this.finishLoad(key, closedPeriod, load);
+			}
+		}
+		try {
+			return load.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for "
+					+ key);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				if (stale != null) {
+					logger.warn("Could not reload " + key
+							+ ", serving expired report: " + cause.getMessage());
+					return stale.report;
+				}
+				throw (IOException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	/**
+	 * Removes the report for key so that the next request reloads it.
+	 */
+	public synchronized void invalidate(String key) {
+		Entry entry = entries.remove(key);
+		if (entry != null) {
+			weight -= entry.weight;
+		}
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+		weight = 0;
+	}
+
+	/**
+	 * @return Number of reports cached.
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return Total weight of the reports cached, in bytes.
+	 */
+	public synchronized long getWeight() {
+		return weight;
+	}
+
+	public long getMaxWeight() {
+		return maxWeight;
+	}
+
+	/**
+	 * @return Number of requests answered from the cache.
+	 */
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * @return Number of requests which had to load or wait for a load.
+	 */
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * @return Number of loads started, which is less than the miss count when
+	 *         concurrent misses shared a load.
+	 */
+	public synchronized long getLoadCount() {
+		return loadCount;
+	}
+
+	/**
+	 * Caches the result of a finished load, unless it failed, then evicts the
+	 * least recently used reports until the cache is back under its weight.
+	 */
+	private synchronized void finishLoad(String key, boolean closedPeriod,
+			FutureTask<ParsedReport> load) {
+		loads.remove(key);
+		ParsedReport report;
+		try {
+			report = load.get();
+		} catch (Exception e) {
+			return;
+		}
+
+		this.invalidate(key);
+		Entry entry = new Entry(report, closedPeriod, System.nanoTime());
+		if (entry.weight > maxWeight) {
+			logger.debug(key + " is heavier than the whole cache, not caching");
+			return;
+		}
+		entries.put(key, entry);
+		weight += entry.weight;
+		Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet()
+				.iterator();
+		while (weight > maxWeight) {
+			Map.Entry<String, Entry> evicted = eldest.next();
+			logger.debug("Evicting " + evicted.getKey());
+			weight -= evicted.getValue().weight;
+			eldest.remove();
+		}
+	}
+
+	private boolean isExpired(Entry entry) {
+		return !entry.closedPeriod
+				&& System.nanoTime() - entry.loadedNanos >= openYearTtlNanos;
+	}
+
+	private static class Entry {
+		private ParsedReport report;
+		private boolean closedPeriod;
+		private long loadedNanos;
+		private long weight;
+
+		Entry(ParsedReport report, boolean closedPeriod, long loadedNanos) {
+			this.report = report;
+			this.closedPeriod = closedPeriod;
+			this.loadedNanos = loadedNanos;
+			this.weight = report.getWeight();
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package name.reidmiller.sppreports.client;
+
+import java.io.IOException;
+import java.util.Date;
+
+import org.joda.time.DateTime;
+
+/**
+ * Chains the yearly reports covering a date range into a single
+ * {@link ReportIterator}. Each year's report is only opened once the previous
+ * year has been read, records before the start of the range are skipped, and
+ * reading stops at the first record after the end of the range.
+ *
+ * @param <T>
+ *            Type of record the report rows are parsed into.
+ */
+abstract class RangeReportIterator<T> extends ReportIterator<T> {
+	private Date startDate;
+	private Date endDate;
+	private int year;
+	private int endYear;
+	private ReportIterator<T> yearIterator;
+
+	/**
+	 * @param startDate
+	 *            Lower bound of records returned.
+	 * @param endDate
+	 *            Upper bound of records returned.
+	 */
+	RangeReportIterator(Date startDate, Date endDate) {
+		this.startDate = startDate;
+		this.endDate = endDate;
+		this.year = new DateTime(startDate).getYear();
+		this.endYear = new DateTime(endDate).getYear();
+	}
+
+	/**
+	 * @param year
+	 *            Year of report to open.
+	 * @return Iterator over every record of the year's report.
+	 */
+	protected abstract ReportIterator<T> openYear(int year);
+
+	/**
+	 * @param record
+	 *            Record of a report.
+	 * @return Date of the record.
+	 */
+	protected abstract Date getDate(T record);
+
+	@Override
+	protected T readNext() throws IOException {
+		while (year <= endYear) {
+			if (yearIterator == null) {
+				yearIterator = this.openYear(year);
+			}
+			while (yearIterator.hasNext()) {
+				T record = yearIterator.next();
+				if (this.getDate(record).compareTo(endDate) > 0) {
+					// Reports are sorted, so nothing later is in range
+					year = endYear + 1;
+					return null;
+				} else if (this.getDate(record).compareTo(startDate) >= 0) {
+					return record;
+				}
+			}
+			yearIterator = null;
+			year++;
+		}
+		return null;
+	}
+
+	@Override
+	public void close() throws IOException {
+		year = endYear + 1;
+		if (yearIterator != null) {
+			yearIterator.close();
+			yearIterator = null;
+		}
+	}
+}
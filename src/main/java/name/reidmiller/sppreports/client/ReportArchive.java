@@ -0,0 +1,181 @@
+package name.reidmiller.sppreports.client;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import name.reidmiller.sppreports.model.SamplingFrequency;
+
+/**
+ * Directory of reports converted to a compact binary format, one file per
+ * report, year and {@link SamplingFrequency}. Reloading history from the
+ * archive skips CSV parsing altogether: each file is memory mapped by an
+ * {@link ArchivedReport} and read in place. Values are stored as doubles so
+ * that they read back exactly as parsed.
+ */
+public class ReportArchive {
+	static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+	private static final String DATA_SUFFIX = ".bin";
+	private File archiveDirectory;
+
+	/**
+	 * @param archiveDirectory
+	 *            Directory the archive files are written to. Created if it
+	 *            does not exist.
+	 */
+	public ReportArchive(File archiveDirectory) {
+		this.archiveDirectory = archiveDirectory;
+		if (!archiveDirectory.isDirectory() && !archiveDirectory.mkdirs()) {
+			throw new IllegalArgumentException(
+					"Could not create archive directory " + archiveDirectory);
+		}
+	}
+
+	/**
+	 * @param schema
+	 *            Report archived.
+	 * @param year
+	 *            Year of report.
+	 * @param samplingFrequency
+	 *            Five-minute or hourly report.
+	 * @return File the report is (or would be) archived in.
+	 */
+	public File getArchiveFile(ReportSchema<?> schema, int year,
+			SamplingFrequency samplingFrequency) {
+		return new File(archiveDirectory, schema.getName() + "_" + year + "_"
+				+ samplingFrequency.getUrlPart() + DATA_SUFFIX);
+	}
+
+	/**
+	 * @return True if the report has been archived.
+	 */
+	public boolean contains(ReportSchema<?> schema, int year,
+			SamplingFrequency samplingFrequency) {
+		return this.getArchiveFile(schema, year, samplingFrequency).isFile();
+	}
+
+	/**
+	 * @return Memory mapped view of the archived report.
+	 * @throws IOException
+	 *             If the report has not been archived or its file cannot be
+	 *             read.
+	 */
+	public ArchivedReport open(ReportSchema<?> schema, int year,
+			SamplingFrequency samplingFrequency) throws IOException {
+		return new ArchivedReport(this.getArchiveFile(schema, year,
+				samplingFrequency), schema.getNumValues());
+	}
+
+	/**
+	 * @return Writer the rows of the report are passed to. The archive file
+	 *         is only replaced once {@link Writer#commit()} is called.
+	 */
+	Writer createWriter(ReportSchema<?> schema, int year,
+			SamplingFrequency samplingFrequency) throws IOException {
+		return new Writer(this.getArchiveFile(schema, year,
+				samplingFrequency), schema.getNumValues());
+	}
+
+	/**
+	 * Writes the rows it is passed to a temporary file, which
+	 * {@link #commit()} moves into place. {@link ReportRowHandler} cannot
+	 * throw, so the first write error is kept and thrown by {@link #commit()}.
+	 */
+	static class Writer implements ReportRowHandler, Closeable {
+		private static final int BUFFER_BYTES = 64 * 1024;
+		private File archiveFile;
+		private File tempFile;
+		private FileChannel channel;
+		private ByteBuffer buffer;
+		private int numValues;
+		private int numRows = 0;
+		private IOException error;
+
+		Writer(File archiveFile, int numValues) throws IOException {
+			this.archiveFile = archiveFile;
+			this.numValues = numValues;
+			this.tempFile = File.createTempFile(archiveFile.getName(), ".part",
+					archiveFile.getParentFile());
+			this.channel = FileChannel.open(tempFile.toPath(),
+					StandardOpenOption.WRITE);
+			this.buffer = ByteBuffer.allocate(
+					Math.max(BUFFER_BYTES,
+							ArchivedReport.getRecordBytes(numValues)))
+					.order(BYTE_ORDER);
+			// Row count is filled in by commit
+			buffer.putInt(ArchivedReport.MAGIC).putInt(ArchivedReport.VERSION)
+					.putInt(numValues).putInt(0);
+		}
+
+		@Override
+		public void handleRow(long time, ReportRow row) {
+			if (error != null) {
+				return;
+			}
+			if (time % (60 * 1000L) != 0) {
+				throw new IllegalArgumentException("Time " + time
+						+ " is not on a whole minute");
+			}
+			try {
+				if (buffer.remaining() < ArchivedReport
+						.getRecordBytes(numValues)) {
+					this.flush();
+				}
+				buffer.putInt((int) (time / (60 * 1000L)));
+				for (int column = 0; column < numValues; column++) {
+					buffer.putDouble(row.getValue(column));
+				}
+				numRows++;
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		/**
+		 * Finishes the file and moves it over any previous archive of the
+		 * report.
+		 *
+		 * @return The archive file.
+		 */
+		File commit() throws IOException {
+			if (error != null) {
+				throw error;
+			}
+			this.flush();
+			ByteBuffer count = ByteBuffer.allocate(4).order(BYTE_ORDER);
+			count.putInt(numRows).flip();
+			channel.write(count, 12);
+			channel.close();
+			Files.move(tempFile.toPath(), archiveFile.toPath(),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			return archiveFile;
+		}
+
+		/**
+		 * Discards the temporary file unless it has been committed.
+		 */
+		@Override
+		public void close() throws IOException {
+			try {
+				channel.close();
+			} finally {
+				tempFile.delete();
+			}
+		}
+
+		private void flush() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			buffer.clear();
+		}
+	}
+}
@@ -0,0 +1,246 @@
+package name.reidmiller.sppreports.client;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+/**
+ * Persistent on-disk cache of SPP report files keyed by report URL. Reports for
+ * closed periods are served from disk without touching the network. Reports
+ * for open periods are revalidated with the ETag and Last-Modified values of
+ * the cached copy, so the file is only downloaded again when SPP has actually
+ * published new rows.
+ */
+public class ReportCache {
+	public static final DateTimeZone US_CENTRAL_ZONE = DateTimeZone.forID("America/Chicago");
+	private static final String DATA_SUFFIX = ".csv";
+	private static final String META_SUFFIX = ".properties";
+	private static final String META_URL = "url";
+	private static final String META_ETAG = "etag";
+	private static final String META_LAST_MODIFIED = "lastModified";
+	private static final String META_CLOSED = "closed";
+	private Logger logger = LogManager.getLogger(this.getClass());
+	private File cacheDirectory;
+	private ReportTransport reportTransport;
+
+	/**
+	 * Same as {@link #ReportCache(File, ReportTransport)} with an
+	 * {@link HttpReportTransport} fetching reports from spp.org.
+	 */
+	public ReportCache(File cacheDirectory) {
+		this(cacheDirectory, new HttpReportTransport());
+	}
+
+	/**
+	 * @param cacheDirectory
+	 *            Directory the cached reports and their metadata are written
+	 *            to. Created if it does not exist.
+	 * @param reportTransport
+	 *            Transport reports missing from the cache are fetched with.
+	 */
+	public ReportCache(File cacheDirectory, ReportTransport reportTransport) {
+		this.cacheDirectory = cacheDirectory;
+		this.reportTransport = reportTransport;
+		if (!cacheDirectory.isDirectory() && !cacheDirectory.mkdirs()) {
+			throw new IllegalArgumentException("Could not create cache directory "
+					+ cacheDirectory);
+		}
+	}
+
+	/**
+	 * SPP keeps appending to a yearly report until the year is over. A day of
+	 * grace is allowed for the final rows of December 31st to be published.
+	 *
+	 * @param year
+	 *            Year of report.
+	 * @return True if the report for the year will no longer change.
+	 */
+	public static boolean isClosedYear(int year) {
+		DateTime firstSafeDay = new DateTime(year + 1, 1, 2, 0, 0, 0, 0,
+				US_CENTRAL_ZONE);
+		return DateTime.now(US_CENTRAL_ZONE).isAfter(firstSafeDay);
+	}
+
+	/**
+	 * Opens the report at urlString, going to the network only when necessary.
+	 *
+	 * @param urlString
+	 *            Report URL, which is also the cache key.
+	 * @param closedPeriod
+	 *            True if the report will no longer change (e.g. a past year).
+	 *            A cached copy downloaded after the period closed is then
+	 *            returned without any network call.
+	 * @return Stream over the cached copy of the report.
+	 * @throws IOException
+	 *             If the report could not be downloaded and there is no cached
+	 *             copy to fall back to.
+	 */
+	public InputStream openStream(String urlString, boolean closedPeriod)
+			throws IOException {
+		File dataFile = this.getCacheFile(urlString);
+		String name = dataFile.getName();
+		File metaFile = new File(cacheDirectory, name.substring(0,
+				name.length() - DATA_SUFFIX.length())
+				+ META_SUFFIX);
+		Properties meta = this.readMeta(metaFile);
+
+		if (dataFile.isFile()
+				&& Boolean.parseBoolean(meta.getProperty(META_CLOSED))) {
+			logger.debug("Cache hit for closed report " + urlString);
+			return new FileInputStream(dataFile);
+		}
+
+		try {
+			this.refresh(urlString, dataFile, metaFile, meta, closedPeriod);
+		} catch (IOException e) {
+			if (!dataFile.isFile()) {
+				throw e;
+			}
+			logger.warn("Could not revalidate " + urlString
+					+ ", serving cached copy: " + e.getMessage());
+		}
+		return new FileInputStream(dataFile);
+	}
+
+	/**
+	 * @return Transport reports missing from the cache are fetched with.
+	 */
+	public ReportTransport getReportTransport() {
+		return reportTransport;
+	}
+
+	/**
+	 * @param urlString
+	 *            Report URL.
+	 * @return File the report at urlString is (or would be) cached in.
+	 */
+	public File getCacheFile(String urlString) {
+		String key = urlString.replaceFirst("^[A-Za-z]+://", "").replaceAll(
+				"[^A-Za-z0-9._-]", "_");
+		if (!key.endsWith(DATA_SUFFIX)) {
+			key = key + DATA_SUFFIX;
+		}
+		return new File(cacheDirectory, key);
+	}
+
+	/**
+	 * Downloads the report into the cache unless the server reports that the
+	 * cached copy is still current.
+	 */
+	private void refresh(String urlString, File dataFile, File metaFile,
+			Properties meta, boolean closedPeriod) throws IOException {
+		ReportRequest request = new ReportRequest(urlString);
+		if (dataFile.isFile()) {
+			String etag = meta.getProperty(META_ETAG);
+			String lastModified = meta.getProperty(META_LAST_MODIFIED);
+			if (etag != null) {
+				request.setHeader("If-None-Match", etag);
+			}
+			if (lastModified != null) {
+				try {
+					request.setIfModifiedSince(Long.parseLong(lastModified));
+				} catch (NumberFormatException e) {
+					// Treat as missing, the report is then downloaded again
+					logger.warn("Ignoring unreadable " + META_LAST_MODIFIED
+							+ " \"" + lastModified + "\" in " + metaFile);
+				}
+			}
+		}
+
+		ReportResponse response = reportTransport.fetch(request);
+		if (response.getStatusCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+			logger.debug("Cached copy of " + urlString + " not modified");
+			response.close();
+			if (closedPeriod) {
+				meta.setProperty(META_CLOSED, Boolean.toString(true));
+				this.writeMeta(metaFile, meta);
+			}
+			return;
+		}
+
+		logger.debug("Downloading " + urlString + " into cache");
+		File tempFile = File.createTempFile(dataFile.getName(), ".part",
+				cacheDirectory);
+		try {
+			InputStream in = response.getBodyIfOk(urlString);
+			try {
+				OutputStream out = new FileOutputStream(tempFile);
+				try {
+					byte[] buf = new byte[64 * 1024];
+					for (int n = in.read(buf); n != -1; n = in.read(buf)) {
+						out.write(buf, 0, n);
+					}
+				} finally {
+					out.close();
+				}
+			} finally {
+				in.close();
+			}
+			Files.move(tempFile.toPath(), dataFile.toPath(),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			tempFile.delete();
+		}
+
+		Properties newMeta = new Properties();
+		newMeta.setProperty(META_URL, urlString);
+		newMeta.setProperty(META_CLOSED, Boolean.toString(closedPeriod));
+		String etag = response.getHeader("ETag");
+		if (etag != null) {
+			newMeta.setProperty(META_ETAG, etag);
+		}
+		if (response.getLastModified() > 0) {
+			newMeta.setProperty(META_LAST_MODIFIED,
+					Long.toString(response.getLastModified()));
+		}
+		this.writeMeta(metaFile, newMeta);
+	}
+
+	private Properties readMeta(File metaFile) throws IOException {
+		Properties meta = new Properties();
+		if (metaFile.isFile()) {
+			InputStream in = new FileInputStream(metaFile);
+			try {
+				meta.load(in);
+			} finally {
+				in.close();
+			}
+		}
+		return meta;
+	}
+
+	/**
+	 * Writes meta to a temporary file which then replaces metaFile, so a
+	 * reader never sees a partly written file.
+	 */
+	private void writeMeta(File metaFile, Properties meta) throws IOException {
+		File tempFile = File.createTempFile(metaFile.getName(), ".part",
+				cacheDirectory);
+		try {
+			OutputStream out = new FileOutputStream(tempFile);
+			try {
+				meta.store(out, null);
+			} finally {
+				out.close();
+			}
+			Files.move(tempFile.toPath(), metaFile.toPath(),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			tempFile.delete();
+		}
+	}
+}
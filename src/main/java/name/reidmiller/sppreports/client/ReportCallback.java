@@ -0,0 +1,24 @@
+package name.reidmiller.sppreports.client;
+
+/**
+ * Notified once a {@link ReportFuture} completes.
+ *
+ * @param <V>
+ *            Type of result.
+ */
+public interface ReportCallback<V> {
+	/**
+	 * @param result
+	 *            Result of the future.
+	 */
+	void onSuccess(V result);
+
+	/**
+	 * @param t
+	 *            Cause of the failure, such as the IOException reading a
+	 *            report, or a
+	 *            {@link java.util.concurrent.CancellationException} if the
+	 *            future was cancelled or its deadline passed.
+	 */
+	void onFailure(Throwable t);
+}
@@ -0,0 +1,171 @@
+package name.reidmiller.sppreports.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * {@link Future} of a report request made through an
+ * {@link AsyncReportClient}, which notifies callbacks when it completes and can
+ * be given a deadline. Cancelling the future interrupts the thread reading the
+ * report, which stops parsing at the next row.
+ *
+ * @param <V>
+ *            Type of result.
+ */
+public class ReportFuture<V> extends FutureTask<V> {
+	private static ScheduledThreadPoolExecutor deadlineTimer;
+	private Logger logger = LogManager.getLogger(this.getClass());
+	private List<ReportCallback<? super V>> callbacks = new ArrayList<ReportCallback<? super V>>();
+	private ScheduledFuture<?> deadline;
+
+	/**
+	 * @param callable
+	 *            Work run when the future is executed.
+	 */
+	public ReportFuture(Callable<V> callable) {
+		super(callable);
+	}
+
+	/**
+	 * Future completed by {@link #complete(Object)} or
+	 * {@link #fail(Throwable)} rather than by being run, such as a result
+	 * assembled from other futures.
+	 */
+	ReportFuture() {
+		super(new Callable<V>() {
+			@Override
+			public V call() {
+				throw new IllegalStateException(
+						"Future is completed by complete or fail");
+			}
+		});
+	}
+
+	/**
+	 * Calls callback once the future completes, right away on the calling
+	 * thread if it already has. Otherwise it is called on the thread which
+	 * completes the future, so it should not block.
+	 *
+	 * @param callback
+	 *            Notified of the result or failure.
+	 * @return This future.
+	 */
+	public ReportFuture<V> addCallback(ReportCallback<? super V> callback) {
+		synchronized (callbacks) {
+			if (!this.isDone()) {
+				callbacks.add(callback);
+				return this;
+			}
+		}
+		this.notify(callback);
+		return this;
+	}
+
+	/**
+	 * Cancels the future, interrupting the request, if it has not completed
+	 * within timeout.
+	 *
+	 * @return This future.
+	 */
+	public ReportFuture<V> cancelAfter(long timeout, TimeUnit unit) {
+		ScheduledFuture<?> scheduled = getDeadlineTimer().schedule(
+				new Runnable() {
+					@Override
+					public void run() {
+						cancel(true);
+					}
+				}, timeout, unit);
+		synchronized (callbacks) {
+			if (deadline != null) {
+				deadline.cancel(false);
+			}
+			deadline = scheduled;
+			if (this.isDone()) {
+				scheduled.cancel(false);
+			}
+		}
+		return this;
+	}
+
+	void complete(V result) {
+		this.set(result);
+	}
+
+	void fail(Throwable t) {
+		this.setException(t);
+	}
+
+	@Override
+	protected void done() {
+		List<ReportCallback<? super V>> toNotify;
+		synchronized (callbacks) {
+			if (deadline != null) {
+				deadline.cancel(false);
+			}
+			toNotify = new ArrayList<ReportCallback<? super V>>(callbacks);
+			callbacks.clear();
+		}
+		for (ReportCallback<? super V> callback : toNotify) {
+			this.notify(callback);
+		}
+	}
+
+	private void notify(ReportCallback<? super V> callback) {
+		V result;
+		try {
+			result = this.get();
+		} catch (CancellationException e) {
+			this.notifyFailure(callback, e);
+			return;
+		} catch (ExecutionException e) {
+			this.notifyFailure(callback, e.getCause());
+			return;
+		} catch (InterruptedException e) {
+			// Not possible once done, but keep the interrupt if it happens
+			Thread.currentThread().interrupt();
+			this.notifyFailure(callback, e);
+			return;
+		}
+		try {
+			callback.onSuccess(result);
+		} catch (RuntimeException e) {
+			logger.error("Callback failed: " + e.getMessage());
+		}
+	}
+
+	private void notifyFailure(ReportCallback<? super V> callback, Throwable t) {
+		try {
+			callback.onFailure(t);
+		} catch (RuntimeException e) {
+			logger.error("Callback failed: " + e.getMessage());
+		}
+	}
+
+	private static synchronized ScheduledThreadPoolExecutor getDeadlineTimer() {
+		if (deadlineTimer == null) {
+			deadlineTimer = new ScheduledThreadPoolExecutor(1,
+					new ThreadFactory() {
+						@Override
+						public Thread newThread(Runnable r) {
+							Thread thread = new Thread(r, "report-deadlines");
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+			deadlineTimer.setRemoveOnCancelPolicy(true);
+		}
+		return deadlineTimer;
+	}
+}
@@ -0,0 +1,90 @@
+package name.reidmiller.sppreports.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Iterator over the records of one or more SPP reports which parses each row
+ * only when it is asked for, so records reach the caller while the report is
+ * still being read and only one row is held in memory at a time. The
+ * underlying report is closed once the iterator is exhausted. Callers that stop
+ * early should call {@link #close()} themselves.
+ *
+ * @param <T>
+ *            Type of record the report rows are parsed into.
+ */
+public abstract class ReportIterator<T> implements Iterator<T>, Closeable {
+	private Logger logger = LogManager.getLogger(this.getClass());
+	private T next;
+	private boolean done = false;
+
+	/**
+	 * @return Next record of the report, or null once the report is
+	 *         exhausted.
+	 * @throws IOException
+	 *             If the report could not be read, which ends the iteration.
+	 */
+	protected abstract T readNext() throws IOException;
+
+	@Override
+	public boolean hasNext() {
+		if (next == null && !done) {
+			try {
+				next = this.readNext();
+			} catch (IOException e) {
+				logger.error(e.getMessage());
+				next = null;
+			}
+			if (next == null) {
+				done = true;
+				try {
+					this.close();
+				} catch (IOException e) {
+					logger.warn("Could not close report: " + e.getMessage());
+				}
+			}
+		}
+		return next != null;
+	}
+
+	@Override
+	public T next() {
+		if (!this.hasNext()) {
+			throw new NoSuchElementException();
+		}
+		T record = next;
+		next = null;
+		return record;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException(
+				"Records can not be removed from a report");
+	}
+
+	/**
+	 * @return Iterator without any records, used when a report could not be
+	 *         opened.
+	 */
+	public static <T> ReportIterator<T> emptyIterator() {
+		return new ReportIterator<T>() {
+			@Override
+			protected T readNext() {
+				return null;
+			}
+		};
+	}
+
+	/**
+	 * Releases the report being read. Does nothing by default.
+	 */
+	@Override
+	public void close() throws IOException {
+	}
+}
@@ -0,0 +1,21 @@
+package name.reidmiller.sppreports.client;
+
+import java.util.List;
+
+/**
+ * Receives the records a {@link LiveReportFeed} finds newly published.
+ *
+ * @param <T>
+ *            Type of record the report rows are parsed into.
+ */
+public interface ReportListener<T> {
+	/**
+	 * Called on a publisher thread, never concurrently for the same listener,
+	 * with batches in the order they were published.
+	 *
+	 * @param records
+	 *            Records published since the previous batch, in chronological
+	 *            order. Shared with the other listeners, so read-only.
+	 */
+	void handleRecords(List<T> records);
+}
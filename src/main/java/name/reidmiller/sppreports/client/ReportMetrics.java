@@ -0,0 +1,108 @@
+package name.reidmiller.sppreports.client;
+
+import name.reidmiller.sppreports.model.SamplingFrequency;
+
+/**
+ * Receives measurements of the work an {@link SppReportEngine} does for each
+ * yearly report, so that slow downloads from SPP and parse regressions can be
+ * monitored. Implementations are called from whichever threads the engine is
+ * used on and so must be thread-safe, and should return quickly since they are
+ * called while reports are being read.
+ * <p>
+ * Each method identifies the report by its {@link ReportSchema#getName()},
+ * year and sampling frequency. Engines report to {@link #NONE} unless given
+ * another registry, such as a {@link SimpleReportMetrics}.
+ */
+public interface ReportMetrics {
+	/**
+	 * Registry which discards every measurement. Engines skip taking
+	 * measurements altogether when reporting to it.
+	 */
+	ReportMetrics NONE = new ReportMetrics() {
+		@Override
+		public void recordDownload(String report, int year,
+				SamplingFrequency samplingFrequency, long bytes, long nanos) {
+		}
+
+		@Override
+		public void recordParse(String report, int year,
+				SamplingFrequency samplingFrequency, long rows, long nanos) {
+		}
+
+		@Override
+		public void recordDstCorrections(String report, int year,
+				SamplingFrequency samplingFrequency, int rows) {
+		}
+
+		@Override
+		public void recordCacheHit(String report, int year,
+				SamplingFrequency samplingFrequency) {
+		}
+
+		@Override
+		public void recordCacheMiss(String report, int year,
+				SamplingFrequency samplingFrequency) {
+		}
+
+		@Override
+		public void recordError(String report, int year,
+				SamplingFrequency samplingFrequency, Exception e) {
+		}
+	};
+
+	/**
+	 * Called once a report has been read, in full or up to an error.
+	 *
+	 * @param bytes
+	 *            Number of bytes read from the report, after any
+	 *            decompression.
+	 * @param nanos
+	 *            Time spent opening the report, including any retries,
+	 *            and waiting for those bytes.
+	 */
+	void recordDownload(String report, int year,
+			SamplingFrequency samplingFrequency, long bytes, long nanos);
+
+	/**
+	 * Called once a report has been read, in full or up to an error.
+	 *
+	 * @param rows
+	 *            Number of rows parsed.
+	 * @param nanos
+	 *            Time spent reading the report other than waiting for bytes,
+	 *            including the time taken by the caller to consume the rows
+	 *            when they are streamed.
+	 */
+	void recordParse(String report, int year,
+			SamplingFrequency samplingFrequency, long rows, long nanos);
+
+	/**
+	 * @param rows
+	 *            Number of rows shifted to standard time in a pass over the
+	 *            report, see {@link DstCorrection}.
+	 */
+	void recordDstCorrections(String report, int year,
+			SamplingFrequency samplingFrequency, int rows);
+
+	/**
+	 * Called when a year is found in the {@link ParsedReportCache}.
+	 */
+	void recordCacheHit(String report, int year,
+			SamplingFrequency samplingFrequency);
+
+	/**
+	 * Called when a year has to be parsed into the {@link ParsedReportCache}.
+	 */
+	void recordCacheMiss(String report, int year,
+			SamplingFrequency samplingFrequency);
+
+	/**
+	 * Called when reading a report fails and the error is logged rather than
+	 * thrown to the caller.
+	 *
+	 * @param e
+	 *            The error.
+	 */
+	void recordError(String report, int year,
+			SamplingFrequency samplingFrequency, Exception e);
+}
@@ -0,0 +1,25 @@
+package name.reidmiller.sppreports.client;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Source of the records published to a report since the previous poll, such
+ * as an {@link IncrementalReportClient}. Polled by a {@link LiveReportFeed}.
+ *
+ * @param <T>
+ *            Type of record the report rows are parsed into.
+ */
+public interface ReportPoller<T> {
+	/**
+	 * Rows which can not be parsed are logged and skipped, so one malformed
+	 * row does not hold back the records published after it.
+	 *
+	 * @return Records published since the previous call, in chronological
+	 *         order, or an empty List if nothing new has been published.
+	 * @throws IOException
+	 *             If the report could not be read. No records are consumed,
+	 *             so the next call returns them instead.
+	 */
+	List<T> poll() throws IOException;
+}
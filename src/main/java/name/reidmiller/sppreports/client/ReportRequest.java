@@ -0,0 +1,62 @@
+package name.reidmiller.sppreports.client;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Request for a report sent through a {@link ReportTransport}.
+ */
+public class ReportRequest {
+	private String urlString;
+	private Map<String, String> headers = new LinkedHashMap<String, String>();
+	private long ifModifiedSince = 0;
+
+	/**
+	 * @param urlString
+	 *            URL of the report.
+	 */
+	public ReportRequest(String urlString) {
+		this.urlString = urlString;
+	}
+
+	public String getUrlString() {
+		return urlString;
+	}
+
+	/**
+	 * @return Request headers by name, not including If-Modified-Since.
+	 */
+	public Map<String, String> getHeaders() {
+		return Collections.unmodifiableMap(headers);
+	}
+
+	/**
+	 * @param name
+	 *            Header name, such as "Range" or "If-None-Match".
+	 * @return Value of the header, or null if it has not been set.
+	 */
+	public String getHeader(String name) {
+		for (Map.Entry<String, String> header : headers.entrySet()) {
+			if (header.getKey().equalsIgnoreCase(name)) {
+				return header.getValue();
+			}
+		}
+		return null;
+	}
+
+	public void setHeader(String name, String value) {
+		this.headers.put(name, value);
+	}
+
+	/**
+	 * @return Epoch milliseconds sent as If-Modified-Since, or 0 if none.
+	 */
+	public long getIfModifiedSince() {
+		return ifModifiedSince;
+	}
+
+	public void setIfModifiedSince(long ifModifiedSince) {
+		this.ifModifiedSince = ifModifiedSince;
+	}
+}
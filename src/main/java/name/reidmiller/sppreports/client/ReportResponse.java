@@ -0,0 +1,88 @@
+package name.reidmiller.sppreports.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Response to a {@link ReportRequest}. The body must be closed once read, which
+ * for HTTP returns the connection to the keep-alive pool.
+ */
+public class ReportResponse implements Closeable {
+	private int statusCode;
+	private Map<String, String> headers = new TreeMap<String, String>(
+			String.CASE_INSENSITIVE_ORDER);
+	private long lastModified;
+	private InputStream body;
+
+	/**
+	 * @param statusCode
+	 *            HTTP status code of the response.
+	 * @param headers
+	 *            Response headers by name, matched ignoring case.
+	 * @param lastModified
+	 *            Epoch milliseconds of the Last-Modified header, or 0 if none.
+	 * @param body
+	 *            Content of the response, or null if there is none.
+	 */
+	public ReportResponse(int statusCode, Map<String, String> headers,
+			long lastModified, InputStream body) {
+		this.statusCode = statusCode;
+		this.headers.putAll(headers);
+		this.lastModified = lastModified;
+		this.body = body != null ? body : new ByteArrayInputStream(new byte[0]);
+	}
+
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+	/**
+	 * @param name
+	 *            Header name, matched ignoring case.
+	 * @return Value of the header, or null if the response does not have it.
+	 */
+	public String getHeader(String name) {
+		return headers.get(name);
+	}
+
+	/**
+	 * @return Epoch milliseconds of the Last-Modified header, or 0 if none.
+	 */
+	public long getLastModified() {
+		return lastModified;
+	}
+
+	/**
+	 * @return Content of the response, already decompressed.
+	 */
+	public InputStream getBody() {
+		return body;
+	}
+
+	/**
+	 * @param urlString
+	 *            URL the response is for, to describe a failure.
+	 * @return Content of the response if its status is 200.
+	 * @throws IOException
+	 *             If the status is anything else, in which case the response
+	 *             has been closed.
+	 */
+	public InputStream getBodyIfOk(String urlString) throws IOException {
+		if (statusCode != HttpURLConnection.HTTP_OK) {
+			this.close();
+			throw new IOException("HTTP " + statusCode + " fetching "
+					+ urlString);
+		}
+		return body;
+	}
+
+	@Override
+	public void close() throws IOException {
+		body.close();
+	}
+}
@@ -0,0 +1,256 @@
+package name.reidmiller.sppreports.client;
+
+import java.util.Arrays;
+import java.util.List;
+
+import name.reidmiller.sppreports.model.RollupPeriod;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+/**
+ * Rows of a report aggregated per {@link RollupPeriod}: the count of rows and
+ * the sum, minimum and maximum of every value column for each period, from
+ * which means and energy follow. Built in the same pass that parses the
+ * report, so that aggregate queries do not have to revisit the rows. Periods
+ * without any rows are left out.
+ */
+public class ReportRollup {
+	private static final double MILLIS_PER_HOUR = 60 * 60 * 1000.0;
+	private RollupPeriod period;
+	private List<String> columnNames;
+	private int numValues;
+	private long samplingPeriodMillis;
+	private int size;
+	private long[] starts;
+	private long[] ends;
+	private int[] counts;
+	private double[] sums;
+	private double[] mins;
+	private double[] maxes;
+
+	private ReportRollup(Builder builder) {
+		this.period = builder.period;
+		this.columnNames = builder.columnNames;
+		this.numValues = builder.numValues;
+		this.samplingPeriodMillis = builder.samplingPeriodMillis;
+		this.size = builder.size;
+		this.starts = Arrays.copyOf(builder.starts, size);
+		this.ends = Arrays.copyOf(builder.ends, size);
+		this.counts = Arrays.copyOf(builder.counts, size);
+		this.sums = Arrays.copyOf(builder.sums, size * numValues);
+		this.mins = Arrays.copyOf(builder.mins, size * numValues);
+		this.maxes = Arrays.copyOf(builder.maxes, size * numValues);
+	}
+
+	public RollupPeriod getPeriod() {
+		return period;
+	}
+
+	/**
+	 * @return Header names of the value columns, in report order.
+	 */
+	public List<String> getColumnNames() {
+		return columnNames;
+	}
+
+	/**
+	 * @return Number of periods holding at least one row.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @param index
+	 *            Period of the rollup.
+	 * @return Start of the period in epoch milliseconds, inclusive.
+	 */
+	public long getStart(int index) {
+		this.checkIndex(index);
+		return starts[index];
+	}
+
+	/**
+	 * @param index
+	 *            Period of the rollup.
+	 * @return End of the period in epoch milliseconds, exclusive.
+	 */
+	public long getEnd(int index) {
+		this.checkIndex(index);
+		return ends[index];
+	}
+
+	/**
+	 * @param index
+	 *            Period of the rollup.
+	 * @return Number of rows in the period.
+	 */
+	public int getCount(int index) {
+		this.checkIndex(index);
+		return counts[index];
+	}
+
+	public double getSum(int index, int column) {
+		return sums[this.getOffset(index, column)];
+	}
+
+	public double getMean(int index, int column) {
+		return sums[this.getOffset(index, column)] / counts[index];
+	}
+
+	public double getMin(int index, int column) {
+		return mins[this.getOffset(index, column)];
+	}
+
+	public double getMax(int index, int column) {
+		return maxes[this.getOffset(index, column)];
+	}
+
+	/**
+	 * SPP reports each value as the average MW over its sampling period, so
+	 * the energy of a period is the sum of its values times the length of a
+	 * sampling period in hours.
+	 *
+	 * @param index
+	 *            Period of the rollup.
+	 * @param column
+	 *            Index of the value column, in report order.
+	 * @return Energy of the column over the period in MWh.
+	 */
+	public double getEnergy(int index, int column) {
+		return this.getSum(index, column) * samplingPeriodMillis
+				/ MILLIS_PER_HOUR;
+	}
+
+	/**
+	 * @param time
+	 *            Epoch milliseconds.
+	 * @return Index of the period holding time, or -1 if no period with rows
+	 *         does.
+	 */
+	public int indexOf(long time) {
+		int index = Arrays.binarySearch(starts, 0, size, time);
+		if (index >= 0) {
+			return index;
+		}
+		index = -(index + 1) - 1;
+		return index >= 0 && time < ends[index] ? index : -1;
+	}
+
+	private int getOffset(int index, int column) {
+		this.checkIndex(index);
+		if (column < 0 || column >= numValues) {
+			throw new IndexOutOfBoundsException("Column " + column
+					+ " out of bounds for " + numValues + " values");
+		}
+		return index * numValues + column;
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index " + index
+					+ " out of bounds for rollup of size " + size);
+		}
+	}
+
+	/**
+	 * Aggregates the rows it is passed, which must be in chronological order,
+	 * into a {@link ReportRollup}. Period boundaries are only worked out when
+	 * a row falls outside the current period, so the cost per row is a
+	 * comparison and an update of each column.
+	 */
+	static class Builder implements ReportRowHandler {
+		private static final int DEFAULT_CAPACITY = 16;
+		private RollupPeriod period;
+		private DateTimeZone zone;
+		private List<String> columnNames;
+		private int numValues;
+		private long samplingPeriodMillis;
+		private int size = 0;
+		private long[] starts = new long[DEFAULT_CAPACITY];
+		private long[] ends = new long[DEFAULT_CAPACITY];
+		private int[] counts = new int[DEFAULT_CAPACITY];
+		private double[] sums;
+		private double[] mins;
+		private double[] maxes;
+		private long currentStart = Long.MAX_VALUE;
+		private long currentEnd = Long.MIN_VALUE;
+
+		/**
+		 * @param period
+		 *            Period rows are rolled up into.
+		 * @param zone
+		 *            Zone period boundaries are in.
+		 * @param columnNames
+		 *            Header names of the value columns.
+		 * @param samplingPeriodMillis
+		 *            Time each row covers.
+		 */
+		Builder(RollupPeriod period, DateTimeZone zone,
+				List<String> columnNames, long samplingPeriodMillis) {
+			this.period = period;
+			this.zone = zone;
+			this.columnNames = columnNames;
+			this.numValues = columnNames.size();
+			this.samplingPeriodMillis = samplingPeriodMillis;
+			this.sums = new double[DEFAULT_CAPACITY * numValues];
+			this.mins = new double[DEFAULT_CAPACITY * numValues];
+			this.maxes = new double[DEFAULT_CAPACITY * numValues];
+		}
+
+		@Override
+		public void handleRow(long time, ReportRow row) {
+			if (time < currentStart || time >= currentEnd) {
+				this.startPeriod(time);
+			}
+			int last = size - 1;
+			counts[last]++;
+			int offset = last * numValues;
+			for (int column = 0; column < numValues; column++) {
+				double value = row.getValue(column);
+				sums[offset + column] += value;
+				if (value < mins[offset + column]) {
+					mins[offset + column] = value;
+				}
+				if (value > maxes[offset + column]) {
+					maxes[offset + column] = value;
+				}
+			}
+		}
+
+		/**
+		 * @return ReportRollup of every row passed so far.
+		 */
+		ReportRollup build() {
+			return new ReportRollup(this);
+		}
+
+		private void startPeriod(long time) {
+			DateTime start = period.getStart(new DateTime(time, zone));
+			currentStart = start.getMillis();
+			currentEnd = period.getNext(start).getMillis();
+			if (size == starts.length) {
+				int capacity = size + (size >> 1);
+				starts = Arrays.copyOf(starts, capacity);
+				ends = Arrays.copyOf(ends, capacity);
+				counts = Arrays.copyOf(counts, capacity);
+				sums = Arrays.copyOf(sums, capacity * numValues);
+				mins = Arrays.copyOf(mins, capacity * numValues);
+				maxes = Arrays.copyOf(maxes, capacity * numValues);
+			}
+			starts[size] = currentStart;
+			ends[size] = currentEnd;
+			int offset = size * numValues;
+			Arrays.fill(mins, offset, offset + numValues,
+					Double.POSITIVE_INFINITY);
+			Arrays.fill(maxes, offset, offset + numValues,
+					Double.NEGATIVE_INFINITY);
+			size++;
+		}
+	}
+}
@@ -0,0 +1,14 @@
+package name.reidmiller.sppreports.client;
+
+/**
+ * Numeric columns of the report row currently being read.
+ */
+public interface ReportRow {
+	/**
+	 * @param column
+	 *            Numeric column of the row, where 0 is the column directly
+	 *            after the timestamp.
+	 * @return Value of the column.
+	 */
+	double getValue(int column);
+}
@@ -0,0 +1,16 @@
+package name.reidmiller.sppreports.client;
+
+/**
+ * Receives report rows as primitives, for callers which fill their own
+ * structures rather than creating a record per row.
+ */
+public interface ReportRowHandler {
+	/**
+	 * @param time
+	 *            Timestamp of the row in epoch milliseconds, daylight savings
+	 *            corrected.
+	 * @param row
+	 *            Values of the row, only valid for the duration of the call.
+	 */
+	void handleRow(long time, ReportRow row);
+}
@@ -0,0 +1,107 @@
+package name.reidmiller.sppreports.client;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import name.reidmiller.sppreports.model.SamplingFrequency;
+
+import org.joda.time.DateTimeZone;
+
+/**
+ * Describes one kind of SPP report to a {@link SppReportEngine}: where the
+ * yearly reports are published, which numeric columns follow the timestamp,
+ * and how a row becomes a record. Supporting another SPP report only takes a
+ * new schema.
+ *
+ * @param <T>
+ *            Type of record the report rows are parsed into.
+ */
+public abstract class ReportSchema<T> {
+	public static final String YEAR_PLACEHOLDER = "{year}";
+	public static final String FREQUENCY_PLACEHOLDER = "{frequency}";
+	private String name;
+	private String urlTemplate;
+	private DateTimeZone zone;
+	private List<String> columnNames;
+
+	/**
+	 * @param name
+	 *            Name of the report, used in log messages.
+	 * @param urlTemplate
+	 *            URL of the yearly report with {@value #YEAR_PLACEHOLDER} and
+	 *            {@value #FREQUENCY_PLACEHOLDER} in place of the year and
+	 *            {@link SamplingFrequency#getUrlPart()}.
+	 * @param zone
+	 *            Time zone the report's timestamps are in.
+	 * @param columnNames
+	 *            Header names of the numeric columns after the timestamp, in
+	 *            report order. Column i of a {@link ReportRow} is the column
+	 *            named by columnNames[i].
+	 */
+	protected ReportSchema(String name, String urlTemplate, DateTimeZone zone,
+			String... columnNames) {
+		this.name = name;
+		this.urlTemplate = urlTemplate;
+		this.zone = zone;
+		this.columnNames = Collections.unmodifiableList(Arrays
+				.asList(columnNames.clone()));
+	}
+
+	/**
+	 * Maps a row of the report onto a record.
+	 *
+	 * @param date
+	 *            Timestamp of the row, daylight savings corrected.
+	 * @param row
+	 *            Values of the row.
+	 * @return Record holding the row's values.
+	 */
+	public abstract T createRecord(Date date, ReportRow row);
+
+	/**
+	 * @param record
+	 *            Record created by {@link #createRecord(Date, ReportRow)}.
+	 * @return Date of the record.
+	 */
+	public abstract Date getDate(T record);
+
+	/**
+	 * @param year
+	 *            Year of report.
+	 * @param samplingFrequency
+	 *            Five-minute or hourly report.
+	 * @return URL of the report, from the schema's URL template.
+	 */
+	public String getUrlString(int year, SamplingFrequency samplingFrequency) {
+		return urlTemplate.replace(YEAR_PLACEHOLDER, Integer.toString(year))
+				.replace(FREQUENCY_PLACEHOLDER, samplingFrequency.getUrlPart());
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getUrlTemplate() {
+		return urlTemplate;
+	}
+
+	public DateTimeZone getZone() {
+		return zone;
+	}
+
+	/**
+	 * @return Header names of the numeric columns after the timestamp.
+	 */
+	public List<String> getColumnNames() {
+		return columnNames;
+	}
+
+	/**
+	 * @return Number of numeric columns after the timestamp.
+	 */
+	public int getNumValues() {
+		return columnNames.size();
+	}
+}
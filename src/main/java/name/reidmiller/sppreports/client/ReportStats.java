@@ -0,0 +1,81 @@
+package name.reidmiller.sppreports.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Running totals kept by {@link SimpleReportMetrics} for one report, year and
+ * sampling frequency. Each total is updated atomically, though a set of
+ * getters called together may straddle an update.
+ */
+public class ReportStats {
+	final AtomicLong downloads = new AtomicLong();
+	final AtomicLong downloadBytes = new AtomicLong();
+	final AtomicLong downloadNanos = new AtomicLong();
+	final AtomicLong parses = new AtomicLong();
+	final AtomicLong rowsParsed = new AtomicLong();
+	final AtomicLong parseNanos = new AtomicLong();
+	final AtomicLong dstCorrections = new AtomicLong();
+	final AtomicLong cacheHits = new AtomicLong();
+	final AtomicLong cacheMisses = new AtomicLong();
+	final AtomicLong errors = new AtomicLong();
+
+	/**
+	 * @return Number of times the report was read.
+	 */
+	public long getDownloads() {
+		return downloads.get();
+	}
+
+	public long getDownloadBytes() {
+		return downloadBytes.get();
+	}
+
+	public long getDownloadNanos() {
+		return downloadNanos.get();
+	}
+
+	/**
+	 * @return Number of passes over the report, which matches
+	 *         {@link #getDownloads()}.
+	 */
+	public long getParses() {
+		return parses.get();
+	}
+
+	public long getRowsParsed() {
+		return rowsParsed.get();
+	}
+
+	public long getParseNanos() {
+		return parseNanos.get();
+	}
+
+	public long getDstCorrections() {
+		return dstCorrections.get();
+	}
+
+	public long getCacheHits() {
+		return cacheHits.get();
+	}
+
+	public long getCacheMisses() {
+		return cacheMisses.get();
+	}
+
+	public long getErrors() {
+		return errors.get();
+	}
+
+	@Override
+	public String toString() {
+		return "{downloads: " + this.getDownloads() + ", downloadBytes: "
+				+ this.getDownloadBytes() + ", downloadNanos: "
+				+ this.getDownloadNanos() + ", rowsParsed: "
+				+ this.getRowsParsed() + ", parseNanos: "
+				+ this.getParseNanos() + ", dstCorrections: "
+				+ this.getDstCorrections() + ", cacheHits: "
+				+ this.getCacheHits() + ", cacheMisses: "
+				+ this.getCacheMisses() + ", errors: " + this.getErrors()
+				+ "}";
+	}
+}
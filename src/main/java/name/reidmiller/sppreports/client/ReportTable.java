@@ -0,0 +1,142 @@
+package name.reidmiller.sppreports.client;
+
+/**
+ * Rows of a year's report held in a form that can be read by index, such as
+ * an {@link ArchivedReport} mapped from disk or a {@link ParsedReport} held in
+ * memory. Rows are in chronological order, so the rows of a date range are
+ * found by binary search.
+ */
+public abstract class ReportTable {
+	/**
+	 * @return Number of rows in the table.
+	 */
+	public abstract int size();
+
+	/**
+	 * @return Number of value columns of every row.
+	 */
+	public abstract int getNumValues();
+
+	/**
+	 * @param index
+	 *            Row of the table.
+	 * @return Timestamp of the row in epoch milliseconds.
+	 */
+	public abstract long getTime(int index);
+
+	/**
+	 * @param index
+	 *            Row of the table.
+	 * @param column
+	 *            Index of the value column, in report order.
+	 * @return Value of the column in the row.
+	 */
+	public abstract double getValue(int index, int column);
+
+	public boolean isEmpty() {
+		return this.size() == 0;
+	}
+
+	/**
+	 * @param index
+	 *            Row of the table.
+	 * @return {@link ReportRow} reading the values of the row from the table.
+	 */
+	public ReportRow getRow(int index) {
+		this.checkIndex(index);
+		Cursor cursor = new Cursor();
+		cursor.index = index;
+		return cursor;
+	}
+
+	/**
+	 * Finds a row by binary search over the timestamps.
+	 *
+	 * @param time
+	 *            Epoch milliseconds.
+	 * @return Index of the first row at or after time, or {@link #size()} if
+	 *         there is none.
+	 */
+	public int getStartIndex(long time) {
+		int low = 0;
+		int high = this.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (this.getTime(mid) < time) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * @param time
+	 *            Epoch milliseconds.
+	 * @return Index after the last row at or before time, or 0 if there is
+	 *         none.
+	 */
+	public int getEndIndex(long time) {
+		int low = 0;
+		int high = this.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (this.getTime(mid) <= time) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Passes every row between startMillis and endMillis, inclusive, to
+	 * handler. A single {@link ReportRow} is reused for every row, so handler
+	 * must not hold on to it.
+	 *
+	 * @param startMillis
+	 *            Lower bound of rows passed, in epoch milliseconds.
+	 * @param endMillis
+	 *            Upper bound of rows passed, in epoch milliseconds.
+	 * @param handler
+	 *            Receives each row in range.
+	 */
+	public void scan(long startMillis, long endMillis, ReportRowHandler handler) {
+		Cursor cursor = new Cursor();
+		int endIndex = this.getEndIndex(endMillis);
+		for (int i = this.getStartIndex(startMillis); i < endIndex; i++) {
+			cursor.index = i;
+			handler.handleRow(this.getTime(i), cursor);
+		}
+	}
+
+	protected void checkIndex(int index) {
+		if (index < 0 || index >= this.size()) {
+			throw new IndexOutOfBoundsException("Index " + index
+					+ " out of bounds for table of size " + this.size());
+		}
+	}
+
+	protected void checkColumn(int column) {
+		if (column < 0 || column >= this.getNumValues()) {
+			throw new IndexOutOfBoundsException("Column " + column
+					+ " out of bounds for " + this.getNumValues() + " values");
+		}
+	}
+
+	/**
+	 * Row of the table, moved from row to row by
+	 * {@link ReportTable#scan(long, long, ReportRowHandler)} rather than
+	 * created per row.
+	 */
+	private class Cursor implements ReportRow {
+		private int index;
+
+		@Override
+		public double getValue(int column) {
+			return ReportTable.this.getValue(index, column);
+		}
+	}
+}
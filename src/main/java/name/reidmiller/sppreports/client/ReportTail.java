@@ -0,0 +1,219 @@
+package name.reidmiller.sppreports.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.Arrays;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Follows a report which only ever grows by appending rows, such as the
+ * current year's five-minute report. The byte offset of the last complete line
+ * read is remembered, and each fetch asks the server for only the bytes after
+ * it using an HTTP Range request. Callers which may fail to process the bytes
+ * fetched use {@link #peekAppended()} and {@link #commit()}, so that the
+ * offset only moves past bytes which have been dealt with.
+ */
+public class ReportTail {
+	private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+	private Logger logger = LogManager.getLogger(this.getClass());
+	private String urlString;
+	private ReportTransport reportTransport;
+	private long offset = 0;
+	private long pendingOffset = 0;
+	private boolean fromStart = true;
+
+	/**
+	 * Same as {@link #ReportTail(String, ReportTransport)} with an
+	 * {@link HttpReportTransport}.
+	 */
+	public ReportTail(String urlString) {
+		this(urlString, new HttpReportTransport());
+	}
+
+	/**
+	 * @param urlString
+	 *            URL of the report to follow.
+	 * @param reportTransport
+	 *            Transport the report is fetched with. Byte offsets are into
+	 *            the uncompressed report, so requests are sent with
+	 *            "Accept-Encoding: identity".
+	 */
+	public ReportTail(String urlString, ReportTransport reportTransport) {
+		this.urlString = urlString;
+		this.reportTransport = reportTransport;
+	}
+
+	/**
+	 * Fetches the complete lines appended to the report since the last call. A
+	 * trailing line without a line break is left for the next call, since SPP
+	 * may still be writing it. If the report turns out to be shorter than the
+	 * offset already read, it has been replaced and is read again from the
+	 * start, which {@link #isFromStart()} reports.
+	 *
+	 * @return Bytes of the complete lines appended since the last call, empty
+	 *         if there are none.
+	 * @throws IOException
+	 *             If the report could not be fetched. The offset is left
+	 *             unchanged so the next call retries the same bytes.
+	 */
+	public synchronized byte[] fetchAppended() throws IOException {
+		byte[] appended = this.peekAppended();
+		this.commit();
+		return appended;
+	}
+
+	/**
+	 * Same as {@link #fetchAppended()}, but the offset only moves past the
+	 * bytes returned once {@link #commit()} is called. Until then, the next
+	 * call returns the same bytes again, along with any appended since.
+	 */
+	public synchronized byte[] peekAppended() throws IOException {
+		pendingOffset = offset;
+		ReportRequest request = new ReportRequest(urlString);
+		request.setHeader("Accept-Encoding", "identity");
+		boolean ranged = offset > 0;
+		if (ranged) {
+			request.setHeader("Range", "bytes=" + offset + "-");
+		}
+
+		long start = 0;
+		ReportResponse response = reportTransport.fetch(request);
+		int responseCode = response.getStatusCode();
+		if (responseCode == HTTP_RANGE_NOT_SATISFIABLE) {
+			long length = this.getTotalLength(response
+					.getHeader("Content-Range"));
+			response.close();
+			if (length < 0 || length >= offset) {
+				logger.debug("No new bytes in " + urlString + " after "
+						+ offset);
+				fromStart = false;
+				return new byte[0];
+			}
+			logger.debug(urlString + " shrank to " + length
+					+ " bytes, reading again from the start");
+			offset = 0;
+			return this.peekAppended();
+		} else if (responseCode == HttpURLConnection.HTTP_PARTIAL) {
+			start = this.getFirstBytePosition(response
+					.getHeader("Content-Range"));
+		} else if (ranged && responseCode == HttpURLConnection.HTTP_OK) {
+			logger.debug("Range request for " + urlString
+					+ " ignored, reading whole report");
+		}
+
+		InputStream in = responseCode == HttpURLConnection.HTTP_PARTIAL ? response
+				.getBody() : response.getBodyIfOk(urlString);
+		byte[] body = this.read(in);
+		long skip = offset - start;
+		if (skip < 0) {
+			// Server skipped past bytes never read, start over next time
+			logger.warn("Unexpected range starting at " + start + " from "
+					+ urlString + ", resetting offset");
+			offset = 0;
+			pendingOffset = 0;
+			fromStart = false;
+			return new byte[0];
+		} else if (skip > body.length) {
+			// The report is shorter than what has already been read
+			logger.debug(urlString + " was replaced, reading from the start");
+			skip = 0;
+			start = 0;
+			offset = 0;
+		}
+		fromStart = (start + skip == 0);
+
+		int from = (int) skip;
+		int to = from;
+		for (int i = body.length - 1; i >= from; i--) {
+			if (body[i] == '\n') {
+				to = i + 1;
+				break;
+			}
+		}
+		pendingOffset = start + to;
+		logger.debug("Read " + (to - from) + " new bytes of " + urlString
+				+ " up to offset " + pendingOffset);
+		return Arrays.copyOfRange(body, from, to);
+	}
+
+	/**
+	 * Moves the offset past the bytes last returned by
+	 * {@link #peekAppended()}.
+	 */
+	public synchronized void commit() {
+		offset = pendingOffset;
+	}
+
+	/**
+	 * @return True if the bytes last returned by {@link #fetchAppended()} or
+	 *         {@link #peekAppended()} start at the beginning of the report, header row included.
+	 */
+	public synchronized boolean isFromStart() {
+		return fromStart;
+	}
+
+	/**
+	 * @return Number of bytes of the report consumed, and committed, so far.
+	 */
+	public synchronized long getOffset() {
+		return offset;
+	}
+
+	public String getUrlString() {
+		return urlString;
+	}
+
+	/**
+	 * @param contentRange
+	 *            Content-Range header such as "bytes 100-199/200".
+	 * @return First byte position of the range, or 0 if it can't be parsed.
+	 */
+	private long getFirstBytePosition(String contentRange) {
+		if (contentRange == null) {
+			return 0;
+		}
+		try {
+			int space = contentRange.indexOf(' ');
+			int dash = contentRange.indexOf('-');
+			return Long.parseLong(contentRange.substring(space + 1, dash).trim());
+		} catch (RuntimeException e) {
+			logger.warn("Could not parse Content-Range \"" + contentRange + "\"");
+			return 0;
+		}
+	}
+
+	/**
+	 * @param contentRange
+	 *            Content-Range header such as "bytes &#42;/200".
+	 * @return Complete length of the report, or -1 if it can't be parsed.
+	 */
+	private long getTotalLength(String contentRange) {
+		if (contentRange == null || contentRange.endsWith("/*")) {
+			return -1;
+		}
+		try {
+			return Long.parseLong(contentRange.substring(
+					contentRange.indexOf('/') + 1).trim());
+		} catch (RuntimeException e) {
+			logger.warn("Could not parse Content-Range \"" + contentRange + "\"");
+			return -1;
+		}
+	}
+
+	private byte[] read(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			byte[] buf = new byte[8 * 1024];
+			for (int n = in.read(buf); n != -1; n = in.read(buf)) {
+				out.write(buf, 0, n);
+			}
+		} finally {
+			in.close();
+		}
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,23 @@
+package name.reidmiller.sppreports.client;
+
+import java.io.IOException;
+
+/**
+ * Fetches SPP report files. The clients, {@link ReportCache} and
+ * {@link ReportTail} all go through a transport, so how reports are fetched can
+ * be swapped: {@link HttpReportTransport} downloads from spp.org, while
+ * {@link FileReportTransport} and {@link MemoryReportTransport} serve local
+ * copies.
+ */
+public interface ReportTransport {
+	/**
+	 * @param request
+	 *            URL and request headers of the report.
+	 * @return Response, whose body must be closed by the caller. Status codes
+	 *         other than 200 are returned rather than thrown so that callers
+	 *         can handle 206, 304 and 416 themselves.
+	 * @throws IOException
+	 *             If no response could be obtained.
+	 */
+	ReportResponse fetch(ReportRequest request) throws IOException;
+}
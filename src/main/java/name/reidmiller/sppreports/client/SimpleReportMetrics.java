@@ -0,0 +1,111 @@
+package name.reidmiller.sppreports.client;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import name.reidmiller.sppreports.model.SamplingFrequency;
+
+/**
+ * {@link ReportMetrics} which keeps running totals in memory, one
+ * {@link ReportStats} per report, year and sampling frequency. Useful on its
+ * own for tests and simple health checks, or as the source a monitoring system
+ * is polled from.
+ */
+public class SimpleReportMetrics implements ReportMetrics {
+	private ConcurrentMap<String, ReportStats> stats = new ConcurrentHashMap<String, ReportStats>();
+
+	@Override
+	public void recordDownload(String report, int year,
+			SamplingFrequency samplingFrequency, long bytes, long nanos) {
+		ReportStats reportStats = this.getOrCreate(report, year,
+				samplingFrequency);
+		reportStats.downloads.incrementAndGet();
+		reportStats.downloadBytes.addAndGet(bytes);
+		reportStats.downloadNanos.addAndGet(nanos);
+	}
+
+	@Override
+	public void recordParse(String report, int year,
+			SamplingFrequency samplingFrequency, long rows, long nanos) {
+		ReportStats reportStats = this.getOrCreate(report, year,
+				samplingFrequency);
+		reportStats.parses.incrementAndGet();
+		reportStats.rowsParsed.addAndGet(rows);
+		reportStats.parseNanos.addAndGet(nanos);
+	}
+
+	@Override
+	public void recordDstCorrections(String report, int year,
+			SamplingFrequency samplingFrequency, int rows) {
+		this.getOrCreate(report, year, samplingFrequency).dstCorrections
+				.addAndGet(rows);
+	}
+
+	@Override
+	public void recordCacheHit(String report, int year,
+			SamplingFrequency samplingFrequency) {
+		this.getOrCreate(report, year, samplingFrequency).cacheHits
+				.incrementAndGet();
+	}
+
+	@Override
+	public void recordCacheMiss(String report, int year,
+			SamplingFrequency samplingFrequency) {
+		this.getOrCreate(report, year, samplingFrequency).cacheMisses
+				.incrementAndGet();
+	}
+
+	@Override
+	public void recordError(String report, int year,
+			SamplingFrequency samplingFrequency, Exception e) {
+		this.getOrCreate(report, year, samplingFrequency).errors
+				.incrementAndGet();
+	}
+
+	/**
+	 * @return Totals for the report, or null if nothing has been recorded for
+	 *         it.
+	 */
+	public ReportStats getStats(String report, int year,
+			SamplingFrequency samplingFrequency) {
+		return stats.get(getKey(report, year, samplingFrequency));
+	}
+
+	/**
+	 * @return Totals of every report recorded so far, keyed by report name,
+	 *         year and sampling frequency as in "GeneratorMix_2014_5Minute".
+	 */
+	public Map<String, ReportStats> getAllStats() {
+		return Collections.unmodifiableMap(new TreeMap<String, ReportStats>(
+				stats));
+	}
+
+	/**
+	 * Discards every total recorded so far.
+	 */
+	public void clear() {
+		stats.clear();
+	}
+
+	private ReportStats getOrCreate(String report, int year,
+			SamplingFrequency samplingFrequency) {
+		String key = getKey(report, year, samplingFrequency);
+		ReportStats reportStats = stats.get(key);
+		if (reportStats == null) {
+			ReportStats created = new ReportStats();
+			reportStats = stats.putIfAbsent(key, created);
+			if (reportStats == null) {
+				reportStats = created;
+			}
+		}
+		return reportStats;
+	}
+
+	private static String getKey(String report, int year,
+			SamplingFrequency samplingFrequency) {
+		return report + "_" + year + "_" + samplingFrequency.getUrlPart();
+	}
+}
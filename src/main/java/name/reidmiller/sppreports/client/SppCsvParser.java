@@ -0,0 +1,336 @@
+package name.reidmiller.sppreports.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.joda.time.DateTimeZone;
+
+/**
+ * Parser for the fixed layout shared by the SPP reports: a header row followed
+ * by rows of a "M/d/yyyy H:mm" timestamp and a fixed number of numeric columns.
+ * Rows are read straight out of a byte buffer and the timestamp and numbers are
+ * decoded in place, so no String, String[] or DateTime is created per row. The
+ * current row is exposed as primitives through {@link #getTime()} and
+ * {@link #getValue(int)}.
+ * <p>
+ * Timestamps resolve to the same instant as a Joda {@code DateTimeFormatter}
+ * for the pattern in the report's zone, so an ambiguous time during the
+ * transition from daylight savings is resolved to daylight savings time. The
+ * conversion to an instant is done by a {@link TimestampDecoder}, which caches
+ * the current day so that only a change of day or a day with a transition
+ * needs the chronology or time zone.
+ * Numbers with at most 15 significant digits and no exponent, which covers SPP
+ * reports, are decoded exactly using a single division. Anything else falls
+ * back to {@link Double#parseDouble(String)}.
+ */
+public class SppCsvParser implements Closeable, ReportRow {
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4,
+			1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+			1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+	private InputStream in;
+	private TimestampDecoder timestampDecoder;
+	private int numValues;
+	private boolean headerSkipped;
+	private byte[] buf = new byte[BUFFER_SIZE];
+	private int pos = 0;
+	private int limit = 0;
+	private boolean eof = false;
+	private int cursor;
+	private long localMillis;
+	private long time;
+	private double[] values;
+
+	/**
+	 * @param in
+	 *            Report to parse, starting with its header row.
+	 * @param numValues
+	 *            Number of numeric columns after the timestamp.
+	 * @param zone
+	 *            Time zone the report's timestamps are in.
+	 */
+	public SppCsvParser(InputStream in, int numValues, DateTimeZone zone) {
+		this(in, numValues, zone, true);
+	}
+
+	/**
+	 * @param in
+	 *            Report to parse.
+	 * @param numValues
+	 *            Number of numeric columns after the timestamp.
+	 * @param zone
+	 *            Time zone the report's timestamps are in.
+	 * @param hasHeader
+	 *            False if in starts part way into the report, after the header
+	 *            row.
+	 */
+	public SppCsvParser(InputStream in, int numValues, DateTimeZone zone,
+			boolean hasHeader) {
+		this.in = in;
+		this.numValues = numValues;
+		this.timestampDecoder = new TimestampDecoder(zone);
+		this.headerSkipped = !hasHeader;
+		this.values = new double[numValues];
+	}
+
+	/**
+	 * Advances to the next row of the report, skipping the header row and
+	 * empty rows.
+	 *
+	 * @return False once the end of the report has been reached.
+	 * @throws IOException
+	 *             If the report could not be read.
+	 * @throws IllegalArgumentException
+	 *             If the row's timestamp can not be parsed.
+	 * @throws NumberFormatException
+	 *             If one of the row's values can not be parsed.
+	 */
+	public boolean next() throws IOException {
+		while (true) {
+			int lineEnd = this.findLineEnd();
+			if (lineEnd < 0) {
+				return false;
+			}
+			int start = pos;
+			int end = lineEnd;
+			pos = lineEnd < limit ? lineEnd + 1 : limit;
+			if (end > start && buf[end - 1] == '\r') {
+				end--;
+			}
+
+			if (!headerSkipped) {
+				headerSkipped = true;
+			} else if (!this.isFirstFieldEmpty(start, end)) {
+				this.parseRow(start, end);
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * @return Timestamp of the current row in epoch milliseconds, before any
+	 *         daylight savings correction.
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * @return Timestamp of the current row as written in the report, in epoch
+	 *         milliseconds of the UTC chronology.
+	 */
+	public long getLocalMillis() {
+		return localMillis;
+	}
+
+	/**
+	 * @param column
+	 *            Numeric column of the current row, where 0 is the column
+	 *            directly after the timestamp.
+	 * @return Value of the column in the current row.
+	 */
+	@Override
+	public double getValue(int column) {
+		return values[column];
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	/**
+	 * @return Index of the '\n' ending the line starting at {@link #pos}, the
+	 *         buffer limit for a final line without one, or -1 at the end of
+	 *         the report. The buffer is refilled as needed and grows if a
+	 *         single line does not fit.
+	 */
+	private int findLineEnd() throws IOException {
+		int scan = pos;
+		while (true) {
+			for (; scan < limit; scan++) {
+				if (buf[scan] == '\n') {
+					return scan;
+				}
+			}
+			if (eof) {
+				return pos < limit ? limit : -1;
+			}
+
+			if (pos > 0) {
+				System.arraycopy(buf, pos, buf, 0, limit - pos);
+				scan -= pos;
+				limit -= pos;
+				pos = 0;
+			}
+			if (limit == buf.length) {
+				buf = Arrays.copyOf(buf, buf.length * 2);
+			}
+			int n = in.read(buf, limit, buf.length - limit);
+			if (n < 0) {
+				eof = true;
+			} else {
+				limit += n;
+			}
+		}
+	}
+
+	private boolean isFirstFieldEmpty(int start, int end) {
+		for (int p = start; p < end; p++) {
+			byte b = buf[p];
+			if (b == ',') {
+				return true;
+			} else if (b != ' ' && b != '"') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void parseRow(int start, int end) {
+		int fieldEnd = this.findFieldEnd(start, end);
+		this.parseTimestamp(start, fieldEnd);
+
+		for (int column = 0; column < numValues; column++) {
+			if (fieldEnd >= end) {
+				throw new NumberFormatException("Expected " + numValues
+						+ " values after timestamp in row \""
+						+ this.toString(start, end) + "\"");
+			}
+			int fieldStart = fieldEnd + 1;
+			fieldEnd = this.findFieldEnd(fieldStart, end);
+			values[column] = this.parseDouble(fieldStart, fieldEnd);
+		}
+	}
+
+	private int findFieldEnd(int from, int end) {
+		int p = from;
+		while (p < end && buf[p] != ',') {
+			p++;
+		}
+		return p;
+	}
+
+	/**
+	 * Decodes "M/d/yyyy H:mm" into {@link #localMillis} and {@link #time}.
+	 */
+	private void parseTimestamp(int from, int to) {
+		cursor = this.skipPadding(from, to);
+		int month = this.parseInt(to, '/');
+		int day = this.parseInt(to, '/');
+		int year = this.parseInt(to, ' ');
+		while (cursor < to && buf[cursor] == ' ') {
+			cursor++;
+		}
+		int hour = this.parseInt(to, ':');
+		int minute = this.parseInt(to, ' ');
+		if (month < 0 || day < 0 || year < 0 || hour < 0 || minute < 0
+				|| this.skipPadding(cursor, to) != to) {
+			throw new IllegalArgumentException("Invalid format: \""
+					+ this.toString(from, to) + "\"");
+		}
+
+		try {
+			time = timestampDecoder.decode(year, month, day, hour, minute);
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException(e.getMessage() + ": \""
+					+ this.toString(from, to) + "\"", e);
+		}
+		localMillis = timestampDecoder.getLocalMillis();
+	}
+
+	/**
+	 * Reads the digits at {@link #cursor}, then steps over the separator which
+	 * follows them, if any.
+	 *
+	 * @return Value of the digits, or -1 if there are none or the separator is
+	 *         not the one expected.
+	 */
+	private int parseInt(int to, char separator) {
+		int value = 0;
+		int start = cursor;
+		while (cursor < to && buf[cursor] >= '0' && buf[cursor] <= '9'
+				&& cursor - start < 9) {
+			value = value * 10 + (buf[cursor] - '0');
+			cursor++;
+		}
+		if (cursor == start) {
+			return -1;
+		}
+		if (cursor < to && buf[cursor] == separator) {
+			cursor++;
+		} else if (cursor < to && buf[cursor] != '"') {
+			return -1;
+		}
+		return value;
+	}
+
+	private int skipPadding(int from, int to) {
+		int p = from;
+		while (p < to && (buf[p] == ' ' || buf[p] == '"')) {
+			p++;
+		}
+		return p;
+	}
+
+	private double parseDouble(int from, int to) {
+		int p = this.skipPadding(from, to);
+		int end = to;
+		while (end > p && (buf[end - 1] == ' ' || buf[end - 1] == '"')) {
+			end--;
+		}
+
+		boolean negative = false;
+		if (p < end && (buf[p] == '-' || buf[p] == '+')) {
+			negative = buf[p] == '-';
+			p++;
+		}
+
+		long mantissa = 0;
+		int fractionDigits = 0;
+		boolean anyDigit = false;
+		boolean seenPoint = false;
+		for (; p < end; p++) {
+			byte b = buf[p];
+			if (b >= '0' && b <= '9') {
+				anyDigit = true;
+				mantissa = mantissa * 10 + (b - '0');
+				if (seenPoint) {
+					fractionDigits++;
+				}
+				if (mantissa >= MAX_EXACT_MANTISSA
+						|| fractionDigits >= POWERS_OF_TEN.length) {
+					return this.parseDoubleSlow(from, to);
+				}
+			} else if (b == '.' && !seenPoint) {
+				seenPoint = true;
+			} else {
+				// Exponent, NaN, Infinity or something invalid
+				return this.parseDoubleSlow(from, to);
+			}
+		}
+		if (!anyDigit) {
+			return this.parseDoubleSlow(from, to);
+		}
+
+		// Both operands are exact, so the quotient is correctly rounded
+		double value = mantissa / POWERS_OF_TEN[fractionDigits];
+		return negative ? -value : value;
+	}
+
+	private double parseDoubleSlow(int from, int to) {
+		String cell = this.toString(from, to).trim();
+		if (cell.length() > 1 && cell.startsWith("\"") && cell.endsWith("\"")) {
+			cell = cell.substring(1, cell.length() - 1).trim();
+		}
+		return Double.parseDouble(cell);
+	}
+
+	private String toString(int from, int to) {
+		return new String(buf, from, to - from, StandardCharsets.US_ASCII);
+	}
+}
@@ -0,0 +1,905 @@
+package name.reidmiller.sppreports.client;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import name.reidmiller.sppreports.model.RollupPeriod;
+import name.reidmiller.sppreports.model.SamplingFrequency;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.joda.time.DateTime;
+
+/**
+ * Download, parsing, daylight savings correction and date range handling
+ * shared by every SPP report. What differs between reports is described by a
+ * {@link ReportSchema}, so {@link GeneratorMixClient} and
+ * {@link LoadForecastClient} are thin adapters over an engine each, and any
+ * change made here applies to every report.
+ *
+ * @param <T>
+ *            Type of record the report rows are parsed into.
+ */
+public class SppReportEngine<T> {
+	private Logger logger = LogManager.getLogger(this.getClass());
+	private ReportSchema<T> schema;
+	private ReportTransport reportTransport;
+	private ReportCache reportCache;
+	private ParsedReportCache parsedReportCache;
+	private ReportMetrics reportMetrics = ReportMetrics.NONE;
+	private Set<RollupPeriod> ingestRollupPeriods = EnumSet
+			.noneOf(RollupPeriod.class);
+
+	/**
+	 * @param schema
+	 *            Description of the report.
+	 * @param reportTransport
+	 *            Transport reports are fetched with when there is no cache.
+	 * @param reportCache
+	 *            On-disk cache reports are read through, or null to fetch the
+	 *            report on every call.
+	 */
+	public SppReportEngine(ReportSchema<T> schema,
+			ReportTransport reportTransport, ReportCache reportCache) {
+		this.schema = schema;
+		this.reportTransport = reportTransport;
+		this.reportCache = reportCache;
+	}
+
+	public ReportSchema<T> getSchema() {
+		return schema;
+	}
+
+	public ReportTransport getReportTransport() {
+		return reportTransport;
+	}
+
+	public ReportCache getReportCache() {
+		return reportCache;
+	}
+
+	/**
+	 * @return In-memory cache parsed years are shared through, or null if
+	 *         every call parses the report.
+	 */
+	public ParsedReportCache getParsedReportCache() {
+		return parsedReportCache;
+	}
+
+	/**
+	 * @param parsedReportCache
+	 *            In-memory cache parsed years are shared through, usually
+	 *            {@link ParsedReportCache#getShared()}, or null to parse the
+	 *            report on every call.
+	 */
+	public void setParsedReportCache(ParsedReportCache parsedReportCache) {
+		this.parsedReportCache = parsedReportCache;
+	}
+
+	/**
+	 * @return Periods rolled up while a year is parsed into the
+	 *         {@link ParsedReportCache}, none by default.
+	 */
+	public Set<RollupPeriod> getIngestRollupPeriods() {
+		return Collections.unmodifiableSet(ingestRollupPeriods);
+	}
+
+	/**
+	 * Opts in to building rollups while a year is parsed into the
+	 * {@link ParsedReportCache}, so that
+	 * {@link #getRollupForYear(int, SamplingFrequency, RollupPeriod)} returns
+	 * them without touching the rows. Rollups for other periods are still
+	 * built on request from the cached rows. Has no effect without a
+	 * ParsedReportCache, or on years already cached.
+	 *
+	 * @param ingestRollupPeriods
+	 *            Periods to roll up on ingest, empty for none.
+	 */
+	public void setIngestRollupPeriods(Set<RollupPeriod> ingestRollupPeriods) {
+		this.ingestRollupPeriods = ingestRollupPeriods.isEmpty() ? EnumSet
+				.noneOf(RollupPeriod.class) : EnumSet
+				.copyOf(ingestRollupPeriods);
+	}
+
+	/**
+	 * @return Registry the work done for each report is measured into,
+	 *         {@link ReportMetrics#NONE} by default.
+	 */
+	public ReportMetrics getReportMetrics() {
+		return reportMetrics;
+	}
+
+	/**
+	 * @param reportMetrics
+	 *            Registry the work done for each report is measured into, or
+	 *            {@link ReportMetrics#NONE} to take no measurements.
+	 */
+	public void setReportMetrics(ReportMetrics reportMetrics) {
+		this.reportMetrics = reportMetrics;
+	}
+
+	/**
+	 * @return URL of the report. Defaults to
+	 *         {@link ReportSchema#getUrlString(int, SamplingFrequency)}, and
+	 *         may be overridden to read reports from elsewhere.
+	 */
+	public String getUrlString(int year, SamplingFrequency samplingFrequency) {
+		String urlString = schema.getUrlString(year, samplingFrequency);
+		if (logger.isDebugEnabled()) {
+			logger.debug("Parsing URL " + urlString);
+		}
+		return urlString;
+	}
+
+	/**
+	 * Retrieves every record of a year's report. Because the CSV provides
+	 * times without offset or daylight savings information, the second pass
+	 * through the hour repeated when daylight savings time ends is shifted to
+	 * standard time.
+	 *
+	 * @param year
+	 *            Year of report.
+	 * @param samplingFrequency
+	 *            Five-minute or hourly report.
+	 * @return List of records for the year, empty if the report could not be
+	 *         read.
+	 */
+	public List<T> getForYear(int year, SamplingFrequency samplingFrequency) {
+		List<T> records = new ArrayList<T>();
+		ReportIterator<T> iterator = this.iterateForYear(year,
+				samplingFrequency);
+		while (iterator.hasNext()) {
+			records.add(iterator.next());
+		}
+		return records;
+	}
+
+	/**
+	 * Streaming counterpart of {@link #getForYear(int, SamplingFrequency)}.
+	 * When there is a {@link ParsedReportCache}, records are created from the
+	 * cached year instead of the report.
+	 *
+	 * @param year
+	 *            Year of report.
+	 * @param samplingFrequency
+	 *            Five-minute or hourly report.
+	 * @return Iterator over the records for the year, empty if the report
+	 *         could not be opened.
+	 */
+	public ReportIterator<T> iterateForYear(int year,
+			SamplingFrequency samplingFrequency) {
+		try {
+			return this.openYear(year, samplingFrequency);
+		} catch (MalformedURLException e) {
+			logger.warn("Could not create " + URL.class + " from \""
+					+ this.getUrlString(year, samplingFrequency) + "\"");
+		} catch (IOException e) {
+			logger.error(e.getMessage());
+		}
+		return ReportIterator.emptyIterator();
+	}
+
+	/**
+	 * Same as {@link #iterateForYear(int, SamplingFrequency)}, but throws
+	 * rather than logs an error opening the report. Errors reading it are
+	 * thrown by {@link ReportIterator#readNext()}, for callers which need to
+	 * tell a failed read from a short report.
+	 */
+	ReportIterator<T> openYear(int year, SamplingFrequency samplingFrequency)
+			throws IOException {
+		String urlString = this.getUrlString(year, samplingFrequency);
+		try {
+			if (parsedReportCache != null) {
+				return this.iterate(this.getParsedYear(year, samplingFrequency,
+						urlString));
+			}
+			ReportMeasurement measurement = new ReportMeasurement(year,
+					samplingFrequency);
+			return this.iterate(
+					measurement.meter(this.openReportStream(year, urlString)),
+					true, measurement.getDstCorrection(), measurement);
+		} catch (IOException e) {
+			this.recordError(year, samplingFrequency, e);
+			throw e;
+		}
+	}
+
+	/**
+	 * Fetches every year touched by the range one after another, keeping the
+	 * records between startDate and endDate inclusive.
+	 *
+	 * @param samplingFrequency
+	 *            Five-minute or hourly report.
+	 * @param startDate
+	 *            Lower bound of records returned.
+	 * @param endDate
+	 *            Upper bound of records returned.
+	 * @return Chronologically ordered List of records in the range.
+	 */
+	public List<T> getInRange(SamplingFrequency samplingFrequency,
+			Date startDate, Date endDate) {
+		List<T> records = new ArrayList<T>();
+		for (int year : this.getYearRange(startDate, endDate)) {
+			this.addInRange(records, this.getForYear(year, samplingFrequency),
+					startDate, endDate);
+		}
+		return records;
+	}
+
+	/**
+	 * Same as {@link #getInRange(SamplingFrequency, Date, Date)}, but fetches
+	 * up to maxParallelism years concurrently using a thread pool that lives
+	 * only for the duration of the call.
+	 *
+	 * @param maxParallelism
+	 *            Maximum number of yearly reports fetched at the same time.
+	 */
+	public List<T> getInRange(SamplingFrequency samplingFrequency,
+			Date startDate, Date endDate, int maxParallelism) {
+		if (maxParallelism < 1) {
+			throw new IllegalArgumentException(
+					"maxParallelism must be at least 1, was " + maxParallelism);
+		}
+		int numYears = this.getYearRange(startDate, endDate).size();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1,
+				Math.min(maxParallelism, numYears)));
+		try {
+			return this.getInRange(samplingFrequency, startDate, endDate,
+					executor);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Same as {@link #getInRange(SamplingFrequency, Date, Date)}, but each
+	 * year's report is fetched as a separate task on the executor provided,
+	 * which the caller owns. Results are still assembled in year order. If
+	 * the calling thread is interrupted while waiting, the interrupt is
+	 * restored and an empty List is returned.
+	 *
+	 * @param executor
+	 *            Executor which runs the per-year fetches.
+	 */
+	public List<T> getInRange(final SamplingFrequency samplingFrequency,
+			Date startDate, Date endDate, ExecutorService executor) {
+		TreeSet<Integer> yearRange = this.getYearRange(startDate, endDate);
+
+		// Submit every year up front so the executor can work on them at once
+		List<Future<List<T>>> futures = new ArrayList<Future<List<T>>>();
+		for (final int year : yearRange) {
+			futures.add(executor.submit(new Callable<List<T>>() {
+				@Override
+				public List<T> call() throws Exception {
+					return getForYear(year, samplingFrequency);
+				}
+			}));
+		}
+
+		// Collect in year order so the combined List stays chronological
+		List<T> records = new ArrayList<T>();
+		int i = 0;
+		try {
+			for (int year : yearRange) {
+				this.addInRange(records, futures.get(i).get(), startDate,
+						endDate);
+				i++;
+			}
+		} catch (InterruptedException e) {
+			// A partial range would pass for a complete one, so return none
+			Thread.currentThread().interrupt();
+			logger.warn("Interrupted while fetching " + schema.getName()
+					+ " reports, returning no records");
+			records.clear();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException(cause);
+		} finally {
+			for (Future<List<T>> future : futures) {
+				future.cancel(true);
+			}
+		}
+		return records;
+	}
+
+	/**
+	 * Streaming counterpart of {@link #getInRange(SamplingFrequency, Date, Date)}.
+	 * Yearly reports are opened one after another as the iterator is advanced,
+	 * and reading stops as soon as endDate is passed.
+	 *
+	 * @param samplingFrequency
+	 *            Five-minute or hourly report.
+	 * @param startDate
+	 *            Lower bound of records returned.
+	 * @param endDate
+	 *            Upper bound of records returned.
+	 * @return Iterator over the records in the range, in chronological order.
+	 */
+	public ReportIterator<T> iterateInRange(
+			final SamplingFrequency samplingFrequency, Date startDate,
+			Date endDate) {
+		return new RangeReportIterator<T>(startDate, endDate) {
+			@Override
+			protected ReportIterator<T> openYear(int year) {
+				return iterateForYear(year, samplingFrequency);
+			}
+
+			@Override
+			protected Date getDate(T record) {
+				return schema.getDate(record);
+			}
+		};
+	}
+
+	/**
+	 * Passes the rows of a year's report between startMillis and endMillis,
+	 * inclusive, to handler as primitives, without creating a record or
+	 * {@link Date} per row. Errors reading the report are logged, and the
+	 * rows read before them are kept.
+	 *
+	 * @param year
+	 *            Year of report.
+	 * @param samplingFrequency
+	 *            Five-minute or hourly report.
+	 * @param startMillis
+	 *            Lower bound of rows passed, in epoch milliseconds.
+	 * @param endMillis
+	 *            Upper bound of rows passed, in epoch milliseconds.
+	 * @param handler
+	 *            Receives each row in range.
+	 */
+	public void scanYear(int year, SamplingFrequency samplingFrequency,
+			long startMillis, long endMillis, ReportRowHandler handler) {
+		String urlString = this.getUrlString(year, samplingFrequency);
+		try {
+			if (parsedReportCache != null) {
+				this.getParsedYear(year, samplingFrequency, urlString).scan(
+						startMillis, endMillis, handler);
+			} else {
+				this.scan(year, samplingFrequency, urlString, startMillis,
+						endMillis, handler);
+			}
+		} catch (MalformedURLException e) {
+			logger.warn("Could not create " + URL.class + " from \""
+					+ urlString + "\"");
+			this.recordError(year, samplingFrequency, e);
+		} catch (IOException e) {
+			logger.error(e.getMessage());
+			this.recordError(year, samplingFrequency, e);
+		}
+	}
+
+	/**
+	 * Same as
+	 * {@link #scanYear(int, SamplingFrequency, long, long, ReportRowHandler)}
+	 * for every year touched by the range, in chronological order.
+	 */
+	public void scanRange(SamplingFrequency samplingFrequency, Date startDate,
+			Date endDate, ReportRowHandler handler) {
+		for (int year : this.getYearRange(startDate, endDate)) {
+			this.scanYear(year, samplingFrequency, startDate.getTime(),
+					endDate.getTime(), handler);
+		}
+	}
+
+	/**
+	 * Converts a year's report into the binary format of archive, replacing
+	 * any earlier archive of it. Archiving a report of the current year
+	 * captures only the rows published so far.
+	 *
+	 * @param year
+	 *            Year of report.
+	 * @param samplingFrequency
+	 *            Five-minute or hourly report.
+	 * @param archive
+	 *            Archive the report is written to.
+	 * @return File the report was archived in.
+	 * @throws IOException
+	 *             If the report could not be read in full or the archive file
+	 *             could not be written, in which case any earlier archive of
+	 *             the report is left in place.
+	 */
+	public File archiveYear(int year, SamplingFrequency samplingFrequency,
+			ReportArchive archive) throws IOException {
+		ReportArchive.Writer writer = archive.createWriter(schema, year,
+				samplingFrequency);
+		try {
+			this.scan(year, samplingFrequency,
+					this.getUrlString(year, samplingFrequency), Long.MIN_VALUE,
+					Long.MAX_VALUE, writer);
+			return writer.commit();
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Archived counterpart of {@link #getForYear(int, SamplingFrequency)},
+	 * reading the year from archive instead of the report.
+	 *
+	 * @param year
+	 *            Year of report.
+	 * @param samplingFrequency
+	 *            Five-minute or hourly report.
+	 * @param archive
+	 *            Archive the report was written to by
+	 *            {@link #archiveYear(int, SamplingFrequency, ReportArchive)}.
+	 * @return List view of the archived year, see
+	 *         {@link #asList(ReportTable)}.
+	 * @throws IOException
+	 *             If the year has not been archived or its archive file
+	 *             cannot be read.
+	 */
+	public List<T> getArchivedForYear(int year,
+			SamplingFrequency samplingFrequency, ReportArchive archive)
+			throws IOException {
+		return this.asList(archive.open(schema, year, samplingFrequency));
+	}
+
+	/**
+	 * Archived counterpart of
+	 * {@link #getInRange(SamplingFrequency, Date, Date)}. Years in the archive
+	 * are read from their memory mapped files, with the bounds of the range
+	 * found by binary search, so only the records in range are ever created.
+	 * Years missing from the archive, such as the current one, are read from
+	 * their reports instead.
+	 *
+	 * @param samplingFrequency
+	 *            Five-minute or hourly report.
+	 * @param startDate
+	 *            Lower bound of records in the List returned.
+	 * @param endDate
+	 *            Upper bound of records in the List returned.
+	 * @param archive
+	 *            Archive years are read from when present.
+	 * @return Chronologically ordered List of records in the specified date
+	 *         range.
+	 */
+	public List<T> getArchivedInRange(SamplingFrequency samplingFrequency,
+			Date startDate, Date endDate, ReportArchive archive) {
+		List<T> records = new ArrayList<T>();
+		for (int year : this.getYearRange(startDate, endDate)) {
+			if (archive.contains(schema, year, samplingFrequency)) {
+				try {
+					records.addAll(this.asList(
+							archive.open(schema, year, samplingFrequency),
+							startDate, endDate));
+					continue;
+				} catch (IOException e) {
+					logger.error(e.getMessage());
+					this.recordError(year, samplingFrequency, e);
+				}
+			}
+			this.addInRange(records, this.getForYear(year, samplingFrequency),
+					startDate, endDate);
+		}
+		return records;
+	}
+
+	/**
+	 * Range counterpart of {@link #asList(ReportTable)}, with the bounds of
+	 * the view found by binary search over the table's timestamps.
+	 *
+	 * @param table
+	 *            Year of this engine's report.
+	 * @param startDate
+	 *            Lower bound of records in the view, inclusive.
+	 * @param endDate
+	 *            Upper bound of records in the view, inclusive.
+	 * @return Read-only List view of the records of table from startDate to
+	 *         endDate.
+	 */
+	public List<T> asList(ReportTable table, Date startDate, Date endDate) {
+		int startIndex = table.getStartIndex(startDate.getTime());
+		int endIndex = table.getEndIndex(endDate.getTime());
+		return this.asList(table).subList(startIndex,
+				Math.max(startIndex, endIndex));
+	}
+
+	/**
+	 * @param table
+	 *            Year of this engine's report, such as an {@link ArchivedReport}.
+	 * @return Read-only List view of table. A record is only created, from the
+	 *         values in the table, when an element is accessed.
+	 */
+	public List<T> asList(ReportTable table) {
+		return new TableList(table);
+	}
+
+	/**
+	 * Aggregates a year's report per period. When there is a
+	 * {@link ParsedReportCache}, the rollup is built from the cached rows, or
+	 * returned as is when the period is one of the
+	 * {@link #getIngestRollupPeriods()} built while the year was parsed.
+	 * Otherwise the report is parsed straight into the rollup, without
+	 * creating a record per row.
+	 *
+	 * @param year
+	 *            Year of report.
+	 * @param samplingFrequency
+	 *            Five-minute or hourly report.
+	 * @param period
+	 *            Period rows are rolled up into, bounded in local time of the
+	 *            schema's zone.
+	 * @return Rollup of the year, empty if the report could not be read.
+	 */
+	public ReportRollup getRollupForYear(int year,
+			SamplingFrequency samplingFrequency, RollupPeriod period) {
+		String urlString = this.getUrlString(year, samplingFrequency);
+		ReportRollup.Builder rollupBuilder = this.getRollupBuilder(period,
+				samplingFrequency);
+		try {
+			if (parsedReportCache != null) {
+				ParsedReport report = this.getParsedYear(year,
+						samplingFrequency, urlString);
+				if (report.getRollup(period) != null) {
+					return report.getRollup(period);
+				}
+				report.scan(Long.MIN_VALUE, Long.MAX_VALUE, rollupBuilder);
+			} else {
+				this.scan(year, samplingFrequency, urlString, Long.MIN_VALUE,
+						Long.MAX_VALUE, rollupBuilder);
+			}
+		} catch (MalformedURLException e) {
+			logger.warn("Could not create " + URL.class + " from \""
+					+ urlString + "\"");
+			this.recordError(year, samplingFrequency, e);
+		} catch (IOException e) {
+			logger.error(e.getMessage());
+			this.recordError(year, samplingFrequency, e);
+		}
+		return rollupBuilder.build();
+	}
+
+	/**
+	 * @param startDate
+	 *            First instant of the range.
+	 * @param endDate
+	 *            Last instant of the range.
+	 * @return Every year touched by the range, in ascending order.
+	 */
+	public TreeSet<Integer> getYearRange(Date startDate, Date endDate) {
+		TreeSet<Integer> yearRange = new TreeSet<Integer>();
+		int endYear = new DateTime(endDate).getYear();
+		for (int y = new DateTime(startDate).getYear(); y <= endYear; y++) {
+			yearRange.add(y);
+		}
+		return yearRange;
+	}
+
+	/**
+	 * Parses records out of part or all of a report.
+	 *
+	 * @param in
+	 *            Report content, closed along with the iterator.
+	 * @param hasHeader
+	 *            False if in starts part way into the report.
+	 * @param dstCorrection
+	 *            Daylight savings state of the pass over the report.
+	 * @return Iterator over the records of every non-empty row.
+	 */
+	ReportIterator<T> iterate(InputStream in, boolean hasHeader,
+			DstCorrection dstCorrection) {
+		return this.iterate(in, hasHeader, dstCorrection, null);
+	}
+
+	/**
+	 * @param table
+	 *            Year of the report.
+	 * @return Iterator creating the records of table as it is advanced.
+	 */
+	ReportIterator<T> iterate(final ReportTable table) {
+		return new ReportIterator<T>() {
+			private int index = 0;
+
+			@Override
+			protected T readNext() {
+				if (index >= table.size()) {
+					return null;
+				}
+				T record = schema.createRecord(new Date(table.getTime(index)),
+						table.getRow(index));
+				index++;
+				return record;
+			}
+
+			@Override
+			public void close() {
+				index = table.size();
+			}
+		};
+	}
+
+	/**
+	 * Same as {@link #iterate(InputStream, boolean, DstCorrection)}, counting
+	 * rows and errors into measurement, when not null, which is finished when
+	 * the iterator is closed.
+	 */
+	private ReportIterator<T> iterate(InputStream in, boolean hasHeader,
+			final DstCorrection dstCorrection,
+			final ReportMeasurement measurement) {
+		final SppCsvParser parser = new SppCsvParser(in,
+				schema.getNumValues(), schema.getZone(), hasHeader);
+		return new ReportIterator<T>() {
+			@Override
+			protected T readNext() throws IOException {
+				try {
+					if (!parser.next()) {
+						return null;
+					}
+				} catch (IOException e) {
+					if (measurement != null) {
+						measurement.recordError(e);
+					}
+					throw e;
+				}
+				if (measurement != null) {
+					measurement.rows++;
+				}
+				return schema.createRecord(
+						new Date(dstCorrection.correct(parser.getTime())),
+						parser);
+			}
+
+			@Override
+			public void close() throws IOException {
+				try {
+					parser.close();
+				} finally {
+					if (measurement != null) {
+						measurement.finish();
+					}
+				}
+			}
+		};
+	}
+
+	private ReportRollup.Builder getRollupBuilder(RollupPeriod period,
+			SamplingFrequency samplingFrequency) {
+		return new ReportRollup.Builder(period, schema.getZone(),
+				schema.getColumnNames(), samplingFrequency.getPeriodMillis());
+	}
+
+	/**
+	 * Reads a year from the {@link ParsedReportCache}, parsing the whole
+	 * report into it on a miss along with a rollup for each of the
+	 * {@link #getIngestRollupPeriods()}.
+	 */
+	private ParsedReport getParsedYear(final int year,
+			final SamplingFrequency samplingFrequency, final String urlString)
+			throws IOException {
+		final AtomicBoolean loaded = new AtomicBoolean(false);
+		ParsedReport report = parsedReportCache.get(urlString,
+				ReportCache.isClosedYear(year), new Callable<ParsedReport>() {
+					@Override
+					public ParsedReport call() throws IOException {
+						loaded.set(true);
+						ParsedReport.Builder builder = new ParsedReport.Builder(
+								schema.getNumValues(),
+								samplingFrequency.getMaxSamplesPerYear());
+						for (RollupPeriod period : ingestRollupPeriods) {
+							builder.addRollup(SppReportEngine.this
+									.getRollupBuilder(period,
+											samplingFrequency));
+						}
+						SppReportEngine.this.scan(year, samplingFrequency,
+								urlString, Long.MIN_VALUE, Long.MAX_VALUE,
+								builder);
+						return builder.build();
+					}
+				});
+		if (loaded.get()) {
+			reportMetrics.recordCacheMiss(schema.getName(), year,
+					samplingFrequency);
+		} else {
+			reportMetrics.recordCacheHit(schema.getName(), year,
+					samplingFrequency);
+		}
+		return report;
+	}
+
+	/**
+	 * Passes the rows of a year's report between startMillis and endMillis to
+	 * handler, throwing rather than logging errors reading the report.
+	 */
+	private void scan(int year, SamplingFrequency samplingFrequency,
+			String urlString, long startMillis, long endMillis,
+			ReportRowHandler handler) throws IOException {
+		ReportMeasurement measurement = new ReportMeasurement(year,
+				samplingFrequency);
+		DstCorrection dstCorrection = measurement.getDstCorrection();
+		SppCsvParser parser = new SppCsvParser(
+				measurement.meter(this.openReportStream(year, urlString)),
+				schema.getNumValues(), schema.getZone());
+		try {
+			while (parser.next()) {
+				measurement.rows++;
+				long time = dstCorrection.correct(parser.getTime());
+				if (time > endMillis) {
+					// Rows are chronological, so none of the rest are in range
+					break;
+				}
+				if (time >= startMillis) {
+					handler.handleRow(time, parser);
+				}
+			}
+		} finally {
+			try {
+				parser.close();
+			} finally {
+				measurement.finish();
+			}
+		}
+	}
+
+	/**
+	 * Appends the records of a single year between startDate and endDate to
+	 * the range being built. Reports are sorted, so the bounds of the range
+	 * within the year are found by binary search instead of comparing the
+	 * date of every record.
+	 */
+	void addInRange(List<T> records, List<T> yearRecords,
+			Date startDate, Date endDate) {
+		int startIndex = this.bisect(yearRecords, startDate.getTime(), false);
+		int endIndex = this.bisect(yearRecords, endDate.getTime(), true);
+		if (startIndex < endIndex) {
+			records.addAll(yearRecords.subList(startIndex, endIndex));
+		}
+	}
+
+	/**
+	 * @param records
+	 *            Chronological, random access list of records.
+	 * @param time
+	 *            Epoch milliseconds.
+	 * @param inclusive
+	 *            True to skip past records at time as well as before it.
+	 * @return Index of the first record after time, or at time if inclusive
+	 *         is false.
+	 */
+	private int bisect(List<T> records, long time, boolean inclusive) {
+		int low = 0;
+		int high = records.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			long midTime = schema.getDate(records.get(mid)).getTime();
+			if (midTime < time || (inclusive && midTime == time)) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Opens the report for the year, going through {@link #reportCache} when
+	 * one has been configured.
+	 */
+	private InputStream openReportStream(int year, String urlString)
+			throws IOException {
+		if (this.reportCache == null) {
+			return this.reportTransport.fetch(new ReportRequest(urlString))
+					.getBodyIfOk(urlString);
+		}
+		return this.reportCache.openStream(urlString,
+				ReportCache.isClosedYear(year));
+	}
+
+	private void recordError(int year, SamplingFrequency samplingFrequency,
+			Exception e) {
+		reportMetrics.recordError(schema.getName(), year, samplingFrequency, e);
+	}
+
+	/**
+	 * List view returned by {@link SppReportEngine#asList(ReportTable)}.
+	 */
+	private class TableList extends AbstractList<T> implements RandomAccess {
+		private ReportTable table;
+
+		TableList(ReportTable table) {
+			this.table = table;
+		}
+
+		@Override
+		public T get(int index) {
+			return schema.createRecord(new Date(table.getTime(index)),
+					table.getRow(index));
+		}
+
+		@Override
+		public int size() {
+			return table.size();
+		}
+	}
+
+	/**
+	 * Measures a single pass over a report into the {@link ReportMetrics} set
+	 * when the pass began. Nothing is measured, not even the time, when that
+	 * is {@link ReportMetrics#NONE}. The clock starts when the measurement is
+	 * created, so a download includes opening the report: connecting, waiting
+	 * for the response and any retries made by the {@link ReportTransport}.
+	 */
+	private class ReportMeasurement {
+		private ReportMetrics metrics = reportMetrics;
+		private int year;
+		private SamplingFrequency samplingFrequency;
+		private DstCorrection dstCorrection;
+		private MeteredInputStream in;
+		private long startNanos;
+		private long openNanos;
+		private long rows = 0;
+
+		ReportMeasurement(int year, SamplingFrequency samplingFrequency) {
+			this.year = year;
+			this.samplingFrequency = samplingFrequency;
+			this.dstCorrection = new DstCorrection(year, samplingFrequency);
+			if (metrics != ReportMetrics.NONE) {
+				this.startNanos = System.nanoTime();
+			}
+		}
+
+		DstCorrection getDstCorrection() {
+			return dstCorrection;
+		}
+
+		/**
+		 * @return in, counting the bytes read from it and the time spent
+		 *         waiting for them.
+		 */
+		InputStream meter(InputStream in) {
+			if (metrics == ReportMetrics.NONE) {
+				return in;
+			}
+			this.openNanos = System.nanoTime() - startNanos;
+			this.in = new MeteredInputStream(in);
+			return this.in;
+		}
+
+		void recordError(Exception e) {
+			metrics.recordError(schema.getName(), year, samplingFrequency, e);
+		}
+
+		/**
+		 * Records the pass, once.
+		 */
+		void finish() {
+			if (in == null) {
+				return;
+			}
+			long nanos = System.nanoTime() - startNanos;
+			long downloadNanos = openNanos + in.getNanos();
+			String report = schema.getName();
+			metrics.recordDownload(report, year, samplingFrequency,
+					in.getBytes(), downloadNanos);
+			metrics.recordParse(report, year, samplingFrequency, rows, nanos
+					- downloadNanos);
+			metrics.recordDstCorrections(report, year, samplingFrequency,
+					dstCorrection.getNumCorrected());
+			in = null;
+		}
+	}
+}
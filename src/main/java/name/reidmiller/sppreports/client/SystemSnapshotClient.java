@@ -0,0 +1,142 @@
+package name.reidmiller.sppreports.client;
+
+import java.util.Date;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import name.reidmiller.sppreports.model.GeneratorMixSeries;
+import name.reidmiller.sppreports.model.MarketLoadSeries;
+import name.reidmiller.sppreports.model.SamplingFrequency;
+import name.reidmiller.sppreports.model.SystemSnapshotSeries;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Fetches the GenerationMix and LoadForecast reports for the same period side
+ * by side and joins them into a {@link SystemSnapshotSeries}. The GenerationMix
+ * report is read on an executor while the calling thread reads the
+ * LoadForecast report, so a join takes about as long as the slower of the two.
+ */
+public class SystemSnapshotClient {
+	private Logger logger = LogManager.getLogger(this.getClass());
+	private GeneratorMixClient genMixClient;
+	private LoadForecastClient loadForecastClient;
+	private ExecutorService executor;
+
+	/**
+	 * SystemSnapshotClient with default clients for both reports, reading
+	 * on {@link AsyncReportClient#getDefaultExecutor()}.
+	 */
+	public SystemSnapshotClient() {
+		this(new GeneratorMixClient(), new LoadForecastClient(),
+				AsyncReportClient.getDefaultExecutor());
+	}
+
+	/**
+	 * @param genMixClient
+	 *            Client the GenerationMix report is read with.
+	 * @param loadForecastClient
+	 *            Client the LoadForecast report is read with.
+	 * @param executor
+	 *            Executor the GenerationMix report is read on, which the
+	 *            caller owns.
+	 */
+	public SystemSnapshotClient(GeneratorMixClient genMixClient,
+			LoadForecastClient loadForecastClient, ExecutorService executor) {
+		this.genMixClient = genMixClient;
+		this.loadForecastClient = loadForecastClient;
+		this.executor = executor;
+	}
+
+	public GeneratorMixClient getGenMixClient() {
+		return genMixClient;
+	}
+
+	public LoadForecastClient getLoadForecastClient() {
+		return loadForecastClient;
+	}
+
+	/**
+	 * @param year
+	 *            Year of reports.
+	 * @param samplingFrequency
+	 *            Five-minute or hourly reports.
+	 * @return Both reports for the year joined by timestamp, keeping rows
+	 *         present in only one of them, or an empty series if the calling
+	 *         thread was interrupted.
+	 */
+	public SystemSnapshotSeries getSnapshotsForYear(final int year,
+			final SamplingFrequency samplingFrequency) {
+		Future<GeneratorMixSeries> genMixes = executor
+				.submit(new Callable<GeneratorMixSeries>() {
+					@Override
+					public GeneratorMixSeries call() {
+						return genMixClient.getGenMixSeriesForYear(year,
+								samplingFrequency);
+					}
+				});
+		MarketLoadSeries marketLoads = loadForecastClient
+				.getMarketLoadSeriesForYear(year, samplingFrequency);
+		return this.join(genMixes, marketLoads);
+	}
+
+	/**
+	 * @param samplingFrequency
+	 *            Five-minute or hourly reports.
+	 * @param startDate
+	 *            Lower bound of rows in the series returned.
+	 * @param endDate
+	 *            Upper bound of rows in the series returned.
+	 * @return Both reports for the range joined by timestamp, keeping rows
+	 *         present in only one of them, or an empty series if the calling
+	 *         thread was interrupted.
+	 */
+	public SystemSnapshotSeries getSnapshotsInRange(
+			final SamplingFrequency samplingFrequency, final Date startDate,
+			final Date endDate) {
+		Future<GeneratorMixSeries> genMixes = executor
+				.submit(new Callable<GeneratorMixSeries>() {
+					@Override
+					public GeneratorMixSeries call() {
+						return genMixClient.getGenMixSeriesInRange(
+								samplingFrequency, startDate, endDate);
+					}
+				});
+		MarketLoadSeries marketLoads = loadForecastClient
+				.getMarketLoadSeriesInRange(samplingFrequency, startDate,
+						endDate);
+		return this.join(genMixes, marketLoads);
+	}
+
+	/**
+	 * Waits for the GenerationMix report and joins it with the LoadForecast
+	 * report. If interrupted while waiting, the interrupt is restored and the
+	 * join is empty rather than missing one side.
+	 */
+	private SystemSnapshotSeries join(Future<GeneratorMixSeries> genMixes,
+			MarketLoadSeries marketLoads) {
+		GeneratorMixSeries genMixSeries;
+		try {
+			genMixSeries = genMixes.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			genMixes.cancel(true);
+			logger.warn("Interrupted while fetching GenerationMix report, "
+					+ "returning no snapshots");
+			return SystemSnapshotSeries.join(new GeneratorMixSeries(0),
+					new MarketLoadSeries(0));
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+		return SystemSnapshotSeries.join(genMixSeries, marketLoads);
+	}
+}
@@ -0,0 +1,93 @@
+package name.reidmiller.sppreports.client;
+
+import org.joda.time.Chronology;
+import org.joda.time.DateTimeConstants;
+import org.joda.time.DateTimeZone;
+import org.joda.time.chrono.ISOChronology;
+
+/**
+ * Converts the local date and time fields of report rows into epoch
+ * milliseconds. Report rows are sequential, so consecutive rows almost always
+ * fall on the same day. The start of the current day and the zone offset in
+ * effect for it are therefore cached, and a row on a cached day costs a few
+ * multiplications. Only when the day changes is the chronology consulted, and
+ * only on the days of a daylight savings transition is the zone offset looked
+ * up row by row, with the same overlap and gap rules as a Joda
+ * {@code DateTimeFormatter}.
+ */
+class TimestampDecoder {
+	private static final Chronology UTC_CHRONOLOGY = ISOChronology
+			.getInstanceUTC();
+	private DateTimeZone zone;
+	private int cachedYear = Integer.MIN_VALUE;
+	private int cachedMonth;
+	private int cachedDay;
+	private long cachedDayStart;
+	// Offset for every time of the cached day, unless it has a transition
+	private int cachedDayOffset;
+	private boolean cachedDayUniform;
+	private long localMillis;
+
+	/**
+	 * @param zone
+	 *            Time zone the local times are in.
+	 */
+	TimestampDecoder(DateTimeZone zone) {
+		this.zone = zone;
+	}
+
+	/**
+	 * @return Epoch milliseconds of the local time in the decoder's zone. An
+	 *         ambiguous time is resolved to the earlier of its two instants.
+	 * @throws IllegalArgumentException
+	 *             If a field is out of range or the local time does not exist
+	 *             in the zone.
+	 */
+	long decode(int year, int month, int day, int hour, int minute) {
+		if (year != cachedYear || month != cachedMonth || day != cachedDay) {
+			this.cacheDay(year, month, day);
+		}
+		if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+			throw new IllegalArgumentException("Invalid time " + hour + ":"
+					+ minute);
+		}
+
+		localMillis = cachedDayStart + hour
+				* (long) DateTimeConstants.MILLIS_PER_HOUR + minute
+				* (long) DateTimeConstants.MILLIS_PER_MINUTE;
+		if (cachedDayUniform) {
+			return localMillis - cachedDayOffset;
+		}
+
+		// Day of a transition, so look the offset up for this time
+		int offset = zone.getOffsetFromLocal(localMillis);
+		long millis = localMillis - offset;
+		if (offset != zone.getOffset(millis)) {
+			throw new IllegalArgumentException(
+					"Illegal instant due to time zone offset transition ("
+							+ zone + ")");
+		}
+		return millis;
+	}
+
+	/**
+	 * @return Local time last decoded, in epoch milliseconds of the UTC
+	 *         chronology.
+	 */
+	long getLocalMillis() {
+		return localMillis;
+	}
+
+	private void cacheDay(int year, int month, int day) {
+		cachedDayStart = UTC_CHRONOLOGY.getDateTimeMillis(year, month, day, 0);
+		cachedYear = year;
+		cachedMonth = month;
+		cachedDay = day;
+
+		cachedDayOffset = zone.getOffsetFromLocal(cachedDayStart);
+		long utcStart = cachedDayStart - cachedDayOffset;
+		long utcEnd = utcStart + DateTimeConstants.MILLIS_PER_DAY;
+		cachedDayUniform = zone.getOffset(utcStart) == cachedDayOffset
+				&& zone.nextTransition(utcStart) >= utcEnd;
+	}
+}
@@ -0,0 +1,203 @@
+package name.reidmiller.sppreports.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * Buffered writer of ASCII text straight to bytes, or to the characters of a
+ * {@link Writer}. Numbers and timestamps are
+ * formatted into the buffer digit by digit, so writing a row allocates
+ * nothing, unlike {@link String#valueOf(double)} or a
+ * {@link java.text.SimpleDateFormat}.
+ */
+class AsciiWriter {
+	static final int BUFFER_SIZE = 64 * 1024;
+	private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+	private static final long[] POWERS_OF_TEN = { 1L, 10L, 100L, 1000L,
+			10000L, 100000L, 1000000L };
+	// Largest magnitude written digit by digit, beyond which doubles are no
+	// longer exact integers
+	private static final double MAX_EXACT = 1e15;
+	private OutputStream out;
+	private Writer writer;
+	private char[] chars;
+	private byte[] buffer = new byte[BUFFER_SIZE];
+	private byte[] digits = new byte[20];
+	private int position = 0;
+
+	AsciiWriter(OutputStream out) {
+		this.out = out;
+	}
+
+	AsciiWriter(Writer writer) {
+		this.writer = writer;
+		this.chars = new char[BUFFER_SIZE];
+	}
+
+	AsciiWriter write(char c) throws IOException {
+		if (position == buffer.length) {
+			this.flushBuffer();
+		}
+		buffer[position++] = (byte) c;
+		return this;
+	}
+
+	/**
+	 * @param s
+	 *            Text made up only of ASCII characters.
+	 */
+	AsciiWriter write(String s) throws IOException {
+		for (int i = 0; i < s.length(); i++) {
+			this.write(s.charAt(i));
+		}
+		return this;
+	}
+
+	AsciiWriter writeLong(long value) throws IOException {
+		if (value == Long.MIN_VALUE) {
+			return this.write(Long.toString(value));
+		}
+		if (value < 0) {
+			this.write('-');
+			value = -value;
+		}
+		int n = 0;
+		do {
+			digits[n++] = (byte) ('0' + value % 10);
+			value /= 10;
+		} while (value > 0);
+		while (n > 0) {
+			this.write((char) digits[--n]);
+		}
+		return this;
+	}
+
+	/**
+	 * Writes value with the fewest decimal places, up to six, which read back
+	 * as exactly the same double, as with "1.0" or "1234.5". Values needing
+	 * more places, as well as NaN and infinity, fall back to
+	 * {@link Double#toString(double)}.
+	 */
+	AsciiWriter writeDouble(double value) throws IOException {
+		if (!(Math.abs(value) < MAX_EXACT)) {
+			return this.write(Double.toString(value));
+		}
+		for (int places = 0; places < POWERS_OF_TEN.length; places++) {
+			double scaled = value * POWERS_OF_TEN[places];
+			double rounded = Math.rint(scaled);
+			if (scaled == rounded && Math.abs(rounded) < MAX_EXACT
+					&& rounded / POWERS_OF_TEN[places] == value) {
+				long digitsValue = (long) rounded;
+				if (digitsValue < 0) {
+					this.write('-');
+					digitsValue = -digitsValue;
+				}
+				long power = POWERS_OF_TEN[places];
+				this.writeLong(digitsValue / power);
+				this.write('.');
+				if (places == 0) {
+					return this.write('0');
+				}
+				this.writePadded(digitsValue % power, places);
+				return this;
+			}
+		}
+		return this.write(Double.toString(value));
+	}
+
+	/**
+	 * Writes epochMillis as an ISO 8601 UTC timestamp such as
+	 * "2014-01-01T06:00:00Z", with milliseconds only when there are any.
+	 */
+	AsciiWriter writeIsoTime(long epochMillis) throws IOException {
+		long days = epochMillis / MILLIS_PER_DAY;
+		long millisOfDay = epochMillis % MILLIS_PER_DAY;
+		if (millisOfDay < 0) {
+			days--;
+			millisOfDay += MILLIS_PER_DAY;
+		}
+
+		// Civil date from days since 1970-01-01, in 400 year eras
+		long z = days + 719468;
+		long era = (z >= 0 ? z : z - 146096) / 146097;
+		long dayOfEra = z - era * 146097;
+		long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		long dayOfYear = dayOfEra
+				- (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		long monthIndex = (5 * dayOfYear + 2) / 153;
+		long day = dayOfYear - (153 * monthIndex + 2) / 5 + 1;
+		long month = monthIndex < 10 ? monthIndex + 3 : monthIndex - 9;
+		long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+		this.writePadded(year, 4).write('-');
+		this.writePadded(month, 2).write('-');
+		this.writePadded(day, 2).write('T');
+		long seconds = millisOfDay / 1000;
+		this.writePadded(seconds / 3600, 2).write(':');
+		this.writePadded(seconds / 60 % 60, 2).write(':');
+		this.writePadded(seconds % 60, 2);
+		if (millisOfDay % 1000 != 0) {
+			this.write('.').writePadded(millisOfDay % 1000, 3);
+		}
+		return this.write('Z');
+	}
+
+	/**
+	 * Writes JSON string contents, escaping quotes, backslashes and control
+	 * characters, and any non-ASCII character as a \\u escape.
+	 */
+	AsciiWriter writeJsonString(String s) throws IOException {
+		this.write('"');
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '"' || c == '\\') {
+				this.write('\\').write(c);
+			} else if (c < 0x20 || c > 0x7e) {
+				this.write("\\u");
+				for (int shift = 12; shift >= 0; shift -= 4) {
+					this.write(Character.forDigit((c >> shift) & 0xf, 16));
+				}
+			} else {
+				this.write(c);
+			}
+		}
+		return this.write('"');
+	}
+
+	/**
+	 * Writes the buffer and flushes the underlying stream.
+	 */
+	void flush() throws IOException {
+		this.flushBuffer();
+		if (writer != null) {
+			writer.flush();
+		} else {
+			out.flush();
+		}
+	}
+
+	private AsciiWriter writePadded(long value, int width) throws IOException {
+		long power = 1;
+		for (int i = 1; i < width; i++) {
+			power *= 10;
+		}
+		while (power > 1 && value < power) {
+			this.write('0');
+			power /= 10;
+		}
+		return this.writeLong(value);
+	}
+
+	private void flushBuffer() throws IOException {
+		if (writer != null) {
+			for (int i = 0; i < position; i++) {
+				chars[i] = (char) buffer[i];
+			}
+			writer.write(chars, 0, position);
+		} else {
+			out.write(buffer, 0, position);
+		}
+		position = 0;
+	}
+}
@@ -0,0 +1,140 @@
+package name.reidmiller.sppreports.export;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Exports a table as a columnar binary file in the manner of an Arrow record
+ * batch: a header naming the columns, then each column as one contiguous,
+ * 8-byte aligned little-endian buffer. Analytics tools can read a column
+ * without touching the others, and {@link #read(File)} loads a whole file
+ * with a bulk copy per column.
+ *
+ * <pre>
+ * header: int magic, int version, int numColumns, int numRows
+ *         per column: int nameLength, byte name[nameLength] (UTF-8)
+ *         zero padding to a multiple of 8 bytes
+ * body:   long time[numRows] (epoch milliseconds)
+ *         per column: double value[numRows]
+ * </pre>
+ */
+public class ColumnarExporter implements TableExporter {
+	static final int MAGIC = 0x43505053; // "SPPC"
+	static final int VERSION = 1;
+	static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	@Override
+	public void write(ExportTable table, OutputStream out) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(AsciiWriter.BUFFER_SIZE).order(
+				BYTE_ORDER);
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(table.getNumColumns())
+				.putInt(table.size());
+		int headerBytes = 16;
+		for (int column = 0; column < table.getNumColumns(); column++) {
+			byte[] name = table.getColumnName(column).getBytes(UTF_8);
+			this.ensureRemaining(buffer, out, 4 + name.length);
+			buffer.putInt(name.length).put(name);
+			headerBytes += 4 + name.length;
+		}
+		for (int i = headerBytes; i % 8 != 0; i++) {
+			this.ensureRemaining(buffer, out, 1);
+			buffer.put((byte) 0);
+		}
+
+		long[] times = table.getTimes();
+		for (int row = 0; row < times.length;) {
+			this.ensureRemaining(buffer, out, 8);
+			int n = Math.min(times.length - row, buffer.remaining() / 8);
+			buffer.asLongBuffer().put(times, row, n);
+			buffer.position(buffer.position() + n * 8);
+			row += n;
+		}
+		for (int column = 0; column < table.getNumColumns(); column++) {
+			double[] values = table.getColumn(column);
+			for (int row = 0; row < values.length;) {
+				this.ensureRemaining(buffer, out, 8);
+				int n = Math.min(values.length - row, buffer.remaining() / 8);
+				buffer.asDoubleBuffer().put(values, row, n);
+				buffer.position(buffer.position() + n * 8);
+				row += n;
+			}
+		}
+		this.drain(buffer, out);
+		out.flush();
+	}
+
+	/**
+	 * Reads a file written by {@link #write(ExportTable, OutputStream)}.
+	 *
+	 * @param file
+	 *            Columnar export file.
+	 * @return Table holding the file's columns.
+	 * @throws IOException
+	 *             If the file cannot be read, is not a columnar export or is
+	 *             truncated.
+	 */
+	public static ExportTable read(File file) throws IOException {
+		ByteBuffer buffer;
+		FileChannel channel = FileChannel.open(file.toPath(),
+				StandardOpenOption.READ);
+		try {
+			MappedByteBuffer mapped = channel.map(
+					FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			buffer = mapped.order(BYTE_ORDER);
+		} finally {
+			channel.close();
+		}
+
+		try {
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				throw new IOException(file + " is not a version " + VERSION
+						+ " columnar export");
+			}
+			int numColumns = buffer.getInt();
+			int numRows = buffer.getInt();
+			String[] columnNames = new String[numColumns];
+			for (int column = 0; column < numColumns; column++) {
+				byte[] name = new byte[buffer.getInt()];
+				buffer.get(name);
+				columnNames[column] = new String(name, UTF_8);
+			}
+			buffer.position((buffer.position() + 7) & ~7);
+			if (buffer.remaining() != (long) numRows * 8 * (numColumns + 1)) {
+				throw new IOException(file + " is truncated");
+			}
+
+			long[] times = new long[numRows];
+			buffer.asLongBuffer().get(times);
+			buffer.position(buffer.position() + numRows * 8);
+			double[][] columns = new double[numColumns][numRows];
+			for (int column = 0; column < numColumns; column++) {
+				buffer.asDoubleBuffer().get(columns[column]);
+				buffer.position(buffer.position() + numRows * 8);
+			}
+			return new ExportTable(times, columnNames, columns);
+		} catch (RuntimeException e) {
+			// Buffer underflow or a negative length from a corrupt header
+			throw new IOException(file + " is truncated", e);
+		}
+	}
+
+	private void ensureRemaining(ByteBuffer buffer, OutputStream out,
+			int bytes) throws IOException {
+		if (buffer.remaining() < bytes) {
+			this.drain(buffer, out);
+		}
+	}
+
+	private void drain(ByteBuffer buffer, OutputStream out) throws IOException {
+		out.write(buffer.array(), 0, buffer.position());
+		buffer.clear();
+	}
+}
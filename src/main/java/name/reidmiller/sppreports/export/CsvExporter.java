@@ -0,0 +1,35 @@
+package name.reidmiller.sppreports.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Exports a table as CSV with a header row. Times are written in the first
+ * column as ISO 8601 UTC timestamps, and missing (NaN) values as empty
+ * fields.
+ */
+public class CsvExporter implements TableExporter {
+	@Override
+	public void write(ExportTable table, OutputStream out) throws IOException {
+		AsciiWriter writer = new AsciiWriter(out);
+		writer.write("time");
+		for (int column = 0; column < table.getNumColumns(); column++) {
+			writer.write(',').write(table.getColumnName(column));
+		}
+		writer.write("\r\n");
+
+		long[] times = table.getTimes();
+		for (int row = 0; row < times.length; row++) {
+			writer.writeIsoTime(times[row]);
+			for (int column = 0; column < table.getNumColumns(); column++) {
+				writer.write(',');
+				double value = table.getColumn(column)[row];
+				if (!Double.isNaN(value)) {
+					writer.writeDouble(value);
+				}
+			}
+			writer.write("\r\n");
+		}
+		writer.flush();
+	}
+}
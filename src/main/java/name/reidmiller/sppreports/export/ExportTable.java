@@ -0,0 +1,89 @@
+package name.reidmiller.sppreports.export;
+
+import name.reidmiller.sppreports.model.GeneratorMixSeries;
+import name.reidmiller.sppreports.model.MarketLoadSeries;
+import name.reidmiller.sppreports.model.SystemSnapshotSeries;
+
+/**
+ * Columns of a series as exporters see them: one of epoch milliseconds and
+ * any number of named value columns of the same length. The arrays of the
+ * series are used as they are, not copied, so they must not be modified while
+ * the table is being exported.
+ */
+public class ExportTable {
+	private long[] times;
+	private String[] columnNames;
+	private double[][] columns;
+
+	/**
+	 * @param times
+	 *            Epoch milliseconds of every row.
+	 * @param columnNames
+	 *            Name of each value column, used as the CSV header and JSON
+	 *            field name.
+	 * @param columns
+	 *            Value columns, each as long as times.
+	 */
+	public ExportTable(long[] times, String[] columnNames, double[][] columns) {
+		if (columnNames.length != columns.length) {
+			throw new IllegalArgumentException(columnNames.length
+					+ " column names given for " + columns.length + " columns");
+		}
+		for (int i = 0; i < columns.length; i++) {
+			if (columns[i].length != times.length) {
+				throw new IllegalArgumentException("Column " + columnNames[i]
+						+ " has " + columns[i].length + " rows, expected "
+						+ times.length);
+			}
+		}
+		this.times = times;
+		this.columnNames = columnNames.clone();
+		this.columns = columns.clone();
+	}
+
+	public static ExportTable of(GeneratorMixSeries series) {
+		return new ExportTable(series.getTimes(), new String[] { "coal",
+				"hydro", "dieselFuelOil", "naturalGas", "nuclear", "wind",
+				"marketLoad" }, new double[][] { series.getCoal(),
+				series.getHydro(), series.getDieselFuelOil(),
+				series.getNaturalGas(), series.getNuclear(), series.getWind(),
+				series.getMarketLoad() });
+	}
+
+	public static ExportTable of(MarketLoadSeries series) {
+		return new ExportTable(series.getTimes(), new String[] {
+				"currentLoad", "loadForecast" }, new double[][] {
+				series.getCurrentLoad(), series.getLoadForecast() });
+	}
+
+	public static ExportTable of(SystemSnapshotSeries series) {
+		return new ExportTable(series.getTimes(), new String[] {
+				"totalGeneration", "marketLoad", "currentLoad", "loadForecast" },
+				new double[][] { series.getTotalGeneration(),
+						series.getMarketLoad(), series.getCurrentLoad(),
+						series.getLoadForecast() });
+	}
+
+	/**
+	 * @return Number of rows in the table.
+	 */
+	public int size() {
+		return times.length;
+	}
+
+	public int getNumColumns() {
+		return columns.length;
+	}
+
+	public long[] getTimes() {
+		return times;
+	}
+
+	public String getColumnName(int column) {
+		return columnNames[column];
+	}
+
+	public double[] getColumn(int column) {
+		return columns[column];
+	}
+}
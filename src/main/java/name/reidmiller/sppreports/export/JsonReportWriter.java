@@ -0,0 +1,214 @@
+package name.reidmiller.sppreports.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Date;
+
+import name.reidmiller.sppreports.model.GeneratorMix;
+import name.reidmiller.sppreports.model.GeneratorMixSeries;
+import name.reidmiller.sppreports.model.MarketLoad;
+import name.reidmiller.sppreports.model.MarketLoadSeries;
+
+/**
+ * Streams {@link GeneratorMix} and {@link MarketLoad} records as JSON straight
+ * to an {@link OutputStream} or {@link Writer}. A record is written as an
+ * object named by its getters, with the date as an ISO 8601 UTC timestamp:
+ *
+ * <pre>
+ * {"date":"2014-01-01T06:00:00Z","currentLoad":21000.5,"loadForecast":21100.0}
+ * </pre>
+ *
+ * Lists and series are written as arrays of those objects. Dates and numbers
+ * are formatted digit by digit into a buffer reused across calls, so neither a
+ * date formatter nor a String is created per record, and series are written
+ * from their columns without creating records at all. Missing dates and NaN
+ * or infinite values are written as null.
+ * <p>
+ * Output is buffered until {@link #flush()} or the end of each write method.
+ * A JsonReportWriter is meant to be used by one thread, such as for one
+ * response, and may be reused for any number of writes to its destination.
+ */
+public class JsonReportWriter {
+	private AsciiWriter writer;
+
+	/**
+	 * @param out
+	 *            Destination of the UTF-8 (in fact ASCII) JSON.
+	 */
+	public JsonReportWriter(OutputStream out) {
+		this.writer = new AsciiWriter(out);
+	}
+
+	/**
+	 * @param out
+	 *            Destination of the JSON.
+	 */
+	public JsonReportWriter(Writer out) {
+		this.writer = new AsciiWriter(out);
+	}
+
+	public void write(GeneratorMix generatorMix) throws IOException {
+		this.writeObject(generatorMix);
+		writer.flush();
+	}
+
+	public void write(MarketLoad marketLoad) throws IOException {
+		this.writeObject(marketLoad);
+		writer.flush();
+	}
+
+	/**
+	 * @param generatorMixes
+	 *            Records written as one JSON array, in iteration order.
+	 */
+	public void writeGeneratorMixes(Iterable<GeneratorMix> generatorMixes)
+			throws IOException {
+		writer.write('[');
+		boolean first = true;
+		for (GeneratorMix generatorMix : generatorMixes) {
+			if (!first) {
+				writer.write(',');
+			}
+			this.writeObject(generatorMix);
+			first = false;
+		}
+		writer.write(']');
+		writer.flush();
+	}
+
+	/**
+	 * @param marketLoads
+	 *            Records written as one JSON array, in iteration order.
+	 */
+	public void writeMarketLoads(Iterable<MarketLoad> marketLoads)
+			throws IOException {
+		writer.write('[');
+		boolean first = true;
+		for (MarketLoad marketLoad : marketLoads) {
+			if (!first) {
+				writer.write(',');
+			}
+			this.writeObject(marketLoad);
+			first = false;
+		}
+		writer.write(']');
+		writer.flush();
+	}
+
+	/**
+	 * Writes every row of series as one JSON array, reading the columns
+	 * directly.
+	 */
+	public void write(GeneratorMixSeries series) throws IOException {
+		long[] times = series.getTimes();
+		double[] coal = series.getCoal();
+		double[] hydro = series.getHydro();
+		double[] dieselFuelOil = series.getDieselFuelOil();
+		double[] naturalGas = series.getNaturalGas();
+		double[] nuclear = series.getNuclear();
+		double[] wind = series.getWind();
+		double[] marketLoad = series.getMarketLoad();
+		writer.write('[');
+		for (int i = 0; i < times.length; i++) {
+			if (i > 0) {
+				writer.write(',');
+			}
+			this.writeGeneratorMix(times[i], coal[i], hydro[i],
+					dieselFuelOil[i], naturalGas[i], nuclear[i], wind[i],
+					marketLoad[i]);
+		}
+		writer.write(']');
+		writer.flush();
+	}
+
+	/**
+	 * Writes every row of series as one JSON array, reading the columns
+	 * directly.
+	 */
+	public void write(MarketLoadSeries series) throws IOException {
+		long[] times = series.getTimes();
+		double[] currentLoad = series.getCurrentLoad();
+		double[] loadForecast = series.getLoadForecast();
+		writer.write('[');
+		for (int i = 0; i < times.length; i++) {
+			if (i > 0) {
+				writer.write(',');
+			}
+			this.writeMarketLoad(times[i], currentLoad[i], loadForecast[i]);
+		}
+		writer.write(']');
+		writer.flush();
+	}
+
+	/**
+	 * Writes out anything still buffered.
+	 */
+	public void flush() throws IOException {
+		writer.flush();
+	}
+
+	private void writeObject(GeneratorMix generatorMix) throws IOException {
+		writer.write("{\"date\":");
+		this.writeDate(generatorMix.getDate());
+		this.writeField("coal", generatorMix.getCoal());
+		this.writeField("hydro", generatorMix.getHydro());
+		this.writeField("dieselFuelOil", generatorMix.getDieselFuelOil());
+		this.writeField("naturalGas", generatorMix.getNaturalGas());
+		this.writeField("nuclear", generatorMix.getNuclear());
+		this.writeField("wind", generatorMix.getWind());
+		this.writeField("marketLoad", generatorMix.getMarketLoad());
+		writer.write('}');
+	}
+
+	private void writeObject(MarketLoad marketLoad) throws IOException {
+		writer.write("{\"date\":");
+		this.writeDate(marketLoad.getDate());
+		this.writeField("currentLoad", marketLoad.getCurrentLoad());
+		this.writeField("loadForecast", marketLoad.getLoadForecast());
+		writer.write('}');
+	}
+
+	private void writeGeneratorMix(long time, double coal, double hydro,
+			double dieselFuelOil, double naturalGas, double nuclear,
+			double wind, double marketLoad) throws IOException {
+		writer.write("{\"date\":\"").writeIsoTime(time).write('"');
+		this.writeField("coal", coal);
+		this.writeField("hydro", hydro);
+		this.writeField("dieselFuelOil", dieselFuelOil);
+		this.writeField("naturalGas", naturalGas);
+		this.writeField("nuclear", nuclear);
+		this.writeField("wind", wind);
+		this.writeField("marketLoad", marketLoad);
+		writer.write('}');
+	}
+
+	private void writeMarketLoad(long time, double currentLoad,
+			double loadForecast) throws IOException {
+		writer.write("{\"date\":\"").writeIsoTime(time).write('"');
+		this.writeField("currentLoad", currentLoad);
+		this.writeField("loadForecast", loadForecast);
+		writer.write('}');
+	}
+
+	private void writeDate(Date date) throws IOException {
+		if (date == null) {
+			writer.write("null");
+		} else {
+			writer.write('"').writeIsoTime(date.getTime()).write('"');
+		}
+	}
+
+	/**
+	 * @param name
+	 *            Field name, which needs no escaping.
+	 */
+	private void writeField(String name, double value) throws IOException {
+		writer.write(",\"").write(name).write("\":");
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			writer.write("null");
+		} else {
+			writer.writeDouble(value);
+		}
+	}
+}
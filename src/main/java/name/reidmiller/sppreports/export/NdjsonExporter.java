@@ -0,0 +1,32 @@
+package name.reidmiller.sppreports.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Exports a table as newline delimited JSON, one object per row such as
+ * {"time":"2014-01-01T06:00:00Z","currentLoad":21000.5,"loadForecast":21100.0}.
+ * Missing (NaN) and infinite values are written as null.
+ */
+public class NdjsonExporter implements TableExporter {
+	@Override
+	public void write(ExportTable table, OutputStream out) throws IOException {
+		AsciiWriter writer = new AsciiWriter(out);
+		long[] times = table.getTimes();
+		for (int row = 0; row < times.length; row++) {
+			writer.write("{\"time\":\"").writeIsoTime(times[row]).write('"');
+			for (int column = 0; column < table.getNumColumns(); column++) {
+				writer.write(',').writeJsonString(table.getColumnName(column))
+						.write(':');
+				double value = table.getColumn(column)[row];
+				if (Double.isNaN(value) || Double.isInfinite(value)) {
+					writer.write("null");
+				} else {
+					writer.writeDouble(value);
+				}
+			}
+			writer.write("}\n");
+		}
+		writer.flush();
+	}
+}
@@ -0,0 +1,22 @@
+package name.reidmiller.sppreports.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes an {@link ExportTable} in some file format.
+ */
+public interface TableExporter {
+	/**
+	 * Writes the whole table and flushes out, leaving it open.
+	 *
+	 * @param table
+	 *            Table to export.
+	 * @param out
+	 *            Destination, which need not be buffered since exporters
+	 *            write in large blocks.
+	 * @throws IOException
+	 *             If out could not be written to.
+	 */
+	void write(ExportTable table, OutputStream out) throws IOException;
+}
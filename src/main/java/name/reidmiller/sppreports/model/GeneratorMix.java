@@ -4,15 +4,11 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.TimeZone;
 
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
-
 /**
  * The market electricity load for each timestamp and its component fuel
  * sources.
  */
 public class GeneratorMix implements Comparable<GeneratorMix> {
-	private Logger logger = LogManager.getLogger(this.getClass());
 	private Date date;
 	private double coal;
 	private double hydro;
@@ -25,10 +21,8 @@ public class GeneratorMix implements Comparable<GeneratorMix> {
 	@Override
 	public int compareTo(GeneratorMix o) {
 		if (this.date == null && o.getDate() != null) {
-			logger.debug("null date used in GeneratorMix comparison, returning 'less than'");
 			return -1;
 		} else if (this.date != null && o.getDate() == null) {
-			logger.debug("null date used in GeneratorMix comparison, returning 'greater than'");
 			return 1;
 		} else {
 			int dateComp = this.date.compareTo(o.getDate());
@@ -49,7 +43,7 @@ public class GeneratorMix implements Comparable<GeneratorMix> {
 		stringBuf.append("\"GeneratorMix\": {");
 		stringBuf.append("\"date\": \"" + sdf.format(this.date) + "\", ");
 		stringBuf.append("\"coal\": " + this.coal + ", ");
-		stringBuf.append("\"hydro\": " + this.hydro + "\", ");
+		stringBuf.append("\"hydro\": " + this.hydro + ", ");
 		stringBuf.append("\"dieselFuelOil\": " + this.dieselFuelOil + ", ");
 		stringBuf.append("\"naturalGas\": " + this.naturalGas + ", ");
 		stringBuf.append("\"nuclear\": " + this.nuclear + ", ");
@@ -0,0 +1,161 @@
+package name.reidmiller.sppreports.model;
+
+import java.util.Date;
+
+/**
+ * Immutable, compact counterpart of {@link GeneratorMix}: the timestamp is held
+ * as epoch milliseconds rather than a {@link Date}, and there is no logger, so
+ * a record is a single small object that is cheap to create by the hundred
+ * thousand and safe to share between threads. Code written against the
+ * getters and setters of {@link GeneratorMix} can be given
+ * {@link #toGeneratorMix()}.
+ */
+public final class GeneratorMixRecord implements
+		Comparable<GeneratorMixRecord> {
+	private final long time;
+	private final double coal;
+	private final double hydro;
+	private final double dieselFuelOil;
+	private final double naturalGas;
+	private final double nuclear;
+	private final double wind;
+	private final double marketLoad;
+
+	/**
+	 * @param time
+	 *            Timestamp in epoch milliseconds.
+	 */
+	public GeneratorMixRecord(long time, double coal, double hydro,
+			double dieselFuelOil, double naturalGas, double nuclear,
+			double wind, double marketLoad) {
+		this.time = time;
+		this.coal = coal;
+		this.hydro = hydro;
+		this.dieselFuelOil = dieselFuelOil;
+		this.naturalGas = naturalGas;
+		this.nuclear = nuclear;
+		this.wind = wind;
+		this.marketLoad = marketLoad;
+	}
+
+	/**
+	 * @param generatorMix
+	 *            Mutable GeneratorMix with a date set.
+	 * @return Record holding the same values.
+	 */
+	public static GeneratorMixRecord of(GeneratorMix generatorMix) {
+		return new GeneratorMixRecord(generatorMix.getDate().getTime(),
+				generatorMix.getCoal(), generatorMix.getHydro(),
+				generatorMix.getDieselFuelOil(), generatorMix.getNaturalGas(),
+				generatorMix.getNuclear(), generatorMix.getWind(),
+				generatorMix.getMarketLoad());
+	}
+
+	/**
+	 * @return New mutable {@link GeneratorMix} holding the same values.
+	 */
+	public GeneratorMix toGeneratorMix() {
+		GeneratorMix generatorMix = new GeneratorMix();
+		generatorMix.setDate(new Date(time));
+		generatorMix.setCoal(coal);
+		generatorMix.setHydro(hydro);
+		generatorMix.setDieselFuelOil(dieselFuelOil);
+		generatorMix.setNaturalGas(naturalGas);
+		generatorMix.setNuclear(nuclear);
+		generatorMix.setWind(wind);
+		generatorMix.setMarketLoad(marketLoad);
+		return generatorMix;
+	}
+
+	/**
+	 * Orders by time, then market load, as {@link GeneratorMix} does.
+	 */
+	@Override
+	public int compareTo(GeneratorMixRecord o) {
+		if (time != o.time) {
+			return time < o.time ? -1 : 1;
+		}
+		return Double.compare(marketLoad, o.marketLoad);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof GeneratorMixRecord)) {
+			return false;
+		}
+		GeneratorMixRecord o = (GeneratorMixRecord) obj;
+		return time == o.time && Double.compare(coal, o.coal) == 0
+				&& Double.compare(hydro, o.hydro) == 0
+				&& Double.compare(dieselFuelOil, o.dieselFuelOil) == 0
+				&& Double.compare(naturalGas, o.naturalGas) == 0
+				&& Double.compare(nuclear, o.nuclear) == 0
+				&& Double.compare(wind, o.wind) == 0
+				&& Double.compare(marketLoad, o.marketLoad) == 0;
+	}
+
+	@Override
+	public int hashCode() {
+		long hash = time;
+		hash = 31 * hash + Double.doubleToLongBits(coal);
+		hash = 31 * hash + Double.doubleToLongBits(hydro);
+		hash = 31 * hash + Double.doubleToLongBits(dieselFuelOil);
+		hash = 31 * hash + Double.doubleToLongBits(naturalGas);
+		hash = 31 * hash + Double.doubleToLongBits(nuclear);
+		hash = 31 * hash + Double.doubleToLongBits(wind);
+		hash = 31 * hash + Double.doubleToLongBits(marketLoad);
+		return (int) (hash ^ (hash >>> 32));
+	}
+
+	@Override
+	public String toString() {
+		return "{time: " + time + ", coal: " + coal + ", hydro: " + hydro
+				+ ", dieselFuelOil: " + dieselFuelOil + ", naturalGas: "
+				+ naturalGas + ", nuclear: " + nuclear + ", wind: " + wind
+				+ ", marketLoad: " + marketLoad + "}";
+	}
+
+	/**
+	 * @return Timestamp in epoch milliseconds.
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * @return New {@link Date} of the timestamp.
+	 */
+	public Date getDate() {
+		return new Date(time);
+	}
+
+	public double getCoal() {
+		return coal;
+	}
+
+	public double getHydro() {
+		return hydro;
+	}
+
+	public double getDieselFuelOil() {
+		return dieselFuelOil;
+	}
+
+	public double getNaturalGas() {
+		return naturalGas;
+	}
+
+	public double getNuclear() {
+		return nuclear;
+	}
+
+	public double getWind() {
+		return wind;
+	}
+
+	public double getMarketLoad() {
+		return marketLoad;
+	}
+}
@@ -0,0 +1,346 @@
+package name.reidmiller.sppreports.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Columnar time series of {@link GeneratorMix} data. Rather than one object
+ * per timestamp, each column is a primitive array: one of epoch milliseconds
+ * and one per fuel source plus market load. Index i of every column belongs to
+ * the same timestamp. A year of five-minute data takes a fraction of the memory
+ * of the equivalent List of {@link GeneratorMix} objects and can be scanned
+ * column by column.
+ */
+public class GeneratorMixSeries implements Iterable<GeneratorMix> {
+	private static final int DEFAULT_CAPACITY = 16;
+	private int size = 0;
+	private long[] times;
+	private double[] coal;
+	private double[] hydro;
+	private double[] dieselFuelOil;
+	private double[] naturalGas;
+	private double[] nuclear;
+	private double[] wind;
+	private double[] marketLoad;
+
+	public GeneratorMixSeries() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param initialCapacity
+	 *            Number of rows the columns can hold before they need to grow.
+	 */
+	public GeneratorMixSeries(int initialCapacity) {
+		this.times = new long[initialCapacity];
+		this.coal = new double[initialCapacity];
+		this.hydro = new double[initialCapacity];
+		this.dieselFuelOil = new double[initialCapacity];
+		this.naturalGas = new double[initialCapacity];
+		this.nuclear = new double[initialCapacity];
+		this.wind = new double[initialCapacity];
+		this.marketLoad = new double[initialCapacity];
+	}
+
+	/**
+	 * Appends a row to the end of the series. Rows are expected to be added in
+	 * chronological order.
+	 *
+	 * @param time
+	 *            Timestamp of the row in epoch milliseconds.
+	 */
+	public void add(long time, double coal, double hydro,
+			double dieselFuelOil, double naturalGas, double nuclear,
+			double wind, double marketLoad) {
+		if (size == times.length) {
+			this.resize(Math.max(DEFAULT_CAPACITY, size + (size >> 1)));
+		}
+		this.times[size] = time;
+		this.coal[size] = coal;
+		this.hydro[size] = hydro;
+		this.dieselFuelOil[size] = dieselFuelOil;
+		this.naturalGas[size] = naturalGas;
+		this.nuclear[size] = nuclear;
+		this.wind[size] = wind;
+		this.marketLoad[size] = marketLoad;
+		size++;
+	}
+
+	/**
+	 * @param generatorMix
+	 *            Row to append to the end of the series.
+	 */
+	public void add(GeneratorMix generatorMix) {
+		this.add(generatorMix.getDate().getTime(), generatorMix.getCoal(),
+				generatorMix.getHydro(), generatorMix.getDieselFuelOil(),
+				generatorMix.getNaturalGas(), generatorMix.getNuclear(),
+				generatorMix.getWind(), generatorMix.getMarketLoad());
+	}
+
+	/**
+	 * Appends every row of another series to the end of this one.
+	 *
+	 * @param other
+	 *            Series whose rows all come after the rows of this one.
+	 */
+	public void addAll(GeneratorMixSeries other) {
+		if (size + other.size > times.length) {
+			this.resize(size + other.size);
+		}
+		System.arraycopy(other.times, 0, times, size, other.size);
+		System.arraycopy(other.coal, 0, coal, size, other.size);
+		System.arraycopy(other.hydro, 0, hydro, size, other.size);
+		System.arraycopy(other.dieselFuelOil, 0, dieselFuelOil, size,
+				other.size);
+		System.arraycopy(other.naturalGas, 0, naturalGas, size, other.size);
+		System.arraycopy(other.nuclear, 0, nuclear, size, other.size);
+		System.arraycopy(other.wind, 0, wind, size, other.size);
+		System.arraycopy(other.marketLoad, 0, marketLoad, size, other.size);
+		size += other.size;
+	}
+
+	/**
+	 * Derives the hourly shape of a five-minute series, see
+	 * {@link HourlyAggregation}.
+	 *
+	 * @param aggregation
+	 *            How the rows of each hour are combined.
+	 * @return New series with one row per hour.
+	 */
+	public GeneratorMixSeries toHourly(HourlyAggregation aggregation) {
+		GeneratorMixSeries hourly = new GeneratorMixSeries(size / 12 + 1);
+		int from = 0;
+		while (from < size) {
+			int to = HourlyAggregation.getHourEnd(times, from, size);
+			long hourStart = HourlyAggregation.getHourStart(times[from]);
+			if (aggregation.hasValue(times, from, to, hourStart)) {
+				hourly.add(hourStart, aggregation.aggregate(coal, from, to),
+						aggregation.aggregate(hydro, from, to),
+						aggregation.aggregate(dieselFuelOil, from, to),
+						aggregation.aggregate(naturalGas, from, to),
+						aggregation.aggregate(nuclear, from, to),
+						aggregation.aggregate(wind, from, to),
+						aggregation.aggregate(marketLoad, from, to));
+			}
+			from = to;
+		}
+		hourly.trimToSize();
+		return hourly;
+	}
+
+	/**
+	 * @return Number of rows in the series.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Shrinks the columns to exactly {@link #size()} rows.
+	 */
+	public void trimToSize() {
+		if (times.length != size) {
+			this.resize(size);
+		}
+	}
+
+	/**
+	 * @param index
+	 *            Row of the series.
+	 * @return New {@link GeneratorMix} holding a copy of the row's values.
+	 */
+	public GeneratorMix get(int index) {
+		this.checkIndex(index);
+		GeneratorMix generatorMix = new GeneratorMix();
+		generatorMix.setDate(new Date(times[index]));
+		generatorMix.setCoal(coal[index]);
+		generatorMix.setHydro(hydro[index]);
+		generatorMix.setDieselFuelOil(dieselFuelOil[index]);
+		generatorMix.setNaturalGas(naturalGas[index]);
+		generatorMix.setNuclear(nuclear[index]);
+		generatorMix.setWind(wind[index]);
+		generatorMix.setMarketLoad(marketLoad[index]);
+		return generatorMix;
+	}
+
+	/**
+	 * @return Read-only List view of the series for code written against
+	 *         List&lt;GeneratorMix&gt;. A {@link GeneratorMix} is only created
+	 *         when an element is accessed.
+	 */
+	public List<GeneratorMix> asList() {
+		return new GeneratorMixList();
+	}
+
+	/**
+	 * Range counterpart of {@link #asList()}. The bounds of the range are
+	 * found by binary search over the time column, so the cost of the call
+	 * does not grow with the length of the series.
+	 *
+	 * @param startDate
+	 *            Lower bound of rows in the view, inclusive.
+	 * @param endDate
+	 *            Upper bound of rows in the view, inclusive.
+	 * @return Read-only List view of the rows from startDate to endDate.
+	 */
+	public List<GeneratorMix> asList(Date startDate, Date endDate) {
+		int startIndex = this.getStartIndex(startDate.getTime());
+		int endIndex = this.getEndIndex(endDate.getTime());
+		return this.asList().subList(startIndex,
+				Math.max(startIndex, endIndex));
+	}
+
+	/**
+	 * Finds a row by binary search, relying on rows having been added in
+	 * chronological order.
+	 *
+	 * @param time
+	 *            Epoch milliseconds.
+	 * @return Index of the first row at or after time, or {@link #size()} if
+	 *         there is none.
+	 */
+	public int getStartIndex(long time) {
+		return SortedTimes.getStartIndex(times, size, time);
+	}
+
+	/**
+	 * @param time
+	 *            Epoch milliseconds.
+	 * @return Index after the last row at or before time, or 0 if there is
+	 *         none.
+	 */
+	public int getEndIndex(long time) {
+		return SortedTimes.getEndIndex(times, size, time);
+	}
+
+	@Override
+	public Iterator<GeneratorMix> iterator() {
+		return this.asList().iterator();
+	}
+
+	public long getTime(int index) {
+		this.checkIndex(index);
+		return times[index];
+	}
+
+	public double getCoal(int index) {
+		this.checkIndex(index);
+		return coal[index];
+	}
+
+	public double getHydro(int index) {
+		this.checkIndex(index);
+		return hydro[index];
+	}
+
+	public double getDieselFuelOil(int index) {
+		this.checkIndex(index);
+		return dieselFuelOil[index];
+	}
+
+	public double getNaturalGas(int index) {
+		this.checkIndex(index);
+		return naturalGas[index];
+	}
+
+	public double getNuclear(int index) {
+		this.checkIndex(index);
+		return nuclear[index];
+	}
+
+	public double getWind(int index) {
+		this.checkIndex(index);
+		return wind[index];
+	}
+
+	public double getMarketLoad(int index) {
+		this.checkIndex(index);
+		return marketLoad[index];
+	}
+
+	/**
+	 * Column accessors return exactly {@link #size()} values. Once the series
+	 * has been filled and trimmed, as the clients do, that is the backing
+	 * array itself, so scans over a column run without copying and it must not
+	 * be modified. Otherwise it is a copy of the rows added so far.
+	 *
+	 * @return Epoch milliseconds of every row.
+	 */
+	public long[] getTimes() {
+		return times.length == size ? times : Arrays.copyOf(times, size);
+	}
+
+	public double[] getCoal() {
+		return this.getColumn(coal);
+	}
+
+	public double[] getHydro() {
+		return this.getColumn(hydro);
+	}
+
+	public double[] getDieselFuelOil() {
+		return this.getColumn(dieselFuelOil);
+	}
+
+	public double[] getNaturalGas() {
+		return this.getColumn(naturalGas);
+	}
+
+	public double[] getNuclear() {
+		return this.getColumn(nuclear);
+	}
+
+	public double[] getWind() {
+		return this.getColumn(wind);
+	}
+
+	public double[] getMarketLoad() {
+		return this.getColumn(marketLoad);
+	}
+
+	private double[] getColumn(double[] column) {
+		return column.length == size ? column : Arrays.copyOf(column, size);
+	}
+
+	private void resize(int capacity) {
+		times = Arrays.copyOf(times, capacity);
+		coal = Arrays.copyOf(coal, capacity);
+		hydro = Arrays.copyOf(hydro, capacity);
+		dieselFuelOil = Arrays.copyOf(dieselFuelOil, capacity);
+		naturalGas = Arrays.copyOf(naturalGas, capacity);
+		nuclear = Arrays.copyOf(nuclear, capacity);
+		wind = Arrays.copyOf(wind, capacity);
+		marketLoad = Arrays.copyOf(marketLoad, capacity);
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index " + index
+					+ " out of bounds for series of size " + size);
+		}
+	}
+
+	/**
+	 * List view returned by {@link GeneratorMixSeries#asList()}.
+	 */
+	private class GeneratorMixList extends AbstractList<GeneratorMix> implements
+			RandomAccess {
+		@Override
+		public GeneratorMix get(int index) {
+			return GeneratorMixSeries.this.get(index);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+}
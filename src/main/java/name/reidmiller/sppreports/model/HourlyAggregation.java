@@ -0,0 +1,99 @@
+package name.reidmiller.sppreports.model;
+
+/**
+ * Ways of deriving an hourly series from the rows of a five-minute one, so the
+ * {@link SamplingFrequency#HOURLY} shape can be had without downloading the
+ * hourly report. Rows are bucketed by the hour they fall in, from H:00 up to
+ * but excluding H+1:00, and each bucket becomes one row stamped H:00. Buckets
+ * are taken from epoch milliseconds, which the clients have already corrected
+ * for daylight savings, and Central time offsets are whole hours, so the hour
+ * repeated when daylight savings time ends yields two rows just as it does in
+ * the hourly report.
+ */
+public enum HourlyAggregation {
+	/**
+	 * Value of the row at exactly H:00. Hours without that row are left out.
+	 */
+	TOP_OF_HOUR {
+		@Override
+		public boolean hasValue(long[] times, int from, int to, long hourStart) {
+			return times[from] == hourStart;
+		}
+
+		@Override
+		public double aggregate(double[] column, int from, int to) {
+			return column[from];
+		}
+	},
+	/**
+	 * Mean of every row in the hour.
+	 */
+	MEAN {
+		@Override
+		public boolean hasValue(long[] times, int from, int to, long hourStart) {
+			return to > from;
+		}
+
+		@Override
+		public double aggregate(double[] column, int from, int to) {
+			double sum = 0;
+			for (int i = from; i < to; i++) {
+				sum += column[i];
+			}
+			return sum / (to - from);
+		}
+	};
+
+	public static final long MILLIS_PER_HOUR = 60 * 60 * 1000L;
+
+	/**
+	 * @param times
+	 *            Time column of the series.
+	 * @param from
+	 *            First row of the hour.
+	 * @param to
+	 *            Index after the last row of the hour.
+	 * @param hourStart
+	 *            Start of the hour in epoch milliseconds.
+	 * @return True if the hour becomes a row of the hourly series.
+	 */
+	public abstract boolean hasValue(long[] times, int from, int to,
+			long hourStart);
+
+	/**
+	 * @param column
+	 *            Value column of the series.
+	 * @param from
+	 *            First row of the hour.
+	 * @param to
+	 *            Index after the last row of the hour.
+	 * @return Value of the hour.
+	 */
+	public abstract double aggregate(double[] column, int from, int to);
+
+	/**
+	 * @return Start of the hour time falls in, in epoch milliseconds.
+	 */
+	public static long getHourStart(long time) {
+		long remainder = time % MILLIS_PER_HOUR;
+		return time - (remainder < 0 ? remainder + MILLIS_PER_HOUR : remainder);
+	}
+
+	/**
+	 * @param times
+	 *            Chronological time column of the series.
+	 * @param from
+	 *            First row of an hour.
+	 * @param size
+	 *            Number of rows in the series.
+	 * @return Index after the last row in the same hour as row from.
+	 */
+	public static int getHourEnd(long[] times, int from, int size) {
+		long next = getHourStart(times[from]) + MILLIS_PER_HOUR;
+		int to = from + 1;
+		while (to < size && times[to] < next) {
+			to++;
+		}
+		return to;
+	}
+}
@@ -2,15 +2,11 @@ package name.reidmiller.sppreports.model;
 
 import java.util.Date;
 
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
-
 /**
  * Load reports provide both the observed load at a given time as well as the
  * load forecasted for the next observation period.
  */
 public class MarketLoad implements Comparable<MarketLoad> {
-	private Logger logger = LogManager.getLogger(this.getClass());
 	private Date date;
 	private double currentLoad;
 	private double loadForecast;
@@ -18,10 +14,8 @@ public class MarketLoad implements Comparable<MarketLoad> {
 	@Override
 	public int compareTo(MarketLoad o) {
 		if (this.date == null && o.getDate() != null) {
-			logger.debug("null date used in MarketLoad comparison, returning 'less than'");
 			return -1;
 		} else if (this.date != null && o.getDate() == null) {
-			logger.debug("null date used in MarketLoad comparison, returning 'less than'");
 			return 1;
 		} else {
 			int dateComp = this.date.compareTo(o.getDate());
@@ -0,0 +1,109 @@
+package name.reidmiller.sppreports.model;
+
+import java.util.Date;
+
+/**
+ * Immutable, compact counterpart of {@link MarketLoad}: the timestamp is held
+ * as epoch milliseconds rather than a {@link Date}, and there is no logger, so
+ * a record is a single small object that is cheap to create by the hundred
+ * thousand and safe to share between threads. Code written against the
+ * getters and setters of {@link MarketLoad} can be given
+ * {@link #toMarketLoad()}.
+ */
+public final class MarketLoadRecord implements Comparable<MarketLoadRecord> {
+	private final long time;
+	private final double currentLoad;
+	private final double loadForecast;
+
+	/**
+	 * @param time
+	 *            Timestamp in epoch milliseconds.
+	 */
+	public MarketLoadRecord(long time, double currentLoad, double loadForecast) {
+		this.time = time;
+		this.currentLoad = currentLoad;
+		this.loadForecast = loadForecast;
+	}
+
+	/**
+	 * @param marketLoad
+	 *            Mutable MarketLoad with a date set.
+	 * @return Record holding the same values.
+	 */
+	public static MarketLoadRecord of(MarketLoad marketLoad) {
+		return new MarketLoadRecord(marketLoad.getDate().getTime(),
+				marketLoad.getCurrentLoad(), marketLoad.getLoadForecast());
+	}
+
+	/**
+	 * @return New mutable {@link MarketLoad} holding the same values.
+	 */
+	public MarketLoad toMarketLoad() {
+		MarketLoad marketLoad = new MarketLoad();
+		marketLoad.setDate(new Date(time));
+		marketLoad.setCurrentLoad(currentLoad);
+		marketLoad.setLoadForecast(loadForecast);
+		return marketLoad;
+	}
+
+	/**
+	 * Orders by time, then current load, as {@link MarketLoad} does.
+	 */
+	@Override
+	public int compareTo(MarketLoadRecord o) {
+		if (time != o.time) {
+			return time < o.time ? -1 : 1;
+		}
+		return Double.compare(currentLoad, o.currentLoad);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof MarketLoadRecord)) {
+			return false;
+		}
+		MarketLoadRecord o = (MarketLoadRecord) obj;
+		return time == o.time
+				&& Double.compare(currentLoad, o.currentLoad) == 0
+				&& Double.compare(loadForecast, o.loadForecast) == 0;
+	}
+
+	@Override
+	public int hashCode() {
+		long hash = time;
+		hash = 31 * hash + Double.doubleToLongBits(currentLoad);
+		hash = 31 * hash + Double.doubleToLongBits(loadForecast);
+		return (int) (hash ^ (hash >>> 32));
+	}
+
+	@Override
+	public String toString() {
+		return "{time: " + time + ", currentLoad: " + currentLoad
+				+ ", loadForecast: " + loadForecast + "}";
+	}
+
+	/**
+	 * @return Timestamp in epoch milliseconds.
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * @return New {@link Date} of the timestamp.
+	 */
+	public Date getDate() {
+		return new Date(time);
+	}
+
+	public double getCurrentLoad() {
+		return currentLoad;
+	}
+
+	public double getLoadForecast() {
+		return loadForecast;
+	}
+}
@@ -0,0 +1,466 @@
+package name.reidmiller.sppreports.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Columnar time series of {@link MarketLoad} data, backed by one array of
+ * epoch milliseconds and one each of current load and load forecast. Index i of
+ * every column belongs to the same timestamp.
+ * <p>
+ * Each row's load forecast is for the next observation period, so by default
+ * the forecast error analytics compare the forecast of a row with the current
+ * load of the row one sampling period later. Methods taking a forecastLag
+ * compare with the row forecastLag sampling periods later instead, where a lag
+ * of 0 compares values in the same row. Rows are paired by time rather than
+ * by position, taking the sampling period to be the smallest step between
+ * consecutive rows, so a forecast whose observation is missing from the series
+ * is skipped rather than compared with a later row. Error is forecast minus
+ * observed load, so a positive bias means over-forecasting.
+ */
+public class MarketLoadSeries implements Iterable<MarketLoad> {
+	public static final int DEFAULT_FORECAST_LAG = 1;
+	private static final int DEFAULT_CAPACITY = 16;
+	private int size = 0;
+	private long[] times;
+	private double[] currentLoad;
+	private double[] loadForecast;
+
+	public MarketLoadSeries() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param initialCapacity
+	 *            Number of rows the columns can hold before they need to grow.
+	 */
+	public MarketLoadSeries(int initialCapacity) {
+		this.times = new long[initialCapacity];
+		this.currentLoad = new double[initialCapacity];
+		this.loadForecast = new double[initialCapacity];
+	}
+
+	/**
+	 * Appends a row to the end of the series. Rows are expected to be added in
+	 * chronological order.
+	 *
+	 * @param time
+	 *            Timestamp of the row in epoch milliseconds.
+	 */
+	public void add(long time, double currentLoad, double loadForecast) {
+		if (size == times.length) {
+			this.resize(Math.max(DEFAULT_CAPACITY, size + (size >> 1)));
+		}
+		this.times[size] = time;
+		this.currentLoad[size] = currentLoad;
+		this.loadForecast[size] = loadForecast;
+		size++;
+	}
+
+	/**
+	 * @param marketLoad
+	 *            Row to append to the end of the series.
+	 */
+	public void add(MarketLoad marketLoad) {
+		this.add(marketLoad.getDate().getTime(), marketLoad.getCurrentLoad(),
+				marketLoad.getLoadForecast());
+	}
+
+	/**
+	 * Appends every row of another series to the end of this one.
+	 *
+	 * @param other
+	 *            Series whose rows all come after the rows of this one.
+	 */
+	public void addAll(MarketLoadSeries other) {
+		if (size + other.size > times.length) {
+			this.resize(size + other.size);
+		}
+		System.arraycopy(other.times, 0, times, size, other.size);
+		System.arraycopy(other.currentLoad, 0, currentLoad, size, other.size);
+		System.arraycopy(other.loadForecast, 0, loadForecast, size, other.size);
+		size += other.size;
+	}
+
+	/**
+	 * Derives the hourly shape of a five-minute series, see
+	 * {@link HourlyAggregation}.
+	 *
+	 * @param aggregation
+	 *            How the rows of each hour are combined.
+	 * @return New series with one row per hour.
+	 */
+	public MarketLoadSeries toHourly(HourlyAggregation aggregation) {
+		MarketLoadSeries hourly = new MarketLoadSeries(size / 12 + 1);
+		int from = 0;
+		while (from < size) {
+			int to = HourlyAggregation.getHourEnd(times, from, size);
+			long hourStart = HourlyAggregation.getHourStart(times[from]);
+			if (aggregation.hasValue(times, from, to, hourStart)) {
+				hourly.add(hourStart,
+						aggregation.aggregate(currentLoad, from, to),
+						aggregation.aggregate(loadForecast, from, to));
+			}
+			from = to;
+		}
+		hourly.trimToSize();
+		return hourly;
+	}
+
+	/**
+	 * @return Number of rows in the series.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Shrinks the columns to exactly {@link #size()} rows.
+	 */
+	public void trimToSize() {
+		if (times.length != size) {
+			this.resize(size);
+		}
+	}
+
+	/**
+	 * @param index
+	 *            Row of the series.
+	 * @return New {@link MarketLoad} holding a copy of the row's values.
+	 */
+	public MarketLoad get(int index) {
+		this.checkIndex(index);
+		MarketLoad marketLoad = new MarketLoad();
+		marketLoad.setDate(new Date(times[index]));
+		marketLoad.setCurrentLoad(currentLoad[index]);
+		marketLoad.setLoadForecast(loadForecast[index]);
+		return marketLoad;
+	}
+
+	/**
+	 * @return Read-only List view of the series for code written against
+	 *         List&lt;MarketLoad&gt;. A {@link MarketLoad} is only created when
+	 *         an element is accessed.
+	 */
+	public List<MarketLoad> asList() {
+		return new MarketLoadList();
+	}
+
+	/**
+	 * Range counterpart of {@link #asList()}. The bounds of the range are
+	 * found by binary search over the time column, so the cost of the call
+	 * does not grow with the length of the series.
+	 *
+	 * @param startDate
+	 *            Lower bound of rows in the view, inclusive.
+	 * @param endDate
+	 *            Upper bound of rows in the view, inclusive.
+	 * @return Read-only List view of the rows from startDate to endDate.
+	 */
+	public List<MarketLoad> asList(Date startDate, Date endDate) {
+		int startIndex = this.getStartIndex(startDate.getTime());
+		int endIndex = this.getEndIndex(endDate.getTime());
+		return this.asList().subList(startIndex,
+				Math.max(startIndex, endIndex));
+	}
+
+	/**
+	 * Finds a row by binary search, relying on rows having been added in
+	 * chronological order.
+	 *
+	 * @param time
+	 *            Epoch milliseconds.
+	 * @return Index of the first row at or after time, or {@link #size()} if
+	 *         there is none.
+	 */
+	public int getStartIndex(long time) {
+		return SortedTimes.getStartIndex(times, size, time);
+	}
+
+	/**
+	 * @param time
+	 *            Epoch milliseconds.
+	 * @return Index after the last row at or before time, or 0 if there is
+	 *         none.
+	 */
+	public int getEndIndex(long time) {
+		return SortedTimes.getEndIndex(times, size, time);
+	}
+
+	@Override
+	public Iterator<MarketLoad> iterator() {
+		return this.asList().iterator();
+	}
+
+	public long getTime(int index) {
+		this.checkIndex(index);
+		return times[index];
+	}
+
+	public double getCurrentLoad(int index) {
+		this.checkIndex(index);
+		return currentLoad[index];
+	}
+
+	public double getLoadForecast(int index) {
+		this.checkIndex(index);
+		return loadForecast[index];
+	}
+
+	/**
+	 * Column accessors return exactly {@link #size()} values. Once the series
+	 * has been filled and trimmed, as the clients do, that is the backing
+	 * array itself, so scans over a column run without copying and it must not
+	 * be modified. Otherwise it is a copy of the rows added so far.
+	 *
+	 * @return Epoch milliseconds of every row.
+	 */
+	public long[] getTimes() {
+		return times.length == size ? times : Arrays.copyOf(times, size);
+	}
+
+	public double[] getCurrentLoad() {
+		return this.getColumn(currentLoad);
+	}
+
+	public double[] getLoadForecast() {
+		return this.getColumn(loadForecast);
+	}
+
+	/**
+	 * @return Same as {@link #getForecastErrors(int)} with
+	 *         {@value #DEFAULT_FORECAST_LAG}.
+	 */
+	public double[] getForecastErrors() {
+		return this.getForecastErrors(DEFAULT_FORECAST_LAG);
+	}
+
+	/**
+	 * @param forecastLag
+	 *            Number of sampling periods between a forecast and the
+	 *            observation it is compared with.
+	 * @return Forecast minus observed load for each row whose observation is
+	 *         in the series, in row order. Rows at the end of the series or
+	 *         before a gap have no observation and are skipped.
+	 */
+	public double[] getForecastErrors(int forecastLag) {
+		int[] observedRows = this.getObservedRows(forecastLag);
+		double[] errors = new double[this.getNumErrors(observedRows)];
+		int n = 0;
+		for (int j = 0; j < size; j++) {
+			if (observedRows[j] >= 0) {
+				errors[n++] = loadForecast[j] - currentLoad[observedRows[j]];
+			}
+		}
+		return errors;
+	}
+
+	/**
+	 * @return Same as {@link #getMeanAbsolutePercentageError(int)} with
+	 *         {@value #DEFAULT_FORECAST_LAG}.
+	 */
+	public double getMeanAbsolutePercentageError() {
+		return this.getMeanAbsolutePercentageError(DEFAULT_FORECAST_LAG);
+	}
+
+	/**
+	 * @param forecastLag
+	 *            Number of sampling periods between a forecast and the
+	 *            observation it is compared with.
+	 * @return Mean absolute percentage error (MAPE) of the forecasts, in
+	 *         percent. Observations of zero load are skipped. NaN if there is
+	 *         nothing to compare.
+	 */
+	public double getMeanAbsolutePercentageError(int forecastLag) {
+		int[] observedRows = this.getObservedRows(forecastLag);
+		double sum = 0;
+		int count = 0;
+		for (int j = 0; j < size; j++) {
+			if (observedRows[j] < 0) {
+				continue;
+			}
+			double observed = currentLoad[observedRows[j]];
+			if (observed != 0) {
+				sum += Math.abs((loadForecast[j] - observed) / observed);
+				count++;
+			}
+		}
+		return count == 0 ? Double.NaN : 100 * sum / count;
+	}
+
+	/**
+	 * @return Same as {@link #getBias(int)} with
+	 *         {@value #DEFAULT_FORECAST_LAG}.
+	 */
+	public double getBias() {
+		return this.getBias(DEFAULT_FORECAST_LAG);
+	}
+
+	/**
+	 * @param forecastLag
+	 *            Number of sampling periods between a forecast and the
+	 *            observation it is compared with.
+	 * @return Mean forecast error, positive when load is over-forecast. NaN if
+	 *         there is nothing to compare.
+	 */
+	public double getBias(int forecastLag) {
+		int[] observedRows = this.getObservedRows(forecastLag);
+		double sum = 0;
+		int n = 0;
+		for (int j = 0; j < size; j++) {
+			if (observedRows[j] >= 0) {
+				sum += loadForecast[j] - currentLoad[observedRows[j]];
+				n++;
+			}
+		}
+		return n == 0 ? Double.NaN : sum / n;
+	}
+
+	/**
+	 * @param window
+	 *            Number of consecutive errors averaged.
+	 * @return Same as {@link #getRollingMeanAbsoluteError(int, int)} with
+	 *         {@value #DEFAULT_FORECAST_LAG}.
+	 */
+	public double[] getRollingMeanAbsoluteError(int window) {
+		return this.getRollingMeanAbsoluteError(window, DEFAULT_FORECAST_LAG);
+	}
+
+	/**
+	 * @param window
+	 *            Number of consecutive errors averaged.
+	 * @param forecastLag
+	 *            Number of sampling periods between a forecast and the
+	 *            observation it is compared with.
+	 * @return Mean absolute forecast error over each run of window consecutive
+	 *         errors. Element k covers errors k through k + window - 1 of
+	 *         {@link #getForecastErrors(int)}, so a window may span a gap in
+	 *         the series.
+	 */
+	public double[] getRollingMeanAbsoluteError(int window, int forecastLag) {
+		if (window < 1) {
+			throw new IllegalArgumentException("window must be at least 1, was "
+					+ window);
+		}
+		double[] absErrors = this.getForecastErrors(forecastLag);
+		int n = absErrors.length;
+		if (n < window) {
+			return new double[0];
+		}
+		for (int j = 0; j < n; j++) {
+			absErrors[j] = Math.abs(absErrors[j]);
+		}
+
+		// Sliding sum: add the error entering the window, drop the one leaving
+		double[] rolling = new double[n - window + 1];
+		double sum = 0;
+		for (int j = 0; j < window; j++) {
+			sum += absErrors[j];
+		}
+		rolling[0] = sum / window;
+		for (int k = 1; k < rolling.length; k++) {
+			sum += absErrors[k + window - 1] - absErrors[k - 1];
+			rolling[k] = sum / window;
+		}
+		return rolling;
+	}
+
+	/**
+	 * Pairs each row's forecast with the row observed forecastLag sampling
+	 * periods later, walking both through the time column at once.
+	 *
+	 * @return For each row, the index of its observation, or -1 if the series
+	 *         has no row at that time.
+	 */
+	private int[] getObservedRows(int forecastLag) {
+		if (forecastLag < 0) {
+			throw new IllegalArgumentException(
+					"forecastLag can not be negative, was " + forecastLag);
+		}
+		int[] observedRows = new int[size];
+		Arrays.fill(observedRows, -1);
+		long periodMillis = this.getPeriodMillis();
+		if (forecastLag > 0 && periodMillis == 0) {
+			return observedRows;
+		}
+
+		long lagMillis = forecastLag * periodMillis;
+		int k = 0;
+		for (int j = 0; j < size; j++) {
+			long observedTime = times[j] + lagMillis;
+			while (k < size && times[k] < observedTime) {
+				k++;
+			}
+			if (k < size && times[k] == observedTime) {
+				observedRows[j] = k;
+			}
+		}
+		return observedRows;
+	}
+
+	private int getNumErrors(int[] observedRows) {
+		int n = 0;
+		for (int observedRow : observedRows) {
+			if (observedRow >= 0) {
+				n++;
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * @return Smallest step between consecutive rows, or 0 if there are fewer
+	 *         than two distinct times.
+	 */
+	private long getPeriodMillis() {
+		long periodMillis = 0;
+		for (int i = 1; i < size; i++) {
+			long step = times[i] - times[i - 1];
+			if (step > 0 && (periodMillis == 0 || step < periodMillis)) {
+				periodMillis = step;
+			}
+		}
+		return periodMillis;
+	}
+
+	private double[] getColumn(double[] column) {
+		return column.length == size ? column : Arrays.copyOf(column, size);
+	}
+
+	private void resize(int capacity) {
+		times = Arrays.copyOf(times, capacity);
+		currentLoad = Arrays.copyOf(currentLoad, capacity);
+		loadForecast = Arrays.copyOf(loadForecast, capacity);
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index " + index
+					+ " out of bounds for series of size " + size);
+		}
+	}
+
+	/**
+	 * List view returned by {@link MarketLoadSeries#asList()}.
+	 */
+	private class MarketLoadList extends AbstractList<MarketLoad> implements
+			RandomAccess {
+		@Override
+		public MarketLoad get(int index) {
+			return MarketLoadSeries.this.get(index);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package name.reidmiller.sppreports.model;
+
+import org.joda.time.DateTime;
+
+/**
+ * Calendar periods report rows are rolled up into. Periods are bounded in
+ * local time of the report's zone, so a day in which daylight savings time
+ * starts or ends is 23 or 25 hours long.
+ */
+public enum RollupPeriod {
+	HOUR {
+		@Override
+		public DateTime getStart(DateTime time) {
+			return time.hourOfDay().roundFloorCopy();
+		}
+
+		@Override
+		public DateTime getNext(DateTime start) {
+			return start.plusHours(1);
+		}
+	},
+	DAY {
+		@Override
+		public DateTime getStart(DateTime time) {
+			return time.withTimeAtStartOfDay();
+		}
+
+		@Override
+		public DateTime getNext(DateTime start) {
+			return start.plusDays(1).withTimeAtStartOfDay();
+		}
+	},
+	MONTH {
+		@Override
+		public DateTime getStart(DateTime time) {
+			return time.withDayOfMonth(1).withTimeAtStartOfDay();
+		}
+
+		@Override
+		public DateTime getNext(DateTime start) {
+			return start.plusMonths(1).withTimeAtStartOfDay();
+		}
+	};
+
+	/**
+	 * @param time
+	 *            Instant in the zone periods are bounded in.
+	 * @return Start of the period time falls in.
+	 */
+	public abstract DateTime getStart(DateTime time);
+
+	/**
+	 * @param start
+	 *            Start of a period.
+	 * @return Start of the period after it.
+	 */
+	public abstract DateTime getNext(DateTime start);
+}
@@ -6,14 +6,31 @@ package name.reidmiller.sppreports.model;
  * report URLs.
  */
 public enum SamplingFrequency {
-	FIVE_MINUTES("5Minute"), HOURLY("Hourly");
+	FIVE_MINUTES("5Minute", 5 * 60 * 1000L), HOURLY("Hourly", 60 * 60 * 1000L);
 	private String urlPart;
+	private long periodMillis;
 
-	SamplingFrequency(String urlPart) {
+	SamplingFrequency(String urlPart, long periodMillis) {
 		this.urlPart = urlPart;
+		this.periodMillis = periodMillis;
 	}
 
 	public String getUrlPart() {
 		return this.urlPart;
 	}
+
+	/**
+	 * @return Time between consecutive samples in milliseconds.
+	 */
+	public long getPeriodMillis() {
+		return this.periodMillis;
+	}
+
+	/**
+	 * @return Number of samples in a full leap year, which bounds the number
+	 *         of rows in a yearly report.
+	 */
+	public int getMaxSamplesPerYear() {
+		return (int) (366L * 24 * 60 * 60 * 1000 / this.periodMillis);
+	}
 }
@@ -0,0 +1,60 @@
+package name.reidmiller.sppreports.model;
+
+/**
+ * Binary search over a column of chronologically ordered timestamps, as held
+ * by the series classes. Reports repeat a timestamp when daylight savings time
+ * ends, so unlike {@link java.util.Arrays#binarySearch(long[], long)}, which
+ * may land on any of the repeated rows, these find the first and last of them.
+ */
+public final class SortedTimes {
+	private SortedTimes() {
+	}
+
+	/**
+	 * @param times
+	 *            Epoch milliseconds in chronological order.
+	 * @param size
+	 *            Number of timestamps in use at the start of times.
+	 * @param time
+	 *            Epoch milliseconds.
+	 * @return Index of the first timestamp at or after time, or size if there
+	 *         is none.
+	 */
+	public static int getStartIndex(long[] times, int size, long time) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (times[mid] < time) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * @param times
+	 *            Epoch milliseconds in chronological order.
+	 * @param size
+	 *            Number of timestamps in use at the start of times.
+	 * @param time
+	 *            Epoch milliseconds.
+	 * @return Index after the last timestamp at or before time, or 0 if there
+	 *         is none.
+	 */
+	public static int getEndIndex(long[] times, int size, long time) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (times[mid] <= time) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+}
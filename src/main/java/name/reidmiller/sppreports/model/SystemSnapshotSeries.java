@@ -0,0 +1,260 @@
+package name.reidmiller.sppreports.model;
+
+import java.util.Arrays;
+
+/**
+ * Columnar time series pairing generation from the GenerationMix report with
+ * load from the LoadForecast report, aligned by timestamp. Index i of every
+ * column belongs to the same timestamp.
+ * <p>
+ * Series are built by {@link #join(GeneratorMixSeries, MarketLoadSeries)},
+ * which walks both inputs once in timestamp order rather than looking rows up
+ * by key. Where one report has a row the other is missing, the columns from
+ * the missing report are NaN.
+ */
+public class SystemSnapshotSeries {
+	private int size;
+	private int numMatched;
+	private long[] times;
+	private double[] totalGeneration;
+	private double[] marketLoad;
+	private double[] currentLoad;
+	private double[] loadForecast;
+	private boolean[] matched;
+
+	private SystemSnapshotSeries(int capacity) {
+		this.times = new long[capacity];
+		this.totalGeneration = new double[capacity];
+		this.marketLoad = new double[capacity];
+		this.currentLoad = new double[capacity];
+		this.loadForecast = new double[capacity];
+		this.matched = new boolean[capacity];
+	}
+
+	/**
+	 * Same as {@link #join(GeneratorMixSeries, MarketLoadSeries, boolean)},
+	 * keeping rows present in only one of the series.
+	 */
+	public static SystemSnapshotSeries join(GeneratorMixSeries generatorMixes,
+			MarketLoadSeries marketLoads) {
+		return join(generatorMixes, marketLoads, true);
+	}
+
+	/**
+	 * Merge joins two series by timestamp. Both must be in chronological
+	 * order, as every series parsed from a report is. A timestamp repeated in
+	 * both series is paired in order of appearance.
+	 *
+	 * @param generatorMixes
+	 *            Rows of the GenerationMix report.
+	 * @param marketLoads
+	 *            Rows of the LoadForecast report for the same period and
+	 *            sampling frequency.
+	 * @param includeUnmatched
+	 *            True to keep rows present in only one of the series, with
+	 *            NaN in the columns of the other, false to keep only
+	 *            timestamps found in both.
+	 * @return Aligned series.
+	 */
+	public static SystemSnapshotSeries join(GeneratorMixSeries generatorMixes,
+			MarketLoadSeries marketLoads, boolean includeUnmatched) {
+		long[] genTimes = generatorMixes.getTimes();
+		double[] coal = generatorMixes.getCoal();
+		double[] hydro = generatorMixes.getHydro();
+		double[] dieselFuelOil = generatorMixes.getDieselFuelOil();
+		double[] naturalGas = generatorMixes.getNaturalGas();
+		double[] nuclear = generatorMixes.getNuclear();
+		double[] wind = generatorMixes.getWind();
+		double[] genMarketLoad = generatorMixes.getMarketLoad();
+		long[] loadTimes = marketLoads.getTimes();
+		double[] loadCurrent = marketLoads.getCurrentLoad();
+		double[] loadForecastColumn = marketLoads.getLoadForecast();
+		int n = genTimes.length;
+		int m = loadTimes.length;
+
+		SystemSnapshotSeries series = new SystemSnapshotSeries(
+				includeUnmatched ? n + m : Math.min(n, m));
+		int i = 0;
+		int j = 0;
+		while (i < n || j < m) {
+			boolean hasGen = i < n && (j >= m || genTimes[i] <= loadTimes[j]);
+			boolean hasLoad = j < m && (i >= n || loadTimes[j] <= genTimes[i]);
+			boolean matched = hasGen && hasLoad;
+			if (matched) {
+				series.numMatched++;
+			} else if (!includeUnmatched) {
+				i += hasGen ? 1 : 0;
+				j += hasLoad ? 1 : 0;
+				continue;
+			}
+
+			int row = series.size++;
+			series.matched[row] = matched;
+			series.times[row] = hasGen ? genTimes[i] : loadTimes[j];
+			if (hasGen) {
+				series.totalGeneration[row] = coal[i] + hydro[i]
+						+ dieselFuelOil[i] + naturalGas[i] + nuclear[i]
+						+ wind[i];
+				series.marketLoad[row] = genMarketLoad[i];
+				i++;
+			} else {
+				series.totalGeneration[row] = Double.NaN;
+				series.marketLoad[row] = Double.NaN;
+			}
+			if (hasLoad) {
+				series.currentLoad[row] = loadCurrent[j];
+				series.loadForecast[row] = loadForecastColumn[j];
+				j++;
+			} else {
+				series.currentLoad[row] = Double.NaN;
+				series.loadForecast[row] = Double.NaN;
+			}
+		}
+		series.trimToSize();
+		return series;
+	}
+
+	/**
+	 * @return Number of rows in the series.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return Number of rows found in both reports.
+	 */
+	public int getNumMatched() {
+		return numMatched;
+	}
+
+	/**
+	 * @param index
+	 *            Row of the series.
+	 * @return True if the row was found in both reports.
+	 */
+	public boolean isMatched(int index) {
+		this.checkIndex(index);
+		return matched[index];
+	}
+
+	/**
+	 * Finds a row by binary search over the time column.
+	 *
+	 * @param time
+	 *            Epoch milliseconds.
+	 * @return Index of the first row at or after time, or {@link #size()} if
+	 *         there is none.
+	 */
+	public int getStartIndex(long time) {
+		return SortedTimes.getStartIndex(times, size, time);
+	}
+
+	/**
+	 * @param time
+	 *            Epoch milliseconds.
+	 * @return Index after the last row at or before time, or 0 if there is
+	 *         none.
+	 */
+	public int getEndIndex(long time) {
+		return SortedTimes.getEndIndex(times, size, time);
+	}
+
+	public long getTime(int index) {
+		this.checkIndex(index);
+		return times[index];
+	}
+
+	/**
+	 * @return Sum of every fuel source of the GenerationMix row, in MW.
+	 */
+	public double getTotalGeneration(int index) {
+		this.checkIndex(index);
+		return totalGeneration[index];
+	}
+
+	/**
+	 * @return Market load of the GenerationMix row, in MW.
+	 */
+	public double getMarketLoad(int index) {
+		this.checkIndex(index);
+		return marketLoad[index];
+	}
+
+	/**
+	 * @return Current load of the LoadForecast row, in MW.
+	 */
+	public double getCurrentLoad(int index) {
+		this.checkIndex(index);
+		return currentLoad[index];
+	}
+
+	/**
+	 * @return Load forecast of the LoadForecast row, in MW.
+	 */
+	public double getLoadForecast(int index) {
+		this.checkIndex(index);
+		return loadForecast[index];
+	}
+
+	/**
+	 * Column accessors return the backing arrays so that scans over a column
+	 * run without copying. They must not be modified.
+	 *
+	 * @return Epoch milliseconds of every row.
+	 */
+	public long[] getTimes() {
+		return times;
+	}
+
+	public double[] getTotalGeneration() {
+		return totalGeneration;
+	}
+
+	public double[] getMarketLoad() {
+		return marketLoad;
+	}
+
+	public double[] getCurrentLoad() {
+		return currentLoad;
+	}
+
+	public double[] getLoadForecast() {
+		return loadForecast;
+	}
+
+	/**
+	 * @return Market load of the GenerationMix report minus current load of
+	 *         the LoadForecast report for each row, in MW, NaN where either is
+	 *         missing.
+	 */
+	public double[] getLoadDifferences() {
+		double[] differences = new double[size];
+		for (int i = 0; i < size; i++) {
+			differences[i] = marketLoad[i] - currentLoad[i];
+		}
+		return differences;
+	}
+
+	private void trimToSize() {
+		if (times.length != size) {
+			times = Arrays.copyOf(times, size);
+			totalGeneration = Arrays.copyOf(totalGeneration, size);
+			marketLoad = Arrays.copyOf(marketLoad, size);
+			currentLoad = Arrays.copyOf(currentLoad, size);
+			loadForecast = Arrays.copyOf(loadForecast, size);
+			matched = Arrays.copyOf(matched, size);
+		}
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index " + index
+					+ " out of bounds for series of size " + size);
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package name.reidmiller.sppreports.client;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import name.reidmiller.sppreports.model.GeneratorMix;
+import name.reidmiller.sppreports.model.SamplingFrequency;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+public class AsyncReportClientTest {
+	private static final String HEADER = "Date,Coal,Hydro,Diesel Fuel Oil,Natural Gas,Nuclear,Wind,Market Load\r\n";
+
+	@Test
+	public void testRangeAcrossYears() throws Exception {
+		MemoryReportTransport transport = new MemoryReportTransport();
+		GeneratorMixClient client = new GeneratorMixClient(transport);
+		transport.putReport(client.getUrlString(2012, SamplingFrequency.HOURLY),
+				(HEADER + "12/31/2012 16:00,1,0,0,0,0,0,0\r\n"
+						+ "12/31/2012 17:00,2,0,0,0,0,0,0\r\n").getBytes(Charset
+						.forName("US-ASCII")));
+		transport.putReport(client.getUrlString(2013, SamplingFrequency.HOURLY),
+				(HEADER + "1/1/2013 0:00,3,0,0,0,0,0,0\r\n"
+						+ "1/1/2013 1:00,4,0,0,0,0,0,0\r\n").getBytes(Charset
+						.forName("US-ASCII")));
+
+		final CountDownLatch called = new CountDownLatch(1);
+		final AtomicReference<List<GeneratorMix>> result = new AtomicReference<List<GeneratorMix>>();
+		ReportFuture<List<GeneratorMix>> future = client.getAsyncClient()
+				.getInRange(
+						SamplingFrequency.HOURLY,
+						new DateTime(2012, 12, 31, 17, 0,
+								GeneratorMixClient.US_CENTRAL_ZONE).toDate(),
+						new DateTime(2013, 1, 1, 0, 0,
+								GeneratorMixClient.US_CENTRAL_ZONE).toDate());
+		future.addCallback(new ReportCallback<List<GeneratorMix>>() {
+			@Override
+			public void onSuccess(List<GeneratorMix> generatorMixes) {
+				result.set(generatorMixes);
+				called.countDown();
+			}
+
+			@Override
+			public void onFailure(Throwable t) {
+				called.countDown();
+			}
+		});
+
+		List<GeneratorMix> generatorMixes = future.get(10, TimeUnit.SECONDS);
+		assertEquals("Range should span the end of one year and start of the next",
+				2, generatorMixes.size());
+		assertEquals(2, generatorMixes.get(0).getCoal(), 0);
+		assertEquals(3, generatorMixes.get(1).getCoal(), 0);
+		assertTrue("Callback should be notified",
+				called.await(10, TimeUnit.SECONDS));
+		assertSame(generatorMixes, result.get());
+	}
+
+	@Test
+	public void testDeadlineCancelsRequest() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		ReportTransport transport = new LocalReportTransport() {
+			@Override
+			protected byte[] getReport(String urlString) {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return HEADER.getBytes(Charset.forName("US-ASCII"));
+			}
+		};
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			AsyncReportClient<GeneratorMix> client = new AsyncReportClient<GeneratorMix>(
+					new GeneratorMixClient(transport).getEngine(), executor);
+			final CountDownLatch failed = new CountDownLatch(1);
+			final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+			ReportFuture<List<GeneratorMix>> future = client.getForYear(2013,
+					SamplingFrequency.HOURLY).cancelAfter(50,
+					TimeUnit.MILLISECONDS);
+			future.addCallback(new ReportCallback<List<GeneratorMix>>() {
+				@Override
+				public void onSuccess(List<GeneratorMix> generatorMixes) {
+				}
+
+				@Override
+				public void onFailure(Throwable t) {
+					failure.set(t);
+					failed.countDown();
+				}
+			});
+
+			assertTrue("Deadline should fail the request",
+					failed.await(10, TimeUnit.SECONDS));
+			assertTrue(failure.get() instanceof CancellationException);
+			assertTrue(future.isCancelled());
+			try {
+				future.get();
+				fail("Cancelled request should not have a result");
+			} catch (CancellationException e) {
+				// Expected
+			}
+		} finally {
+			release.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testMissingReportFailsFuture() throws Exception {
+		MemoryReportTransport transport = new MemoryReportTransport();
+		GeneratorMixClient client = new GeneratorMixClient(transport);
+		transport.putReport(client.getUrlString(2013, SamplingFrequency.HOURLY),
+				(HEADER + "1/1/2013 0:00,3,0,0,0,0,0,0\r\n").getBytes(Charset
+						.forName("US-ASCII")));
+
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		final CountDownLatch called = new CountDownLatch(1);
+		ReportFuture<List<GeneratorMix>> future = client.getAsyncClient()
+				.getForYear(2012, SamplingFrequency.HOURLY);
+		future.addCallback(new ReportCallback<List<GeneratorMix>>() {
+			@Override
+			public void onSuccess(List<GeneratorMix> result) {
+				called.countDown();
+			}
+
+			@Override
+			public void onFailure(Throwable t) {
+				failure.set(t);
+				called.countDown();
+			}
+		});
+		try {
+			future.get(5, TimeUnit.SECONDS);
+			fail("Missing report should fail the future");
+		} catch (ExecutionException e) {
+			assertTrue("Failure should be the error reading the report",
+					e.getCause() instanceof IOException);
+		}
+		assertTrue(called.await(5, TimeUnit.SECONDS));
+		assertTrue("Callback should be told of the failure",
+				failure.get() instanceof IOException);
+
+		try {
+			client.getAsyncClient()
+					.getInRange(
+							SamplingFrequency.HOURLY,
+							new DateTime(2012, 6, 1, 0, 0,
+									GeneratorMixClient.US_CENTRAL_ZONE).toDate(),
+							new DateTime(2013, 6, 1, 0, 0,
+									GeneratorMixClient.US_CENTRAL_ZONE).toDate())
+					.get(5, TimeUnit.SECONDS);
+			fail("Failure of one year should fail the range");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IOException);
+		}
+	}
+}
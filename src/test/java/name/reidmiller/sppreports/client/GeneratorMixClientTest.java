@@ -2,15 +2,23 @@ package name.reidmiller.sppreports.client;
 
 import static org.junit.Assert.*;
 
+import java.io.File;
+import java.net.URISyntaxException;
+import java.nio.charset.Charset;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 import java.util.TimeZone;
 import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import name.reidmiller.sppreports.model.GeneratorMix;
+import name.reidmiller.sppreports.model.GeneratorMixSeries;
 import name.reidmiller.sppreports.model.SamplingFrequency;
 
 import org.apache.logging.log4j.LogManager;
@@ -173,6 +181,186 @@ public class GeneratorMixClientTest {
 		}
 	}
 
+	@Test
+	public void testParallelGeneratorMixsInRangeMatchesSequential() {
+		try {
+			SimpleDateFormat sdf = new SimpleDateFormat(
+					GeneratorMixClient.GENERATOR_MIX_REPORT_DATE_FORMAT
+							+ " zzzz");
+			sdf.setTimeZone(TimeZone.getTimeZone("America/Chicago"));
+
+			// Three-year range so more than one year is fetched concurrently
+			Date startDate = sdf.parse("11/20/2011 12:00 Central Standard Time");
+			Date endDate = sdf.parse("2/1/2013 12:00 Central Standard Time");
+
+			final CountDownLatch arrivals = new CountDownLatch(3);
+			final AtomicBoolean overlapped = new AtomicBoolean(true);
+			MemoryReportTransport sequentialTransport = new MemoryReportTransport();
+			MemoryReportTransport parallelTransport = new MemoryReportTransport() {
+				@Override
+				protected byte[] getReport(String urlString) {
+					// Each year waits for the others, which only arrive when
+					// the years are fetched concurrently
+					arrivals.countDown();
+					try {
+						if (!arrivals.await(10, TimeUnit.SECONDS)) {
+							overlapped.set(false);
+						}
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					return super.getReport(urlString);
+				}
+			};
+			GeneratorMixClient sequentialClient = new GeneratorMixClient(
+					sequentialTransport);
+			GeneratorMixClient parallelClient = new GeneratorMixClient(
+					parallelTransport);
+			this.putHourlyReports(sequentialClient, sequentialTransport);
+			this.putHourlyReports(parallelClient, parallelTransport);
+
+			List<GeneratorMix> sequential = sequentialClient.getGeneratorMixesInRange(
+					SamplingFrequency.HOURLY, startDate, endDate);
+			List<GeneratorMix> parallel = parallelClient.getGeneratorMixesInRange(
+					SamplingFrequency.HOURLY, startDate, endDate, 3);
+
+			assertTrue("Yearly reports were not fetched concurrently",
+					overlapped.get());
+			assertEquals("Unexpected hourly GeneratorMix list size", 59,
+					sequential.size());
+			assertEquals("Parallel hourly GeneratorMix list size differs from sequential",
+					sequential.size(), parallel.size());
+			for (int i = 0; i < sequential.size(); i++) {
+				assertEquals("Parallel hourly GeneratorMix list out of order at index "
+						+ i, sequential.get(i).getDate(), parallel.get(i)
+						.getDate());
+				assertEquals("Parallel hourly GeneratorMix differs at index " + i,
+						sequential.get(i).getCoal(), parallel.get(i)
+								.getCoal(), 0);
+			}
+			assertEquals("First date in parallel hourly GeneratorMix list is not the start parameter",
+					startDate, parallel.get(0).getDate());
+			assertEquals("Last date in parallel hourly GeneratorMix list is not the end parameter",
+					endDate, parallel.get(parallel.size() - 1).getDate());
+		} catch (ParseException e) {
+			fail("Could not parse date in unit test");
+		}
+	}
+
+	@Test
+	public void testIterateGenMixesForYearCorrectsDst() {
+		try {
+			SimpleDateFormat sdf = new SimpleDateFormat(
+					GeneratorMixClient.GENERATOR_MIX_REPORT_DATE_FORMAT
+							+ " zzzz");
+			sdf.setTimeZone(TimeZone.getTimeZone("America/Chicago"));
+
+			GeneratorMixClient genMixClient = this.getFixtureClient();
+			ReportIterator<GeneratorMix> genMixIterator = genMixClient
+					.iterateGenMixesForYear(2013, SamplingFrequency.HOURLY);
+			List<GeneratorMix> generatorMixes = genMixClient
+					.getGenMixesForYear(2013, SamplingFrequency.HOURLY);
+
+			assertEquals("Unexpected number of rows in hourly fixture", 8,
+					generatorMixes.size());
+			for (GeneratorMix generatorMix : generatorMixes) {
+				assertTrue("Iterator ended before List", genMixIterator.hasNext());
+				GeneratorMix streamed = genMixIterator.next();
+				assertEquals("Iterator and List dates differ",
+						generatorMix.getDate(), streamed.getDate());
+				assertEquals("Iterator and List values differ",
+						generatorMix.getMarketLoad(), streamed.getMarketLoad(),
+						0);
+			}
+			assertFalse("Iterator longer than List", genMixIterator.hasNext());
+
+			assertEquals("1:00 CDT not at expected index",
+					sdf.parse("11/3/2013 1:00 Central Daylight Time"),
+					generatorMixes.get(3).getDate());
+			assertEquals("1:00 CST not at expected index",
+					sdf.parse("11/3/2013 1:00 Central Standard Time"),
+					generatorMixes.get(4).getDate());
+		} catch (ParseException e) {
+			fail("Could not parse date in unit test");
+		}
+	}
+
+	@Test
+	public void testIterateGeneratorMixesInRange() {
+		try {
+			SimpleDateFormat sdf = new SimpleDateFormat(
+					GeneratorMixClient.GENERATOR_MIX_REPORT_DATE_FORMAT
+							+ " zzzz");
+			sdf.setTimeZone(TimeZone.getTimeZone("America/Chicago"));
+			Date startDate = sdf.parse("11/3/2013 0:00 Central Daylight Time");
+			Date endDate = sdf.parse("11/3/2013 2:00 Central Standard Time");
+
+			ReportIterator<GeneratorMix> genMixIterator = this
+					.getFixtureClient().iterateGeneratorMixesInRange(
+							SamplingFrequency.HOURLY, startDate, endDate);
+			List<GeneratorMix> generatorMixes = new ArrayList<GeneratorMix>();
+			while (genMixIterator.hasNext()) {
+				generatorMixes.add(genMixIterator.next());
+			}
+
+			assertEquals("Unexpected hourly GeneratorMix range size", 4,
+					generatorMixes.size());
+			assertEquals("First date in range is not the start parameter",
+					startDate, generatorMixes.get(0).getDate());
+			assertEquals("Last date in range is not the end parameter",
+					endDate, generatorMixes.get(3).getDate());
+		} catch (ParseException e) {
+			fail("Could not parse date in unit test");
+		}
+	}
+
+	@Test
+	public void testGetGenMixSeriesForYearMatchesList() {
+		GeneratorMixClient genMixClient = this.getFixtureClient();
+		List<GeneratorMix> generatorMixes = genMixClient.getGenMixesForYear(
+				2013, SamplingFrequency.HOURLY);
+		GeneratorMixSeries series = genMixClient.getGenMixSeriesForYear(2013,
+				SamplingFrequency.HOURLY);
+
+		assertEquals("Series size differs from List", generatorMixes.size(),
+				series.size());
+		for (int i = 0; i < series.size(); i++) {
+			assertEquals("Series time differs from List at index " + i,
+					generatorMixes.get(i).getDate().getTime(),
+					series.getTime(i));
+			assertEquals("Series wind differs from List at index " + i,
+					generatorMixes.get(i).getWind(), series.getWind(i), 0);
+			assertEquals("Series market load differs from List at index " + i,
+					generatorMixes.get(i).getMarketLoad(),
+					series.getMarketLoad(i), 0);
+		}
+	}
+
+	@Test
+	public void testMissingReportIsEmpty() {
+		GeneratorMixClient genMixClient = new GeneratorMixClient(
+				new MemoryReportTransport());
+		assertTrue("Report missing from transport should give no rows",
+				genMixClient.getGenMixesForYear(2013, SamplingFrequency.HOURLY)
+						.isEmpty());
+		assertTrue("Report missing from transport should give empty series",
+				genMixClient.getGenMixSeriesForYear(2013,
+						SamplingFrequency.HOURLY).isEmpty());
+	}
+
+	/**
+	 * @return GeneratorMixClient which reads the recorded reports in the test
+	 *         resources instead of spp.org.
+	 */
+	private GeneratorMixClient getFixtureClient() {
+		try {
+			File resources = new File(this.getClass().getResource("/").toURI());
+			return new GeneratorMixClient(new FileReportTransport(resources));
+		} catch (URISyntaxException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
 	@Test
 	public void testGetUrlString() {
 		GeneratorMixClient genMixClient = new GeneratorMixClient();
@@ -182,4 +370,32 @@ public class GeneratorMixClientTest {
 				"http://www.spp.org/GenerationMix/2014_5Minute_GenMix.csv",
 				urlString);
 	}
+
+	/**
+	 * Puts hourly reports for 2011 through 2013 with rows at midnight and noon
+	 * on the 1st and 20th of each month.
+	 */
+	private void putHourlyReports(GeneratorMixClient genMixClient,
+			MemoryReportTransport transport) {
+		for (int year = 2011; year <= 2013; year++) {
+			StringBuilder report = new StringBuilder(
+					"Date,Coal,Hydro,Diesel Fuel Oil,Natural Gas,Nuclear,Wind,Market Load\r\n");
+			for (int month = 1; month <= 12; month++) {
+				for (int day : new int[] { 1, 20 }) {
+					for (int hour : new int[] { 0, 12 }) {
+						int value = year * 10000 + month * 100 + day + hour;
+						report.append(month + "/" + day + "/" + year + " "
+								+ hour + ":00");
+						for (int i = 0; i < 7; i++) {
+							report.append(",").append(value);
+						}
+						report.append("\r\n");
+					}
+				}
+			}
+			transport.putReport(
+					genMixClient.getUrlString(year, SamplingFrequency.HOURLY),
+					report.toString().getBytes(Charset.forName("US-ASCII")));
+		}
+	}
 }
@@ -0,0 +1,148 @@
+package name.reidmiller.sppreports.client;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class HttpReportTransportTest {
+	private static final String REPORT = "Date,Load\n1/1/2014 0:00,1\n";
+	private HttpServer server;
+	private AtomicInteger requests = new AtomicInteger();
+	private AtomicInteger failuresLeft = new AtomicInteger();
+	private volatile int stallMillis = 0;
+	private Set<Integer> clientPorts = Collections
+			.synchronizedSet(new HashSet<Integer>());
+
+	@Before
+	public void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				requests.incrementAndGet();
+				clientPorts.add(exchange.getRemoteAddress().getPort());
+				if (failuresLeft.getAndDecrement() > 0) {
+					exchange.sendResponseHeaders(503, -1);
+					exchange.close();
+					return;
+				}
+				if (stallMillis > 0) {
+					try {
+						Thread.sleep(stallMillis);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+
+				byte[] bytes = REPORT.getBytes("UTF-8");
+				if ("gzip".equals(exchange.getRequestHeaders().getFirst(
+						"Accept-Encoding"))) {
+					ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+					GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+					gzip.write(bytes);
+					gzip.close();
+					bytes = compressed.toByteArray();
+					exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+				}
+				exchange.sendResponseHeaders(200, bytes.length);
+				OutputStream out = exchange.getResponseBody();
+				out.write(bytes);
+				out.close();
+				exchange.close();
+			}
+		});
+		server.start();
+	}
+
+	@After
+	public void tearDown() {
+		server.stop(0);
+	}
+
+	@Test
+	public void testGzipDecoded() throws IOException {
+		HttpReportTransport transport = new HttpReportTransport();
+		assertEquals("Compressed report not decoded", REPORT,
+				this.fetch(transport));
+	}
+
+	@Test
+	public void testRetriesServerErrors() throws IOException {
+		failuresLeft.set(2);
+		HttpReportTransport transport = new HttpReportTransport(1000, 1000, 2,
+				10);
+		assertEquals("Report not fetched after retries", REPORT,
+				this.fetch(transport));
+		assertEquals("Expected two failed requests and one success", 3,
+				requests.get());
+	}
+
+	@Test
+	public void testRetriesAreBounded() throws IOException {
+		failuresLeft.set(5);
+		HttpReportTransport transport = new HttpReportTransport(1000, 1000, 1,
+				10);
+		ReportResponse response = transport.fetch(new ReportRequest(this
+				.getUrlString()));
+		assertEquals("Last failure should be returned", 503,
+				response.getStatusCode());
+		response.close();
+		assertEquals("Expected the request and a single retry", 2,
+				requests.get());
+	}
+
+	@Test(expected = SocketTimeoutException.class)
+	public void testReadTimeout() throws IOException {
+		stallMillis = 2000;
+		this.fetch(new HttpReportTransport(1000, 200, 0, 10));
+	}
+
+	@Test
+	public void testConnectionReused() throws IOException {
+		HttpReportTransport transport = new HttpReportTransport();
+		for (int i = 0; i < 3; i++) {
+			assertEquals(REPORT, this.fetch(transport));
+		}
+		assertEquals("Keep-alive connection should serve every fetch", 1,
+				clientPorts.size());
+	}
+
+	private String fetch(HttpReportTransport transport) throws IOException {
+		String urlString = this.getUrlString();
+		InputStream in = transport.fetch(new ReportRequest(urlString))
+				.getBodyIfOk(urlString);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			byte[] buf = new byte[1024];
+			for (int n = in.read(buf); n != -1; n = in.read(buf)) {
+				out.write(buf, 0, n);
+			}
+		} finally {
+			in.close();
+		}
+		return out.toString("UTF-8");
+	}
+
+	private String getUrlString() {
+		return "http://127.0.0.1:" + server.getAddress().getPort()
+				+ "/GenerationMix/2014_5Minute_GenMix.csv";
+	}
+}
@@ -0,0 +1,154 @@
+package name.reidmiller.sppreports.client;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicLong;
+
+import name.reidmiller.sppreports.model.GeneratorMix;
+import name.reidmiller.sppreports.model.SamplingFrequency;
+
+import org.joda.time.DateTime;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class IncrementalGeneratorMixClientTest {
+	private static final String HEADER = "Date,Coal,Hydro,Diesel Fuel Oil,Natural Gas,Nuclear,Wind,Market Load\n";
+	private HttpServer server;
+	private AtomicLong bytesServed = new AtomicLong();
+	private volatile String body = HEADER;
+	private int year = DateTime.now(GeneratorMixClient.US_CENTRAL_ZONE)
+			.getYear();
+
+	@Before
+	public void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				byte[] bytes = body.getBytes("UTF-8");
+				String range = exchange.getRequestHeaders().getFirst("Range");
+				int start = 0;
+				if (range != null) {
+					start = Integer.parseInt(range.substring(
+							"bytes=".length(), range.length() - 1));
+				}
+				if (start >= bytes.length && range != null) {
+					exchange.getResponseHeaders().add("Content-Range",
+							"bytes */" + bytes.length);
+					exchange.sendResponseHeaders(416, -1);
+				} else {
+					if (range != null) {
+						exchange.getResponseHeaders().add(
+								"Content-Range",
+								"bytes " + start + "-" + (bytes.length - 1)
+										+ "/" + bytes.length);
+					}
+					byte[] slice = Arrays.copyOfRange(bytes, start,
+							bytes.length);
+					// Counted before the client can see the response
+					bytesServed.addAndGet(slice.length);
+					exchange.sendResponseHeaders(range == null ? 200 : 206,
+							slice.length);
+					OutputStream out = exchange.getResponseBody();
+					out.write(slice);
+					out.close();
+				}
+				exchange.close();
+			}
+		});
+		server.start();
+	}
+
+	@After
+	public void tearDown() {
+		server.stop(0);
+	}
+
+	@Test
+	public void testOnlyAppendedRowsReturned() throws ParseException {
+		SimpleDateFormat sdf = new SimpleDateFormat(
+				GeneratorMixClient.GENERATOR_MIX_REPORT_DATE_FORMAT);
+		sdf.setTimeZone(TimeZone.getTimeZone("America/Chicago"));
+		IncrementalGeneratorMixClient incrementalClient = this
+				.getIncrementalClient();
+
+		body = body + "1/1/" + year + " 0:00,1,2,3,4,5,6,21\n"
+				+ "1/1/" + year + " 0:05,1,2,3,4,5,7,22\n";
+		List<GeneratorMix> first = incrementalClient.getNewGeneratorMixes();
+		assertEquals("First poll should return every row", 2, first.size());
+		assertEquals(sdf.parse("1/1/" + year + " 0:05"),
+				incrementalClient.getLastDate());
+
+		long servedBefore = bytesServed.get();
+		String appended = "1/1/" + year + " 0:10,1,2,3,4,5,8,23\n";
+		// Second row is still being written and has no line break yet
+		String partial = "1/1/" + year + " 0:15,1,2";
+		body = body + appended + partial;
+		List<GeneratorMix> second = incrementalClient.getNewGeneratorMixes();
+		assertEquals("Second poll should only return the appended row", 1,
+				second.size());
+		assertEquals(sdf.parse("1/1/" + year + " 0:10"), second.get(0)
+				.getDate());
+		assertEquals(8, second.get(0).getWind(), 0);
+		assertEquals("Second poll should only download new bytes",
+				appended.length() + partial.length(),
+				bytesServed.get() - servedBefore);
+
+		body = body + ",3,4,5,9,24\n";
+		List<GeneratorMix> third = incrementalClient.getNewGeneratorMixes();
+		assertEquals("Partial row should be returned once complete", 1,
+				third.size());
+		assertEquals(24, third.get(0).getMarketLoad(), 0);
+
+		assertTrue("Poll without new rows should return nothing",
+				incrementalClient.getNewGeneratorMixes().isEmpty());
+	}
+
+	@Test
+	public void testReplacedReportNotReturnedTwice() {
+		IncrementalGeneratorMixClient incrementalClient = this
+				.getIncrementalClient();
+
+		body = body + "1/1/" + year + " 0:00,1,2,3,4,5,6,21\n"
+				+ "1/1/" + year + " 0:05,1,2,3,4,5,7,22\n";
+		assertEquals(2, incrementalClient.getNewGeneratorMixes().size());
+
+		// Report rewritten shorter than before, with one new row
+		body = HEADER + "1/1/" + year + " 0:05,1,2,3,4,5,7,22\n"
+				+ "1/1/" + year + " 0:10,1,2,3,4,5,8,23\n";
+		body = body.replace("Market Load", "Load");
+		List<GeneratorMix> generatorMixes = incrementalClient
+				.getNewGeneratorMixes();
+		assertEquals("Only the row newer than the last one seen is new", 1,
+				generatorMixes.size());
+		assertEquals(23, generatorMixes.get(0).getMarketLoad(), 0);
+	}
+
+	private IncrementalGeneratorMixClient getIncrementalClient() {
+		final String baseUrl = "http://127.0.0.1:"
+				+ server.getAddress().getPort() + "/";
+		GeneratorMixClient genMixClient = new GeneratorMixClient() {
+			@Override
+			public String getUrlString(int year,
+					SamplingFrequency samplingFrequency) {
+				return baseUrl + year + "_" + samplingFrequency.getUrlPart()
+						+ "_GenMix.csv";
+			}
+		};
+		return new IncrementalGeneratorMixClient(genMixClient,
+				SamplingFrequency.FIVE_MINUTES, year);
+	}
+}
@@ -0,0 +1,68 @@
+package name.reidmiller.sppreports.client;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.Charset;
+import java.util.List;
+
+import name.reidmiller.sppreports.model.MarketLoad;
+import name.reidmiller.sppreports.model.SamplingFrequency;
+
+import org.junit.Test;
+
+public class IncrementalReportClientTest {
+	private static final Charset US_ASCII = Charset.forName("US-ASCII");
+
+	@Test
+	public void testMarketLoadsPolledIncrementally() {
+		MemoryReportTransport transport = new MemoryReportTransport();
+		LoadForecastClient loadForecastClient = new LoadForecastClient(
+				transport);
+		String urlString = loadForecastClient.getUrlString(2013,
+				SamplingFrequency.FIVE_MINUTES);
+		String report = "Date,Current Load,Load Forecast\r\n"
+				+ "1/1/2013 0:00,100,110\r\n";
+		transport.putReport(urlString, report.getBytes(US_ASCII));
+		IncrementalMarketLoadClient incrementalClient = new IncrementalMarketLoadClient(
+				loadForecastClient, SamplingFrequency.FIVE_MINUTES, 2013);
+
+		assertEquals("First poll should return every row", 1,
+				incrementalClient.getNewMarketLoads().size());
+		report = report + "1/1/2013 0:05,120,115\r\n";
+		transport.putReport(urlString, report.getBytes(US_ASCII));
+		List<MarketLoad> marketLoads = incrementalClient.getNewMarketLoads();
+		assertEquals("Second poll should only return the appended row", 1,
+				marketLoads.size());
+		assertEquals(120, marketLoads.get(0).getCurrentLoad(), 0);
+		assertEquals(marketLoads.get(0).getDate(),
+				incrementalClient.getLastDate());
+		assertTrue("Poll without new rows should return nothing",
+				incrementalClient.getNewMarketLoads().isEmpty());
+	}
+
+	@Test
+	public void testUnparsableRowSkipped() {
+		MemoryReportTransport transport = new MemoryReportTransport();
+		LoadForecastClient loadForecastClient = new LoadForecastClient(
+				transport);
+		String urlString = loadForecastClient.getUrlString(2013,
+				SamplingFrequency.FIVE_MINUTES);
+		String report = "Date,Current Load,Load Forecast\r\n"
+				+ "1/1/2013 0:00,100,110\r\n" + "1/1/2013 0:05,n/a,115\r\n"
+				+ "1/1/2013 0:10,130,125\r\n";
+		transport.putReport(urlString, report.getBytes(US_ASCII));
+		IncrementalMarketLoadClient incrementalClient = new IncrementalMarketLoadClient(
+				loadForecastClient, SamplingFrequency.FIVE_MINUTES, 2013);
+
+		List<MarketLoad> marketLoads = incrementalClient.getNewMarketLoads();
+		assertEquals("Rows around the unparsable one should be returned", 2,
+				marketLoads.size());
+		assertEquals(130, marketLoads.get(1).getCurrentLoad(), 0);
+		report = report + "1/1/2013 0:15,140,135\r\n";
+		transport.putReport(urlString, report.getBytes(US_ASCII));
+		marketLoads = incrementalClient.getNewMarketLoads();
+		assertEquals("Next poll should only return the appended row", 1,
+				marketLoads.size());
+		assertEquals(140, marketLoads.get(0).getCurrentLoad(), 0);
+	}
+}
@@ -0,0 +1,171 @@
+package name.reidmiller.sppreports.client;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import name.reidmiller.sppreports.model.SamplingFrequency;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LiveReportFeedTest {
+	private ScheduledExecutorService scheduler;
+	private ExecutorService publisher;
+
+	@Before
+	public void setUp() {
+		scheduler = Executors.newSingleThreadScheduledExecutor();
+		publisher = Executors.newCachedThreadPool();
+	}
+
+	@After
+	public void tearDown() {
+		scheduler.shutdownNow();
+		publisher.shutdownNow();
+	}
+
+	@Test
+	public void testNewRecordsReachEveryListener() throws InterruptedException {
+		LiveReportFeed<Integer> feed = this.getFeed(new QueuePoller(
+				Arrays.asList(1, 2), Arrays.asList(3)));
+		BlockingQueue<List<Integer>> first = new LinkedBlockingQueue<List<Integer>>();
+		BlockingQueue<List<Integer>> second = new LinkedBlockingQueue<List<Integer>>();
+		feed.addListener(this.getListener(first));
+		feed.addListener(this.getListener(second));
+		feed.start();
+		try {
+			for (BlockingQueue<List<Integer>> batches : Arrays.asList(first,
+					second)) {
+				assertEquals("First poll should publish the catch-up batch",
+						Arrays.asList(1, 2), batches.poll(5, TimeUnit.SECONDS));
+				assertEquals("Later poll should publish only new records",
+						Arrays.asList(3), batches.poll(5, TimeUnit.SECONDS));
+			}
+			Thread.sleep(100);
+			assertTrue("Polls without new records should publish nothing",
+					first.isEmpty());
+		} finally {
+			feed.stop();
+		}
+	}
+
+	@Test
+	public void testFailedPollRetried() throws InterruptedException {
+		final AtomicInteger polls = new AtomicInteger();
+		LiveReportFeed<Integer> feed = this.getFeed(new ReportPoller<Integer>() {
+			@Override
+			public List<Integer> poll() throws IOException {
+				if (polls.incrementAndGet() <= 2) {
+					throw new IOException("HTTP 503");
+				}
+				return polls.get() == 3 ? Arrays.asList(7) : Collections
+						.<Integer> emptyList();
+			}
+		});
+		BlockingQueue<List<Integer>> batches = new LinkedBlockingQueue<List<Integer>>();
+		feed.addListener(this.getListener(batches));
+		feed.start();
+		try {
+			assertEquals("Records should arrive once polling recovers",
+					Arrays.asList(7), batches.poll(5, TimeUnit.SECONDS));
+		} finally {
+			feed.stop();
+		}
+		assertTrue("Both failures should have been retried", polls.get() >= 3);
+	}
+
+	@Test
+	public void testSlowListenerDoesNotBlockOthers()
+			throws InterruptedException {
+		LiveReportFeed<Integer> feed = this.getFeed(new QueuePoller(
+				Arrays.asList(1), Arrays.asList(2)));
+		final CountDownLatch release = new CountDownLatch(1);
+		feed.addListener(new ReportListener<Integer>() {
+			@Override
+			public void handleRecords(List<Integer> records) {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		BlockingQueue<List<Integer>> batches = new LinkedBlockingQueue<List<Integer>>();
+		feed.addListener(this.getListener(batches));
+		feed.start();
+		try {
+			assertEquals(Arrays.asList(1), batches.poll(5, TimeUnit.SECONDS));
+			assertEquals("Blocked listener should not hold up the others",
+					Arrays.asList(2), batches.poll(5, TimeUnit.SECONDS));
+		} finally {
+			release.countDown();
+			feed.stop();
+		}
+	}
+
+	@Test
+	public void testStoppedFeedNotRestarted() {
+		LiveReportFeed<Integer> feed = new LiveReportFeed<Integer>(
+				new QueuePoller(), SamplingFrequency.HOURLY);
+		feed.start();
+		feed.stop();
+		try {
+			feed.start();
+			fail("Feed whose executors were shut down should not restart");
+		} catch (IllegalStateException e) {
+			assertFalse(feed.isRunning());
+		}
+	}
+
+	/**
+	 * @return Feed polling every 50ms without jitter, retrying after 10ms.
+	 */
+	private LiveReportFeed<Integer> getFeed(ReportPoller<Integer> poller) {
+		return new LiveReportFeed<Integer>(poller, 50, 0, 0, 10, scheduler,
+				publisher);
+	}
+
+	private ReportListener<Integer> getListener(
+			final BlockingQueue<List<Integer>> batches) {
+		return new ReportListener<Integer>() {
+			@Override
+			public void handleRecords(List<Integer> records) {
+				batches.add(records);
+			}
+		};
+	}
+
+	/**
+	 * Poller returning one batch per poll, then nothing.
+	 */
+	private static class QueuePoller implements ReportPoller<Integer> {
+		private List<List<Integer>> batches = new ArrayList<List<Integer>>();
+
+		@SafeVarargs
+		QueuePoller(List<Integer>... batches) {
+			this.batches.addAll(Arrays.asList(batches));
+		}
+
+		@Override
+		public synchronized List<Integer> poll() {
+			if (batches.isEmpty()) {
+				return Collections.emptyList();
+			}
+			return batches.remove(0);
+		}
+	}
+}
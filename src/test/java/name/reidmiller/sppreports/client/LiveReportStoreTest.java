@@ -0,0 +1,93 @@
+package name.reidmiller.sppreports.client;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import name.reidmiller.sppreports.model.GeneratorMix;
+import name.reidmiller.sppreports.model.SamplingFrequency;
+
+import org.junit.Test;
+
+public class LiveReportStoreTest {
+	private static final String HEADER = "Date,Coal,Hydro,Diesel Fuel Oil,Natural Gas,Nuclear,Wind,Market Load\r\n";
+
+	@Test
+	public void testRefreshAppendsNewRows() {
+		MemoryReportTransport transport = new MemoryReportTransport();
+		GeneratorMixClient client = new GeneratorMixClient(transport);
+		String urlString = client.getUrlString(2013, SamplingFrequency.HOURLY);
+		String report = HEADER + "1/1/2013 0:00,1,0,0,0,0,0,0\r\n"
+				+ "1/1/2013 1:00,2,0,0,0,0,0,0\r\n";
+		transport.putReport(urlString, report.getBytes(Charset
+				.forName("US-ASCII")));
+		LiveReportStore<GeneratorMix> store = new LiveReportStore<GeneratorMix>(
+				client.getEngine(), SamplingFrequency.HOURLY);
+
+		assertEquals(2, store.refresh(2013));
+		ReportTable before = store.getSnapshot();
+		transport.putReport(urlString, (report
+				+ "1/1/2013 2:00,3,0,0,0,0,0,0\r\n").getBytes(Charset
+				.forName("US-ASCII")));
+		assertEquals("Only the newly published row should be appended", 1,
+				store.refresh(2013));
+		assertEquals("Nothing new should append nothing", 0,
+				store.refresh(2013));
+
+		List<GeneratorMix> generatorMixes = store.asList();
+		assertEquals(3, generatorMixes.size());
+		assertEquals(3, generatorMixes.get(2).getCoal(), 0);
+		assertEquals("Earlier snapshot should not change", 2, before.size());
+	}
+
+	@Test
+	public void testReadersSeeConsistentSnapshots() throws Exception {
+		final LiveReportStore<GeneratorMix> store = new LiveReportStore<GeneratorMix>(
+				new GeneratorMixClient(new MemoryReportTransport())
+						.getEngine(), SamplingFrequency.FIVE_MINUTES);
+		final AtomicBoolean done = new AtomicBoolean(false);
+		final AtomicReference<String> problem = new AtomicReference<String>();
+		Thread reader = new Thread() {
+			@Override
+			public void run() {
+				int lastSize = 0;
+				while (!done.get() && problem.get() == null) {
+					ReportTable snapshot = store.getSnapshot();
+					if (snapshot.size() < lastSize) {
+						problem.set("Snapshot shrank");
+					}
+					lastSize = snapshot.size();
+					for (int i = 0; i < snapshot.size(); i++) {
+						if (snapshot.getTime(i) != i
+								|| snapshot.getValue(i, 6) != i) {
+							problem.set("Row " + i + " not fully written");
+						}
+					}
+				}
+			}
+		};
+		reader.start();
+
+		for (int i = 0; i < 20000; i++) {
+			final int value = i;
+			store.handleRow(i, new ReportRow() {
+				@Override
+				public double getValue(int column) {
+					return value;
+				}
+			});
+			if (i % 7 == 0) {
+				store.publish();
+			}
+		}
+		store.publish();
+		done.set(true);
+		reader.join();
+
+		assertNull(problem.get(), problem.get());
+		assertEquals(20000, store.size());
+	}
+}
@@ -2,6 +2,7 @@ package name.reidmiller.sppreports.client;
 
 import static org.junit.Assert.*;
 
+import java.nio.charset.Charset;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
@@ -9,6 +10,9 @@ import java.util.Date;
 import java.util.List;
 import java.util.TimeZone;
 import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import name.reidmiller.sppreports.model.MarketLoad;
 import name.reidmiller.sppreports.model.SamplingFrequency;
@@ -106,6 +110,72 @@ public class LoadForecastClientTest {
 		}
 	}
 
+	@Test
+	public void testParallelMarketLoadsInRangeMatchesSequential() {
+		try {
+			SimpleDateFormat sdf = new SimpleDateFormat(
+					LoadForecastClient.LOAD_FORECAST_REPORT_DATE_FORMAT
+							+ " zzzz");
+			sdf.setTimeZone(TimeZone.getTimeZone("America/Chicago"));
+
+			// Three-year range so more than one year is fetched concurrently
+			Date startDate = sdf.parse("11/20/2011 12:00 Central Standard Time");
+			Date endDate = sdf.parse("2/1/2013 12:00 Central Standard Time");
+
+			final CountDownLatch arrivals = new CountDownLatch(3);
+			final AtomicBoolean overlapped = new AtomicBoolean(true);
+			MemoryReportTransport sequentialTransport = new MemoryReportTransport();
+			MemoryReportTransport parallelTransport = new MemoryReportTransport() {
+				@Override
+				protected byte[] getReport(String urlString) {
+					// Each year waits for the others, which only arrive when
+					// the years are fetched concurrently
+					arrivals.countDown();
+					try {
+						if (!arrivals.await(10, TimeUnit.SECONDS)) {
+							overlapped.set(false);
+						}
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					return super.getReport(urlString);
+				}
+			};
+			LoadForecastClient sequentialClient = new LoadForecastClient(
+					sequentialTransport);
+			LoadForecastClient parallelClient = new LoadForecastClient(
+					parallelTransport);
+			this.putHourlyReports(sequentialClient, sequentialTransport);
+			this.putHourlyReports(parallelClient, parallelTransport);
+
+			List<MarketLoad> sequential = sequentialClient.getMarketLoadsInRange(
+					SamplingFrequency.HOURLY, startDate, endDate);
+			List<MarketLoad> parallel = parallelClient.getMarketLoadsInRange(
+					SamplingFrequency.HOURLY, startDate, endDate, 3);
+
+			assertTrue("Yearly reports were not fetched concurrently",
+					overlapped.get());
+			assertEquals("Unexpected hourly MarketLoad list size", 59,
+					sequential.size());
+			assertEquals("Parallel hourly MarketLoad list size differs from sequential",
+					sequential.size(), parallel.size());
+			for (int i = 0; i < sequential.size(); i++) {
+				assertEquals("Parallel hourly MarketLoad list out of order at index "
+						+ i, sequential.get(i).getDate(), parallel.get(i)
+						.getDate());
+				assertEquals("Parallel hourly MarketLoad differs at index " + i,
+						sequential.get(i).getCurrentLoad(), parallel.get(i)
+								.getCurrentLoad(), 0);
+			}
+			assertEquals("First date in parallel hourly MarketLoad list is not the start parameter",
+					startDate, parallel.get(0).getDate());
+			assertEquals("Last date in parallel hourly MarketLoad list is not the end parameter",
+					endDate, parallel.get(parallel.size() - 1).getDate());
+		} catch (ParseException e) {
+			fail("Could not parse date in unit test");
+		}
+	}
+
 	@Test
 	public void testGetUrlString() {
 		LoadForecastClient loadForecastClient = new LoadForecastClient();
@@ -115,4 +185,32 @@ public class LoadForecastClientTest {
 				"http://www.spp.org/LoadForecast/2014_5Minute_Load.csv",
 				urlString);
 	}
+
+	/**
+	 * Puts hourly reports for 2011 through 2013 with rows at midnight and noon
+	 * on the 1st and 20th of each month.
+	 */
+	private void putHourlyReports(LoadForecastClient loadForecastClient,
+			MemoryReportTransport transport) {
+		for (int year = 2011; year <= 2013; year++) {
+			StringBuilder report = new StringBuilder(
+					"Date,Current Load,Load Forecast\r\n");
+			for (int month = 1; month <= 12; month++) {
+				for (int day : new int[] { 1, 20 }) {
+					for (int hour : new int[] { 0, 12 }) {
+						int value = year * 10000 + month * 100 + day + hour;
+						report.append(month + "/" + day + "/" + year + " "
+								+ hour + ":00");
+						for (int i = 0; i < 2; i++) {
+							report.append(",").append(value);
+						}
+						report.append("\r\n");
+					}
+				}
+			}
+			transport.putReport(
+					loadForecastClient.getUrlString(year, SamplingFrequency.HOURLY),
+					report.toString().getBytes(Charset.forName("US-ASCII")));
+		}
+	}
 }
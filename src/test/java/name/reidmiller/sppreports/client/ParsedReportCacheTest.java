@@ -0,0 +1,201 @@
+package name.reidmiller.sppreports.client;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class ParsedReportCacheTest {
+	private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+	@Test
+	public void testConcurrentMissesShareOneLoad() throws Exception {
+		final ParsedReportCache cache = new ParsedReportCache(
+				ParsedReportCache.DEFAULT_MAX_WEIGHT, DAY_MILLIS);
+		final AtomicInteger loads = new AtomicInteger();
+		final CountDownLatch release = new CountDownLatch(1);
+		final Callable<ParsedReport> loader = new Callable<ParsedReport>() {
+			@Override
+			public ParsedReport call() throws Exception {
+				loads.incrementAndGet();
+				release.await();
+				return getReport(10);
+			}
+		};
+
+		int numThreads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		ParsedReport first;
+		try {
+			List<Future<ParsedReport>> futures = new ArrayList<Future<ParsedReport>>();
+			for (int i = 0; i < numThreads; i++) {
+				futures.add(executor.submit(new Callable<ParsedReport>() {
+					@Override
+					public ParsedReport call() throws IOException {
+						return cache.get("a", true, loader);
+					}
+				}));
+			}
+			// Let every thread reach the cache before the load finishes
+			while (cache.getMissCount() < numThreads) {
+				Thread.sleep(10);
+			}
+			release.countDown();
+
+			first = futures.get(0).get(10, TimeUnit.SECONDS);
+			for (Future<ParsedReport> future : futures) {
+				assertSame("Every thread should get the same report", first,
+						future.get(10, TimeUnit.SECONDS));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals("Concurrent misses should share a single load", 1,
+				loads.get());
+		assertSame("Later requests should be hits", first,
+				cache.get("a", true, loader));
+		assertEquals("Loader should not run again once cached", 1, loads.get());
+	}
+
+	@Test
+	public void testEvictsLeastRecentlyUsed() throws IOException {
+		ParsedReport report = getReport(10);
+		ParsedReportCache cache = new ParsedReportCache(
+				2 * report.getWeight(), DAY_MILLIS);
+		cache.get("a", true, getLoader(report));
+		cache.get("b", true, getLoader(report));
+		cache.get("a", true, getLoader(report));
+		cache.get("c", true, getLoader(report));
+
+		assertEquals("Cache should stay within its weight", 2, cache.size());
+		assertEquals(2 * report.getWeight(), cache.getWeight());
+		long loadCount = cache.getLoadCount();
+		cache.get("a", true, getLoader(report));
+		assertEquals("Recently used report should have been kept", loadCount,
+				cache.getLoadCount());
+		cache.get("b", true, getLoader(report));
+		assertEquals("Least recently used report should have been evicted",
+				loadCount + 1, cache.getLoadCount());
+	}
+
+	@Test
+	public void testOnlyOpenYearsExpire() throws IOException {
+		ParsedReportCache cache = new ParsedReportCache(
+				ParsedReportCache.DEFAULT_MAX_WEIGHT, 0);
+		ParsedReport report = getReport(1);
+		cache.get("closed", true, getLoader(report));
+		cache.get("closed", true, getLoader(report));
+		assertEquals("Closed year should never expire", 1,
+				cache.getLoadCount());
+
+		cache.get("open", false, getLoader(report));
+		cache.get("open", false, getLoader(report));
+		assertEquals("Open year should be reloaded once expired", 3,
+				cache.getLoadCount());
+	}
+
+	@Test
+	public void testFailedLoadNotCached() throws IOException {
+		ParsedReportCache cache = new ParsedReportCache(
+				ParsedReportCache.DEFAULT_MAX_WEIGHT, DAY_MILLIS);
+		try {
+			cache.get("a", true, new Callable<ParsedReport>() {
+				@Override
+				public ParsedReport call() throws IOException {
+					throw new IOException("HTTP 503");
+				}
+			});
+			fail("Failed load should be thrown");
+		} catch (IOException e) {
+			assertEquals("HTTP 503", e.getMessage());
+		}
+		assertEquals("Failed load should not be cached", 0, cache.size());
+		assertEquals(10, cache.get("a", true, getLoader(getReport(10))).size());
+	}
+
+	@Test
+	public void testExpiredReportServedWhenReloadFails() throws IOException {
+		ParsedReportCache cache = new ParsedReportCache(
+				ParsedReportCache.DEFAULT_MAX_WEIGHT, 0);
+		ParsedReport report = getReport(3);
+		cache.get("open", false, getLoader(report));
+		Callable<ParsedReport> failing = new Callable<ParsedReport>() {
+			@Override
+			public ParsedReport call() throws IOException {
+				throw new IOException("HTTP 503");
+			}
+		};
+		assertSame("Expired report should be served when reload fails",
+				report, cache.get("open", false, failing));
+		assertEquals("Expired report should stay cached", 1, cache.size());
+		assertEquals("Successful reload should replace the expired report", 5,
+				cache.get("open", false, getLoader(getReport(5))).size());
+		assertEquals(3, cache.getLoadCount());
+	}
+
+	@Test
+	public void testRepeatedTimesAtRangeBounds() {
+		// Rows repeat a time as they do in the hour after daylight savings ends
+		long[] times = { 0L, 60000L, 60000L, 60000L, 120000L, 120000L,
+				180000L };
+		ParsedReport.Builder builder = new ParsedReport.Builder(2, 1);
+		for (long time : times) {
+			builder.handleRow(time, new ReportRow() {
+				@Override
+				public double getValue(int column) {
+					return column;
+				}
+			});
+		}
+		ParsedReport report = builder.build();
+
+		assertEquals("Start index should be the first repeated row", 1,
+				report.getStartIndex(60000L));
+		assertEquals("End index should follow the last repeated row", 4,
+				report.getEndIndex(60000L));
+		assertEquals("End index should follow the last repeated row", 6,
+				report.getEndIndex(120000L));
+		final List<Long> scanned = new ArrayList<Long>();
+		report.scan(60000L, 120000L, new ReportRowHandler() {
+			@Override
+			public void handleRow(long time, ReportRow row) {
+				scanned.add(time);
+			}
+		});
+		assertEquals("Every repeated row at either bound should be scanned",
+				5, scanned.size());
+	}
+
+	private static Callable<ParsedReport> getLoader(final ParsedReport report) {
+		return new Callable<ParsedReport>() {
+			@Override
+			public ParsedReport call() {
+				return report;
+			}
+		};
+	}
+
+	private static ParsedReport getReport(int numRows) {
+		ParsedReport.Builder builder = new ParsedReport.Builder(2, 1);
+		for (int i = 0; i < numRows; i++) {
+			final double value = i;
+			builder.handleRow(i * 60000L, new ReportRow() {
+				@Override
+				public double getValue(int column) {
+					return value + column;
+				}
+			});
+		}
+		return builder.build();
+	}
+}
@@ -0,0 +1,123 @@
+package name.reidmiller.sppreports.client;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.List;
+
+import name.reidmiller.sppreports.model.GeneratorMix;
+import name.reidmiller.sppreports.model.GeneratorMixSeries;
+import name.reidmiller.sppreports.model.SamplingFrequency;
+
+import org.joda.time.DateTime;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReportArchiveTest {
+	private File archiveDirectory;
+	private ReportArchive archive;
+	private GeneratorMixClient genMixClient;
+
+	@Before
+	public void setUp() throws IOException, URISyntaxException {
+		archiveDirectory = Files.createTempDirectory("spp-report-archive")
+				.toFile();
+		archive = new ReportArchive(archiveDirectory);
+		genMixClient = new GeneratorMixClient(new FileReportTransport(new File(
+				this.getClass().getResource("/").toURI())));
+	}
+
+	@After
+	public void tearDown() {
+		for (File file : archiveDirectory.listFiles()) {
+			file.delete();
+		}
+		archiveDirectory.delete();
+	}
+
+	@Test
+	public void testArchivedMatchesParsed() throws IOException {
+		List<GeneratorMix> parsed = genMixClient.getGenMixesForYear(2013,
+				SamplingFrequency.HOURLY);
+		File file = genMixClient.archiveGenMixesForYear(2013,
+				SamplingFrequency.HOURLY, archive);
+		assertEquals("Report should be archived in the archive file",
+				archive.getArchiveFile(genMixClient.getEngine().getSchema(),
+						2013, SamplingFrequency.HOURLY), file);
+
+		List<GeneratorMix> archived = genMixClient.getArchivedGenMixesForYear(
+				2013, SamplingFrequency.HOURLY, archive);
+		assertFalse("Fixture report should not be empty", parsed.isEmpty());
+		assertEquals("Archive should hold every parsed row", parsed.size(),
+				archived.size());
+		for (int i = 0; i < parsed.size(); i++) {
+			assertEquals("Archived row " + i + " should match parsed row",
+					parsed.get(i).toString(), archived.get(i).toString());
+		}
+
+		GeneratorMixSeries series = genMixClient.getArchivedGenMixSeriesForYear(
+				2013, SamplingFrequency.HOURLY, archive);
+		assertEquals("Archived series should hold every parsed row",
+				parsed.size(), series.size());
+		assertEquals("Archived series should keep the wind column", parsed
+				.get(parsed.size() - 1).getWind(),
+				series.getWind(series.size() - 1), 0.0);
+	}
+
+	@Test
+	public void testArchivedInRangeMatchesParsed() throws IOException {
+		genMixClient.archiveGenMixesForYear(2013, SamplingFrequency.HOURLY,
+				archive);
+		DateTime start = new DateTime(2013, 11, 2, 23, 0,
+				GeneratorMixClient.US_CENTRAL_ZONE);
+		Date startDate = start.toDate();
+		Date endDate = start.plusHours(4).toDate();
+
+		List<GeneratorMix> parsed = genMixClient.getGeneratorMixesInRange(
+				SamplingFrequency.HOURLY, startDate, endDate);
+		List<GeneratorMix> archived = genMixClient
+				.getArchivedGeneratorMixesInRange(SamplingFrequency.HOURLY,
+						startDate, endDate, archive);
+		assertFalse("Range should not be empty", parsed.isEmpty());
+		assertEquals("Archived range should hold the parsed rows",
+				parsed.size(), archived.size());
+		assertEquals("Range should start at its lower bound", startDate,
+				archived.get(0).getDate());
+		for (int i = 0; i < parsed.size(); i++) {
+			assertEquals("Archived row " + i + " should match parsed row",
+					parsed.get(i).toString(), archived.get(i).toString());
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testMissingArchive() throws IOException {
+		genMixClient.getArchivedGenMixesForYear(2013, SamplingFrequency.HOURLY,
+				archive);
+	}
+
+	@Test
+	public void testTruncatedArchive() throws IOException {
+		File file = genMixClient.archiveGenMixesForYear(2013,
+				SamplingFrequency.HOURLY, archive);
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.setLength(raf.length() - 1);
+		} finally {
+			raf.close();
+		}
+		try {
+			archive.open(genMixClient.getEngine().getSchema(), 2013,
+					SamplingFrequency.HOURLY);
+			fail("Truncated archive should not open");
+		} catch (IOException e) {
+			assertTrue("Error should say the archive is truncated", e
+					.getMessage().contains("truncated"));
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package name.reidmiller.sppreports.client;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class ReportCacheTest {
+	private HttpServer server;
+	private AtomicInteger requests = new AtomicInteger();
+	private AtomicInteger downloads = new AtomicInteger();
+	private volatile String body = "Date,Load\n1/1/2014 0:00,1\n";
+	private File cacheDirectory;
+
+	@Before
+	public void setUp() throws IOException {
+		cacheDirectory = Files.createTempDirectory("spp-report-cache").toFile();
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				requests.incrementAndGet();
+				String etag = "\"" + body.length() + "\"";
+				exchange.getResponseHeaders().add("ETag", etag);
+				if (etag.equals(exchange.getRequestHeaders().getFirst(
+						"If-None-Match"))) {
+					exchange.sendResponseHeaders(304, -1);
+				} else {
+					downloads.incrementAndGet();
+					byte[] bytes = body.getBytes("UTF-8");
+					exchange.sendResponseHeaders(200, bytes.length);
+					OutputStream out = exchange.getResponseBody();
+					out.write(bytes);
+					out.close();
+				}
+				exchange.close();
+			}
+		});
+		server.start();
+	}
+
+	@After
+	public void tearDown() {
+		server.stop(0);
+		for (File file : cacheDirectory.listFiles()) {
+			file.delete();
+		}
+		cacheDirectory.delete();
+	}
+
+	@Test
+	public void testClosedPeriodServedFromDisk() throws IOException {
+		ReportCache reportCache = new ReportCache(cacheDirectory);
+		String urlString = this.getUrlString("2012_Hourly_Load.csv");
+
+		assertEquals(body, read(reportCache.openStream(urlString, true)));
+		assertEquals(body, read(reportCache.openStream(urlString, true)));
+		assertEquals("Closed report should only be requested once", 1,
+				requests.get());
+	}
+
+	@Test
+	public void testOpenPeriodRevalidated() throws IOException {
+		ReportCache reportCache = new ReportCache(cacheDirectory);
+		String urlString = this.getUrlString("2014_5Minute_Load.csv");
+
+		assertEquals(body, read(reportCache.openStream(urlString, false)));
+		assertEquals(body, read(reportCache.openStream(urlString, false)));
+		assertEquals("Open report should be revalidated on each call", 2,
+				requests.get());
+		assertEquals("Unchanged report should only be downloaded once", 1,
+				downloads.get());
+
+		body = body + "1/1/2014 0:05,2\n";
+		assertEquals(body, read(reportCache.openStream(urlString, false)));
+		assertEquals("Grown report should be downloaded again", 2,
+				downloads.get());
+	}
+
+	@Test
+	public void testStaleCopyServedWhenOffline() throws IOException {
+		ReportCache reportCache = new ReportCache(cacheDirectory);
+		String urlString = this.getUrlString("2014_Hourly_GenMix.csv");
+
+		String cached = read(reportCache.openStream(urlString, false));
+		server.stop(0);
+		assertEquals(cached, read(reportCache.openStream(urlString, false)));
+	}
+
+	@Test
+	public void testUnreadableLastModifiedIgnored() throws IOException {
+		ReportCache reportCache = new ReportCache(cacheDirectory);
+		String urlString = this.getUrlString("2014_Hourly_Load.csv");
+
+		read(reportCache.openStream(urlString, false));
+		File dataFile = reportCache.getCacheFile(urlString);
+		String name = dataFile.getName();
+		File metaFile = new File(cacheDirectory, name.replace(".csv",
+				".properties"));
+		assertTrue("Metadata should be written next to the report",
+				metaFile.isFile());
+		Files.write(metaFile.toPath(),
+				"lastModified=garbage\n".getBytes("UTF-8"));
+
+		assertEquals(body, read(reportCache.openStream(urlString, false)));
+		assertEquals("Report should be downloaded again", 2, downloads.get());
+		assertEquals("Only the report and its metadata should be left", 2,
+				cacheDirectory.listFiles().length);
+	}
+
+	@Test
+	public void testGetCacheFile() {
+		ReportCache reportCache = new ReportCache(cacheDirectory);
+		File cacheFile = reportCache
+				.getCacheFile("http://www.spp.org/GenerationMix/2014_5Minute_GenMix.csv");
+		assertEquals("Cache file not named after URL",
+				"www.spp.org_GenerationMix_2014_5Minute_GenMix.csv",
+				cacheFile.getName());
+	}
+
+	private String getUrlString(String fileName) {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + "/"
+				+ fileName;
+	}
+
+	private static String read(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			byte[] buf = new byte[1024];
+			for (int n = in.read(buf); n != -1; n = in.read(buf)) {
+				out.write(buf, 0, n);
+			}
+		} finally {
+			in.close();
+		}
+		return out.toString("UTF-8");
+	}
+}
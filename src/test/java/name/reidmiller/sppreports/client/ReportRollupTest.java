@@ -0,0 +1,148 @@
+package name.reidmiller.sppreports.client;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.EnumSet;
+
+import name.reidmiller.sppreports.model.RollupPeriod;
+import name.reidmiller.sppreports.model.SamplingFrequency;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+public class ReportRollupTest {
+	private static final double DELTA = 1e-9;
+
+	@Test
+	public void testDaysFollowDaylightSavings() {
+		ReportRollup.Builder builder = this.getBuilder(RollupPeriod.DAY,
+				SamplingFrequency.HOURLY);
+		DateTime start = new DateTime(2013, 11, 2, 0, 0,
+				GeneratorMixClient.US_CENTRAL_ZONE);
+		for (long time = start.getMillis(); time < start.plusDays(3)
+				.getMillis(); time += SamplingFrequency.HOURLY.getPeriodMillis()) {
+			builder.handleRow(time, this.getRow(1, 2));
+		}
+		ReportRollup rollup = builder.build();
+
+		assertEquals("Three days should be rolled up", 3, rollup.size());
+		assertEquals(24, rollup.getCount(0));
+		assertEquals("Day daylight savings time ends should have 25 hours",
+				25, rollup.getCount(1));
+		assertEquals(24, rollup.getCount(2));
+		assertEquals("Day should start at local midnight", start.plusDays(1)
+				.getMillis(), rollup.getStart(1));
+		assertEquals(rollup.getStart(2), rollup.getEnd(1));
+		assertEquals(25, rollup.getSum(1, 0), DELTA);
+		assertEquals("Hourly energy should equal the sum of hourly MW", 50,
+				rollup.getEnergy(1, 1), DELTA);
+		assertEquals(1, rollup.indexOf(start.plusDays(1).plusHours(12)
+				.getMillis()));
+		assertEquals(-1, rollup.indexOf(start.minusHours(1).getMillis()));
+	}
+
+	@Test
+	public void testStatisticsPerPeriod() {
+		ReportRollup.Builder builder = this.getBuilder(RollupPeriod.MONTH,
+				SamplingFrequency.FIVE_MINUTES);
+		DateTime lastOfMonth = new DateTime(2013, 10, 31, 23, 50,
+				GeneratorMixClient.US_CENTRAL_ZONE);
+		double[] loads = { 10, 30, 20, 40 };
+		for (int i = 0; i < loads.length; i++) {
+			builder.handleRow(lastOfMonth.plusMinutes(5 * i).getMillis(),
+					this.getRow(loads[i], 0));
+		}
+		ReportRollup rollup = builder.build();
+
+		assertEquals("Rows should be split at the start of November", 2,
+				rollup.size());
+		assertEquals(2, rollup.getCount(0));
+		assertEquals(20, rollup.getMean(0, 0), DELTA);
+		assertEquals(10, rollup.getMin(0, 0), DELTA);
+		assertEquals(30, rollup.getMax(0, 0), DELTA);
+		assertEquals(30, rollup.getMean(1, 0), DELTA);
+		assertEquals("Five-minute energy should be MW times a twelfth of an hour",
+				60 / 12.0, rollup.getEnergy(1, 0), DELTA);
+	}
+
+	@Test
+	public void testCachedRollupMatchesUncached() throws URISyntaxException {
+		File resources = new File(this.getClass().getResource("/").toURI());
+		GeneratorMixClient uncached = new GeneratorMixClient(
+				new FileReportTransport(resources));
+		GeneratorMixClient cached = new GeneratorMixClient(
+				new FileReportTransport(resources));
+		cached.getEngine().setParsedReportCache(
+				new ParsedReportCache(ParsedReportCache.DEFAULT_MAX_WEIGHT, 0));
+
+		for (RollupPeriod period : RollupPeriod.values()) {
+			ReportRollup expected = uncached.getGenMixRollupForYear(2013,
+					SamplingFrequency.HOURLY, period);
+			ReportRollup actual = cached.getGenMixRollupForYear(2013,
+					SamplingFrequency.HOURLY, period);
+			assertFalse(expected.isEmpty());
+			assertEquals(period + " rollups should match", expected.size(),
+					actual.size());
+			for (int i = 0; i < expected.size(); i++) {
+				assertEquals(expected.getStart(i), actual.getStart(i));
+				assertEquals(expected.getSum(i, GeneratorMixSchema.WIND),
+						actual.getSum(i, GeneratorMixSchema.WIND), DELTA);
+			}
+		}
+
+		ReportRollup days = uncached.getGenMixRollupForYear(2013,
+				SamplingFrequency.HOURLY, RollupPeriod.DAY);
+		assertEquals("Fixture spans two days", 2, days.size());
+		assertEquals("November 3rd should include the repeated hour", 6,
+				days.getCount(1));
+		assertEquals(15088.5, days.getMin(1, GeneratorMixSchema.COAL), DELTA);
+	}
+
+	@Test
+	public void testIngestRollupsAreOptIn() throws URISyntaxException {
+		File resources = new File(this.getClass().getResource("/").toURI());
+		GeneratorMixClient client = new GeneratorMixClient(
+				new FileReportTransport(resources));
+		client.getEngine().setParsedReportCache(
+				new ParsedReportCache(ParsedReportCache.DEFAULT_MAX_WEIGHT, 0));
+		assertTrue("No rollups should be built on ingest by default", client
+				.getEngine().getIngestRollupPeriods().isEmpty());
+		assertNotSame("Rollup should be built per call without opting in",
+				client.getGenMixRollupForYear(2013, SamplingFrequency.HOURLY,
+						RollupPeriod.DAY), client.getGenMixRollupForYear(2013,
+						SamplingFrequency.HOURLY, RollupPeriod.DAY));
+
+		client = new GeneratorMixClient(new FileReportTransport(resources));
+		client.getEngine().setParsedReportCache(
+				new ParsedReportCache(ParsedReportCache.DEFAULT_MAX_WEIGHT, 0));
+		client.getEngine().setIngestRollupPeriods(
+				EnumSet.of(RollupPeriod.DAY));
+		assertSame("Day rollup should be built once on ingest",
+				client.getGenMixRollupForYear(2013, SamplingFrequency.HOURLY,
+						RollupPeriod.DAY), client.getGenMixRollupForYear(2013,
+						SamplingFrequency.HOURLY, RollupPeriod.DAY));
+		assertNotSame("Only the periods opted in to should be built on ingest",
+				client.getGenMixRollupForYear(2013, SamplingFrequency.HOURLY,
+						RollupPeriod.MONTH), client.getGenMixRollupForYear(2013,
+						SamplingFrequency.HOURLY, RollupPeriod.MONTH));
+	}
+
+	private ReportRollup.Builder getBuilder(RollupPeriod period,
+			SamplingFrequency samplingFrequency) {
+		return new ReportRollup.Builder(period,
+				GeneratorMixClient.US_CENTRAL_ZONE, Arrays.asList("Load",
+						"Wind"), samplingFrequency.getPeriodMillis());
+	}
+
+	private ReportRow getRow(final double... values) {
+		return new ReportRow() {
+			@Override
+			public double getValue(int column) {
+				return values[column];
+			}
+		};
+	}
+}
@@ -0,0 +1,155 @@
+package name.reidmiller.sppreports.client;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.joda.time.DateTimeConstants;
+import org.joda.time.LocalDateTime;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+import org.junit.Test;
+
+public class SppCsvParserTest {
+	private static final String HEADER = "Date,Coal,Hydro\r\n";
+
+	@Test
+	public void testTimestampsMatchJoda() throws IOException {
+		DateTimeFormatter centralTimeFormat = DateTimeFormat.forPattern(
+				GeneratorMixClient.GENERATOR_MIX_REPORT_DATE_FORMAT).withZone(
+				GeneratorMixClient.US_CENTRAL_ZONE);
+		DateTimeFormatter localFormat = DateTimeFormat
+				.forPattern(GeneratorMixClient.GENERATOR_MIX_REPORT_DATE_FORMAT);
+
+		// Every five-minute timestamp of 2013 which exists in Central time
+		StringBuilder csv = new StringBuilder(HEADER);
+		LocalDateTime local = new LocalDateTime(2013, 1, 1, 0, 0);
+		while (local.getYear() == 2013) {
+			if (GeneratorMixClient.US_CENTRAL_ZONE.isLocalDateTimeGap(local)) {
+				local = local.plusMinutes(5);
+				continue;
+			}
+			csv.append(localFormat.print(local)).append(",1,2\r\n");
+			local = local.plusMinutes(5);
+		}
+
+		SppCsvParser parser = this.getParser(csv.toString(), 2);
+		String[] lines = csv.toString().split("\r\n");
+		for (int i = 1; i < lines.length; i++) {
+			assertTrue("Parser ended early at line " + i, parser.next());
+			String timestamp = lines[i].substring(0, lines[i].indexOf(','));
+			assertEquals("Timestamp differs from Joda for " + timestamp,
+					centralTimeFormat.parseMillis(timestamp), parser.getTime());
+		}
+		assertFalse("Parser returned too many rows", parser.next());
+		assertEquals("Unexpected number of rows", 365
+				* DateTimeConstants.MINUTES_PER_DAY / 5 - 12, lines.length - 1);
+		parser.close();
+	}
+
+	@Test
+	public void testHourlyTimestampsMatchJodaAcrossYears() throws IOException {
+		DateTimeFormatter centralTimeFormat = DateTimeFormat.forPattern(
+				GeneratorMixClient.GENERATOR_MIX_REPORT_DATE_FORMAT).withZone(
+				GeneratorMixClient.US_CENTRAL_ZONE);
+		DateTimeFormatter localFormat = DateTimeFormat
+				.forPattern(GeneratorMixClient.GENERATOR_MIX_REPORT_DATE_FORMAT);
+
+		// Includes the rules change of 2007 and a leap year
+		StringBuilder csv = new StringBuilder(HEADER);
+		LocalDateTime local = new LocalDateTime(2006, 1, 1, 0, 0);
+		while (local.getYear() < 2013) {
+			if (!GeneratorMixClient.US_CENTRAL_ZONE.isLocalDateTimeGap(local)) {
+				csv.append(localFormat.print(local)).append(",1,2\r\n");
+			}
+			local = local.plusHours(1);
+		}
+
+		SppCsvParser parser = this.getParser(csv.toString(), 2);
+		String[] lines = csv.toString().split("\r\n");
+		for (int i = 1; i < lines.length; i++) {
+			assertTrue("Parser ended early at line " + i, parser.next());
+			String timestamp = lines[i].substring(0, lines[i].indexOf(','));
+			assertEquals("Timestamp differs from Joda for " + timestamp,
+					centralTimeFormat.parseMillis(timestamp), parser.getTime());
+		}
+		assertFalse("Parser returned too many rows", parser.next());
+		parser.close();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testTimestampInDstGap() throws IOException {
+		SppCsvParser parser = this.getParser(HEADER + "3/10/2013 1:55,1,2\n"
+				+ "3/10/2013 2:00,1,2\n", 2);
+		assertTrue(parser.next());
+		parser.next();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidTime() throws IOException {
+		this.getParser(HEADER + "1/1/2014 24:00,1,2\n", 2).next();
+	}
+
+	@Test
+	public void testValuesMatchParseDouble() throws IOException {
+		String[] cells = { "0", "16512.3", "443.2", "-12.75", "0.1", "1e3",
+				"12345678901234567890.5", " 7.25 ", "\"99.5\"", "3.", ".5",
+				"-0", "1234567.891" };
+		StringBuilder csv = new StringBuilder(HEADER);
+		for (String cell : cells) {
+			csv.append("1/1/2014 0:00,").append(cell).append(",0\n");
+		}
+
+		SppCsvParser parser = this.getParser(csv.toString(), 2);
+		for (String cell : cells) {
+			assertTrue("Parser ended early", parser.next());
+			double expected = Double.parseDouble(cell.replace("\"", "").trim());
+			assertEquals("Value differs from Double.parseDouble for " + cell,
+					Double.doubleToLongBits(expected),
+					Double.doubleToLongBits(parser.getValue(0)));
+		}
+		parser.close();
+	}
+
+	@Test
+	public void testRowsSpanningReads() throws IOException {
+		String csv = HEADER + "1/1/2014 0:00,1,2\r\n" + ",,\r\n" + "\r\n"
+				+ "1/1/2014 0:05,3,4";
+		// Stream which returns a single byte per read
+		InputStream in = new ByteArrayInputStream(csv.getBytes("US-ASCII")) {
+			@Override
+			public synchronized int read(byte[] b, int off, int len) {
+				return super.read(b, off, Math.min(len, 1));
+			}
+		};
+		SppCsvParser parser = new SppCsvParser(in, 2,
+				GeneratorMixClient.US_CENTRAL_ZONE);
+
+		assertTrue(parser.next());
+		assertEquals(2, parser.getValue(1), 0);
+		assertTrue("Empty rows should be skipped", parser.next());
+		assertEquals("Final row without line break not parsed", 3,
+				parser.getValue(0), 0);
+		assertFalse(parser.next());
+		parser.close();
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void testMissingValue() throws IOException {
+		this.getParser(HEADER + "1/1/2014 0:00,1\n", 2).next();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidTimestamp() throws IOException {
+		this.getParser(HEADER + "2014-01-01 00:00,1,2\n", 2).next();
+	}
+
+	private SppCsvParser getParser(String csv, int numValues)
+			throws IOException {
+		return new SppCsvParser(new ByteArrayInputStream(
+				csv.getBytes("US-ASCII")), numValues,
+				GeneratorMixClient.US_CENTRAL_ZONE);
+	}
+}
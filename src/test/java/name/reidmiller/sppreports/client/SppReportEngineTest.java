@@ -0,0 +1,218 @@
+package name.reidmiller.sppreports.client;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.Charset;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import name.reidmiller.sppreports.model.SamplingFrequency;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+public class SppReportEngineTest {
+	private static final String URL_TEMPLATE = "http://example.com/Reports/{year}_{frequency}_Test.csv";
+
+	/**
+	 * Report type which is not one of the built-in clients, holding only the
+	 * date and first value of each row.
+	 */
+	private static class TestSchema extends ReportSchema<double[]> {
+		TestSchema() {
+			super("Test", URL_TEMPLATE, GeneratorMixClient.US_CENTRAL_ZONE,
+					"Value", "Other");
+		}
+
+		@Override
+		public double[] createRecord(Date date, ReportRow row) {
+			return new double[] { date.getTime(), row.getValue(0) };
+		}
+
+		@Override
+		public Date getDate(double[] record) {
+			return new Date((long) record[0]);
+		}
+	}
+
+	@Test
+	public void testUrlTemplate() {
+		assertEquals("Placeholders should be replaced with year and frequency",
+				"http://example.com/Reports/2013_Hourly_Test.csv",
+				new TestSchema().getUrlString(2013, SamplingFrequency.HOURLY));
+	}
+
+	@Test
+	public void testCustomSchema() {
+		MemoryReportTransport transport = new MemoryReportTransport();
+		TestSchema schema = new TestSchema();
+		transport.putReport(schema.getUrlString(2013,
+				SamplingFrequency.HOURLY), ("Date,Value,Other\r\n"
+				+ "1/1/2013 0:00,1.5,2\r\n" + "1/1/2013 1:00,2.5,3\r\n")
+				.getBytes(Charset.forName("US-ASCII")));
+
+		SppReportEngine<double[]> engine = new SppReportEngine<double[]>(
+				schema, transport, null);
+		List<double[]> records = engine.getForYear(2013,
+				SamplingFrequency.HOURLY);
+		assertEquals("Both rows should be parsed", 2, records.size());
+		assertEquals("First row should be midnight central time", new DateTime(
+				2013, 1, 1, 0, 0, GeneratorMixClient.US_CENTRAL_ZONE)
+				.getMillis(), (long) records.get(0)[0]);
+		assertEquals("Second row value should be parsed", 2.5,
+				records.get(1)[1], 0.0);
+	}
+
+	@Test
+	public void testEnginesShareParsedYears() {
+		final AtomicInteger fetches = new AtomicInteger();
+		final TestSchema schema = new TestSchema();
+		final byte[] report = ("Date,Value,Other\r\n" + "1/1/2013 0:00,1.5,2\r\n")
+				.getBytes(Charset.forName("US-ASCII"));
+		ReportTransport transport = new LocalReportTransport() {
+			@Override
+			protected byte[] getReport(String urlString) {
+				fetches.incrementAndGet();
+				return report;
+			}
+		};
+		ParsedReportCache cache = new ParsedReportCache(
+				ParsedReportCache.DEFAULT_MAX_WEIGHT, 0);
+
+		for (int i = 0; i < 3; i++) {
+			SppReportEngine<double[]> engine = new SppReportEngine<double[]>(
+					schema, transport, null);
+			engine.setParsedReportCache(cache);
+			List<double[]> records = engine.getForYear(2013,
+					SamplingFrequency.HOURLY);
+			assertEquals("Cached year should hold the report's row", 1,
+					records.size());
+			assertEquals(1.5, records.get(0)[1], 0.0);
+		}
+		assertEquals("Closed year should only be fetched once", 1,
+				fetches.get());
+		assertEquals(2, cache.getHitCount());
+	}
+
+	@Test
+	public void testReportMetrics() {
+		MemoryReportTransport transport = new MemoryReportTransport();
+		TestSchema schema = new TestSchema();
+		byte[] report = ("Date,Value,Other\r\n" + "11/3/2013 0:00,1,0\r\n"
+				+ "11/3/2013 1:00,2,0\r\n" + "11/3/2013 1:00,3,0\r\n"
+				+ "11/3/2013 2:00,4,0\r\n").getBytes(Charset
+				.forName("US-ASCII"));
+		transport.putReport(schema.getUrlString(2013,
+				SamplingFrequency.HOURLY), report);
+		SppReportEngine<double[]> engine = new SppReportEngine<double[]>(
+				schema, transport, null);
+		SimpleReportMetrics metrics = new SimpleReportMetrics();
+		engine.setReportMetrics(metrics);
+
+		assertEquals(4, engine.getForYear(2013, SamplingFrequency.HOURLY)
+				.size());
+		ReportStats stats = metrics.getStats("Test", 2013,
+				SamplingFrequency.HOURLY);
+		assertEquals("Report should have been read once", 1,
+				stats.getDownloads());
+		assertEquals("Every byte of the report should be counted",
+				report.length, stats.getDownloadBytes());
+		assertEquals(4, stats.getRowsParsed());
+		assertEquals("Repeated hour should be corrected once", 1,
+				stats.getDstCorrections());
+
+		engine.setParsedReportCache(new ParsedReportCache(
+				ParsedReportCache.DEFAULT_MAX_WEIGHT, 0));
+		engine.getForYear(2013, SamplingFrequency.HOURLY);
+		engine.getForYear(2013, SamplingFrequency.HOURLY);
+		assertEquals(1, stats.getCacheMisses());
+		assertEquals(1, stats.getCacheHits());
+		assertEquals("Cache load should read the report again", 2,
+				stats.getDownloads());
+
+		assertTrue("Missing report should yield no records", engine
+				.getForYear(2014, SamplingFrequency.HOURLY).isEmpty());
+		assertEquals("Missing report should count as an error", 1, metrics
+				.getStats("Test", 2014, SamplingFrequency.HOURLY).getErrors());
+		assertEquals(0, stats.getErrors());
+	}
+
+	@Test
+	public void testDownloadTimeIncludesOpening() {
+		final TestSchema schema = new TestSchema();
+		final byte[] report = ("Date,Value,Other\r\n" + "1/1/2013 0:00,1.5,2\r\n")
+				.getBytes(Charset.forName("US-ASCII"));
+		ReportTransport transport = new LocalReportTransport() {
+			@Override
+			protected byte[] getReport(String urlString) throws IOException {
+				// Stands in for a slow connect or time to first byte
+				try {
+					Thread.sleep(200);
+				} catch (InterruptedException e) {
+					throw new InterruptedIOException();
+				}
+				return report;
+			}
+		};
+		SppReportEngine<double[]> engine = new SppReportEngine<double[]>(
+				schema, transport, null);
+		SimpleReportMetrics metrics = new SimpleReportMetrics();
+		engine.setReportMetrics(metrics);
+
+		assertEquals(1, engine.getForYear(2013, SamplingFrequency.HOURLY)
+				.size());
+		ReportStats stats = metrics.getStats("Test", 2013,
+				SamplingFrequency.HOURLY);
+		assertTrue("Time to open the report should count as download time",
+				stats.getDownloadNanos() >= TimeUnit.MILLISECONDS.toNanos(200));
+		assertTrue("Time to open the report should not count as parse time",
+				stats.getParseNanos() < TimeUnit.MILLISECONDS.toNanos(200));
+	}
+
+	@Test
+	public void testInterruptedRangeReturnsNothing() {
+		final TestSchema schema = new TestSchema();
+		final String url2013 = schema.getUrlString(2013,
+				SamplingFrequency.HOURLY);
+		final CountDownLatch released = new CountDownLatch(1);
+		ReportTransport transport = new LocalReportTransport() {
+			@Override
+			protected byte[] getReport(String urlString) throws IOException {
+				if (urlString.equals(url2013)) {
+					return ("Date,Value,Other\r\n" + "7/1/2013 0:00,1.5,2\r\n")
+							.getBytes(Charset.forName("US-ASCII"));
+				}
+				// Later year never arrives
+				try {
+					released.await();
+				} catch (InterruptedException e) {
+					throw new InterruptedIOException();
+				}
+				return null;
+			}
+		};
+		SppReportEngine<double[]> engine = new SppReportEngine<double[]>(
+				schema, transport, null);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Thread.currentThread().interrupt();
+			List<double[]> records = engine.getInRange(
+					SamplingFrequency.HOURLY, new DateTime(2013, 6, 1, 0, 0)
+							.toDate(), new DateTime(2014, 6, 1, 0, 0).toDate(),
+					executor);
+			assertTrue("Interrupt should be restored", Thread.interrupted());
+			assertTrue("Interrupted range should not pass for a complete one",
+					records.isEmpty());
+		} finally {
+			released.countDown();
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package name.reidmiller.sppreports.client;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.Charset;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import name.reidmiller.sppreports.model.SamplingFrequency;
+import name.reidmiller.sppreports.model.SystemSnapshotSeries;
+
+import org.junit.Test;
+
+public class SystemSnapshotClientTest {
+
+	@Test
+	public void testInterruptedJoinIsEmpty() {
+		final CountDownLatch released = new CountDownLatch(1);
+		GeneratorMixClient genMixClient = new GeneratorMixClient(
+				new LocalReportTransport() {
+					@Override
+					protected byte[] getReport(String urlString)
+							throws IOException {
+						// GenerationMix report never arrives
+						try {
+							released.await();
+						} catch (InterruptedException e) {
+							throw new InterruptedIOException();
+						}
+						return null;
+					}
+				});
+		MemoryReportTransport loadTransport = new MemoryReportTransport();
+		LoadForecastClient loadForecastClient = new LoadForecastClient(
+				loadTransport);
+		loadTransport.putReport(loadForecastClient.getUrlString(2013,
+				SamplingFrequency.HOURLY), ("Date,Current Load,Load Forecast\r\n"
+				+ "1/1/2013 0:00,100,110\r\n").getBytes(Charset
+				.forName("US-ASCII")));
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			SystemSnapshotClient client = new SystemSnapshotClient(
+					genMixClient, loadForecastClient, executor);
+			Thread.currentThread().interrupt();
+			SystemSnapshotSeries snapshots = client.getSnapshotsForYear(2013,
+					SamplingFrequency.HOURLY);
+			assertTrue("Interrupt should be restored", Thread.interrupted());
+			assertTrue("Join missing the GenerationMix side should be empty",
+					snapshots.isEmpty());
+		} finally {
+			released.countDown();
+			executor.shutdownNow();
+		}
+	}
+}
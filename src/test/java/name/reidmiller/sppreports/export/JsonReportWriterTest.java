@@ -0,0 +1,74 @@
+package name.reidmiller.sppreports.export;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Date;
+
+import name.reidmiller.sppreports.model.GeneratorMix;
+import name.reidmiller.sppreports.model.GeneratorMixSeries;
+import name.reidmiller.sppreports.model.MarketLoad;
+import name.reidmiller.sppreports.model.MarketLoadSeries;
+
+import org.junit.Test;
+
+public class JsonReportWriterTest {
+	// 2014-01-01T06:00:00Z, midnight Central time
+	private static final long NEW_YEAR = 1388556000000L;
+
+	@Test
+	public void testRecordsMatchSeries() throws IOException {
+		GeneratorMix generatorMix = new GeneratorMix();
+		generatorMix.setDate(new Date(NEW_YEAR));
+		generatorMix.setCoal(1);
+		generatorMix.setHydro(2.5);
+		generatorMix.setDieselFuelOil(0);
+		generatorMix.setNaturalGas(3);
+		generatorMix.setNuclear(4);
+		generatorMix.setWind(Double.NaN);
+		generatorMix.setMarketLoad(100.25);
+		GeneratorMixSeries series = new GeneratorMixSeries();
+		series.add(generatorMix);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		JsonReportWriter writer = new JsonReportWriter(out);
+		writer.write(generatorMix);
+		String expected = "{\"date\":\"2014-01-01T06:00:00Z\",\"coal\":1.0,"
+				+ "\"hydro\":2.5,\"dieselFuelOil\":0.0,\"naturalGas\":3.0,"
+				+ "\"nuclear\":4.0,\"wind\":null,\"marketLoad\":100.25}";
+		assertEquals(expected, out.toString("US-ASCII"));
+
+		out.reset();
+		writer.write(series);
+		assertEquals("Series should be written as an array of the same objects",
+				"[" + expected + "]", out.toString("US-ASCII"));
+		out.reset();
+		writer.writeGeneratorMixes(Arrays.asList(generatorMix, generatorMix));
+		assertEquals("[" + expected + "," + expected + "]",
+				out.toString("US-ASCII"));
+	}
+
+	@Test
+	public void testMarketLoadsToWriter() throws IOException {
+		MarketLoad marketLoad = new MarketLoad();
+		marketLoad.setCurrentLoad(21000.5);
+		marketLoad.setLoadForecast(21100);
+		MarketLoadSeries series = new MarketLoadSeries();
+		series.add(NEW_YEAR, 1, 2);
+		series.add(NEW_YEAR + 300000, 3, 4);
+
+		StringWriter out = new StringWriter();
+		JsonReportWriter writer = new JsonReportWriter(out);
+		writer.write(marketLoad);
+		writer.write(series);
+		writer.writeMarketLoads(Arrays.<MarketLoad> asList());
+		assertEquals(
+				"{\"date\":null,\"currentLoad\":21000.5,\"loadForecast\":21100.0}"
+						+ "[{\"date\":\"2014-01-01T06:00:00Z\",\"currentLoad\":1.0,\"loadForecast\":2.0},"
+						+ "{\"date\":\"2014-01-01T06:05:00Z\",\"currentLoad\":3.0,\"loadForecast\":4.0}]"
+						+ "[]", out.toString());
+	}
+}
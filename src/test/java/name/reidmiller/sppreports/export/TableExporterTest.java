@@ -0,0 +1,109 @@
+package name.reidmiller.sppreports.export;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import name.reidmiller.sppreports.model.MarketLoadSeries;
+
+import org.junit.Test;
+
+public class TableExporterTest {
+	// 2014-01-01T06:00:00Z, midnight Central time
+	private static final long NEW_YEAR = 1388556000000L;
+
+	@Test
+	public void testCsv() throws IOException {
+		MarketLoadSeries series = new MarketLoadSeries();
+		series.add(NEW_YEAR, 21000.5, 21100);
+		series.add(NEW_YEAR + 300000, Double.NaN, -0.25);
+
+		assertEquals("currentLoad and loadForecast columns expected",
+				"time,currentLoad,loadForecast\r\n"
+						+ "2014-01-01T06:00:00Z,21000.5,21100.0\r\n"
+						+ "2014-01-01T06:05:00Z,,-0.25\r\n",
+				this.export(new CsvExporter(), ExportTable.of(series)));
+	}
+
+	@Test
+	public void testNdjson() throws IOException {
+		MarketLoadSeries series = new MarketLoadSeries();
+		series.add(NEW_YEAR + 1, 21000.5, Double.NaN);
+
+		assertEquals(
+				"{\"time\":\"2014-01-01T06:00:00.001Z\",\"currentLoad\":21000.5,\"loadForecast\":null}\n",
+				this.export(new NdjsonExporter(), ExportTable.of(series)));
+	}
+
+	@Test
+	public void testNumbersReadBackExactly() throws IOException {
+		Random random = new Random(42);
+		double[] values = new double[1000];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = i % 2 == 0 ? random.nextInt(1000000) / 10.0 : random
+					.nextDouble() * 1e6 - 5e5;
+		}
+		values[0] = 1e300;
+		values[1] = 0.1 + 0.2;
+		String csv = this.export(new CsvExporter(), new ExportTable(
+				new long[values.length], new String[] { "value" },
+				new double[][] { values }));
+
+		String[] lines = csv.split("\r\n");
+		for (int i = 0; i < values.length; i++) {
+			String field = lines[i + 1].substring(lines[i + 1].indexOf(',') + 1);
+			assertEquals("Value " + i + " written as " + field, values[i],
+					Double.parseDouble(field), 0);
+		}
+	}
+
+	@Test
+	public void testIsoTimes() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		AsciiWriter writer = new AsciiWriter(out);
+		writer.writeIsoTime(0).write(' ').writeIsoTime(951782400000L)
+				.write(' ').writeIsoTime(-1);
+		writer.flush();
+		assertEquals("1970-01-01T00:00:00Z 2000-02-29T00:00:00Z "
+				+ "1969-12-31T23:59:59.999Z", out.toString("US-ASCII"));
+	}
+
+	@Test
+	public void testColumnarRoundTrip() throws IOException {
+		MarketLoadSeries series = new MarketLoadSeries();
+		// Enough rows to span several write buffers
+		for (int i = 0; i < 20000; i++) {
+			series.add(NEW_YEAR + i * 300000L, i, i * 0.5);
+		}
+		File file = File.createTempFile("export", ".sppc");
+		try {
+			FileOutputStream out = new FileOutputStream(file);
+			try {
+				new ColumnarExporter().write(ExportTable.of(series), out);
+			} finally {
+				out.close();
+			}
+
+			ExportTable table = ColumnarExporter.read(file);
+			assertEquals(20000, table.size());
+			assertEquals(2, table.getNumColumns());
+			assertEquals("loadForecast", table.getColumnName(1));
+			assertArrayEquals(series.getTimes(), table.getTimes());
+			assertArrayEquals(series.getCurrentLoad(), table.getColumn(0), 0);
+			assertArrayEquals(series.getLoadForecast(), table.getColumn(1), 0);
+		} finally {
+			file.delete();
+		}
+	}
+
+	private String export(TableExporter exporter, ExportTable table)
+			throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		exporter.write(table, out);
+		return out.toString("US-ASCII");
+	}
+}
@@ -0,0 +1,101 @@
+package name.reidmiller.sppreports.model;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class GeneratorMixAnalyticsTest {
+	private static final long FIVE_MINUTES = 5 * 60 * 1000L;
+
+	@Test
+	public void testShares() {
+		GeneratorMixSeries series = new GeneratorMixSeries();
+		series.add(0, 40, 10, 0, 30, 10, 10, 200);
+		series.add(FIVE_MINUTES, 0, 0, 0, 0, 0, 0, 0);
+		GeneratorMixAnalytics analytics = new GeneratorMixAnalytics();
+
+		double[] total = analytics.getTotalGeneration(series);
+		assertEquals("Total should add every fuel source", 100, total[0], 0);
+		assertEquals("Fossil share should be coal, diesel and gas over total",
+				0.7, analytics.getFossilShare(series)[0], 1e-12);
+		assertEquals("Wind share should be wind over market load", 0.05,
+				analytics.getWindShareOfLoad(series)[0], 1e-12);
+		assertTrue("Share of zero load should be NaN",
+				Double.isNaN(analytics.getWindShareOfLoad(series)[1]));
+	}
+
+	@Test
+	public void testEnergyAndRamps() {
+		GeneratorMixSeries series = new GeneratorMixSeries();
+		series.add(0, 0, 0, 0, 0, 0, 120, 0);
+		series.add(FIVE_MINUTES, 0, 0, 0, 0, 0, 240, 0);
+		// Missing row leaves a ten minute gap
+		series.add(3 * FIVE_MINUTES, 0, 0, 0, 0, 0, 120, 0);
+		GeneratorMixAnalytics analytics = new GeneratorMixAnalytics();
+
+		double[] energy = analytics.getCumulativeEnergy(series.getWind(),
+				SamplingFrequency.FIVE_MINUTES);
+		assertArrayEquals("Each five minute row adds a twelfth of its MW",
+				new double[] { 10, 30, 40 }, energy, 1e-9);
+		assertEquals(40, analytics.getEnergy(series.getWind(),
+				SamplingFrequency.FIVE_MINUTES), 1e-9);
+		assertEquals("Empty column should have no energy", 0,
+				analytics.getEnergy(new double[0], SamplingFrequency.HOURLY), 0);
+
+		double[] ramps = analytics.getRampRates(series, series.getWind());
+		assertArrayEquals("Ramps should account for the gap between rows",
+				new double[] { 1440, -720 }, ramps, 1e-9);
+
+		GeneratorMixSeries repeated = new GeneratorMixSeries();
+		repeated.add(0, 0, 0, 0, 0, 0, 100, 0);
+		repeated.add(0, 0, 0, 0, 0, 0, 200, 0);
+		assertTrue("Ramp between rows sharing a time should be NaN",
+				Double.isNaN(analytics.getRampRates(repeated,
+						repeated.getWind())[0]));
+	}
+
+	@Test
+	public void testPercentiles() {
+		GeneratorMixAnalytics analytics = new GeneratorMixAnalytics();
+		double[] column = { 5, Double.NaN, 1, 4, 2, 3 };
+
+		assertArrayEquals("Percentiles should interpolate between ranks",
+				new double[] { 1, 1.4, 3, 5 },
+				analytics.getPercentiles(column, 0, 10, 50, 100), 1e-12);
+		assertTrue("Column should be left unsorted", Double.isNaN(column[1]));
+		assertTrue("Column of only NaN has no percentiles",
+				Double.isNaN(analytics.getPercentiles(
+						new double[] { Double.NaN }, 50)[0]));
+	}
+
+	@Test
+	public void testParallelMatchesSequential() {
+		GeneratorMixSeries series = new GeneratorMixSeries();
+		int rows = GeneratorMixAnalytics.PARALLEL_THRESHOLD * 5 + 17;
+		for (int i = 0; i < rows; i++) {
+			series.add(i * FIVE_MINUTES, i % 7, 1, 0, i % 11, 2, i % 13, 100);
+		}
+		GeneratorMixAnalytics analytics = new GeneratorMixAnalytics(
+				new ForkJoinPool(4));
+
+		double[] energy = analytics.getCumulativeEnergy(series.getWind(),
+				SamplingFrequency.HOURLY);
+		double[] total = analytics.getTotalGeneration(series);
+		double[] ramps = analytics.getRampRates(series, series.getCoal());
+		double sum = 0;
+		for (int i = 0; i < rows; i++) {
+			sum += series.getWind(i);
+			assertEquals("Cumulative energy wrong at row " + i, sum,
+					energy[i], 1e-6);
+			assertEquals("Total generation wrong at row " + i,
+					3 + i % 7 + i % 11 + i % 13, total[i], 0);
+		}
+		for (int i = 0; i < rows - 1; i++) {
+			assertEquals("Ramp rate wrong at row " + i,
+					(series.getCoal(i + 1) - series.getCoal(i)) * 12, ramps[i],
+					1e-9);
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package name.reidmiller.sppreports.model;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+
+public class GeneratorMixRecordTest {
+
+	@Test
+	public void testCompareTo() {
+		GeneratorMixRecord today = new GeneratorMixRecord(86400000L, 1, 2, 3,
+				4, 5, 6, 30000);
+		GeneratorMixRecord yesterday = new GeneratorMixRecord(0L, 1, 2, 3, 4,
+				5, 6, 20000);
+		GeneratorMixRecord yesterdayLower = new GeneratorMixRecord(0L, 1, 2,
+				3, 4, 5, 6, 10000);
+
+		List<GeneratorMixRecord> records = new ArrayList<GeneratorMixRecord>();
+		records.add(today);
+		records.add(yesterday);
+		records.add(yesterdayLower);
+		Collections.sort(records);
+		assertSame("Earliest, lowest market load record is not first.",
+				yesterdayLower, records.get(0));
+		assertSame("Latest record is not last.", today, records.get(2));
+	}
+
+	@Test
+	public void testGeneratorMixAdapter() {
+		GeneratorMixRecord record = new GeneratorMixRecord(1356998400000L,
+				4000.5, 300, 0, 5000, 1790, 2500.25, 14000);
+		GeneratorMix generatorMix = record.toGeneratorMix();
+		assertEquals("Date does not match record time.", new Date(
+				1356998400000L), generatorMix.getDate());
+		assertEquals("Wind does not match record.", 2500.25,
+				generatorMix.getWind(), 0);
+		assertEquals("Market load does not match record.", 14000,
+				generatorMix.getMarketLoad(), 0);
+
+		GeneratorMixRecord copy = GeneratorMixRecord.of(generatorMix);
+		assertEquals("Round trip through GeneratorMix changed the record.",
+				record, copy);
+		assertEquals("Equal records have different hash codes.",
+				record.hashCode(), copy.hashCode());
+	}
+
+	@Test
+	public void testMarketLoadAdapter() {
+		MarketLoadRecord record = new MarketLoadRecord(1356998400000L, 25000,
+				25500.5);
+		MarketLoad marketLoad = record.toMarketLoad();
+		assertEquals("Load forecast does not match record.", 25500.5,
+				marketLoad.getLoadForecast(), 0);
+
+		MarketLoadRecord copy = MarketLoadRecord.of(marketLoad);
+		assertEquals("Round trip through MarketLoad changed the record.",
+				record, copy);
+		assertTrue("Record does not sort after an earlier one.",
+				record.compareTo(new MarketLoadRecord(0L, 30000, 0)) > 0);
+	}
+}
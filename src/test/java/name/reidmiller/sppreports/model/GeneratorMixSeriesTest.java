@@ -0,0 +1,156 @@
+package name.reidmiller.sppreports.model;
+
+import static org.junit.Assert.*;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+
+public class GeneratorMixSeriesTest {
+
+	@Test
+	public void testAddGrowsColumns() {
+		GeneratorMixSeries series = new GeneratorMixSeries(1);
+		for (int i = 0; i < 100; i++) {
+			series.add(i * 300000L, i, 1, 2, 3, 4, 5, 100 + i);
+		}
+
+		assertEquals("Series did not keep every row", 100, series.size());
+		assertEquals("Time column not in insertion order", 99 * 300000L,
+				series.getTime(99));
+		assertEquals("Coal column not in insertion order", 42,
+				series.getCoal(42), 0);
+		assertEquals("Column array not trimmed to size", 100,
+				series.getMarketLoad().length);
+	}
+
+	@Test
+	public void testColumnAccessorsDoNotMutate() {
+		GeneratorMixSeries series = new GeneratorMixSeries(16);
+		series.add(0L, 1, 2, 3, 4, 5, 6, 21);
+		series.add(300000L, 1, 2, 3, 4, 5, 7, 22);
+		double[] wind = series.getWind();
+		assertArrayEquals("Column should hold only the rows added",
+				new double[] { 6, 7 }, wind, 0);
+
+		series.add(600000L, 1, 2, 3, 4, 5, 8, 23);
+		assertArrayEquals("Earlier column should not change with the series",
+				new double[] { 6, 7 }, wind, 0);
+		assertEquals(3, series.getWind().length);
+		assertEquals(8, series.getWind(2), 0);
+
+		series.trimToSize();
+		assertSame("Trimmed series should return its column without copying",
+				series.getWind(), series.getWind());
+	}
+
+	@Test
+	public void testRangeView() {
+		GeneratorMixSeries series = new GeneratorMixSeries();
+		for (int i = 0; i < 10; i++) {
+			series.add(i * 300000L, i, 1, 2, 3, 4, 5, 100 + i);
+		}
+
+		assertEquals("Start index of an exact time should be its row", 3,
+				series.getStartIndex(900000L));
+		assertEquals("Start index between rows should be the next row", 4,
+				series.getStartIndex(900001L));
+		assertEquals("End index should include a row at the exact time", 4,
+				series.getEndIndex(900000L));
+		assertEquals("Start index after the last row should be size", 10,
+				series.getStartIndex(10 * 300000L));
+
+		List<GeneratorMix> view = series.asList(new Date(600000L), new Date(
+				1500000L));
+		assertEquals("View should hold both bounds", 4, view.size());
+		assertEquals(600000L, view.get(0).getDate().getTime());
+		assertEquals(1500000L, view.get(3).getDate().getTime());
+		assertTrue("Reversed range should be empty",
+				series.asList(new Date(1500000L), new Date(600000L)).isEmpty());
+		assertTrue("Range before the series should be empty",
+				series.asList(new Date(-2L), new Date(-1L)).isEmpty());
+	}
+
+	@Test
+	public void testRangeViewRepeatedTimes() {
+		GeneratorMixSeries series = new GeneratorMixSeries();
+		long[] times = { 0L, 300000L, 300000L, 300000L, 600000L, 600000L,
+				900000L };
+		for (int i = 0; i < times.length; i++) {
+			series.add(times[i], i, 1, 2, 3, 4, 5, 100 + i);
+		}
+
+		assertEquals("Start index should be the first repeated row", 1,
+				series.getStartIndex(300000L));
+		assertEquals("End index should follow the last repeated row", 4,
+				series.getEndIndex(300000L));
+		List<GeneratorMix> view = series.asList(new Date(300000L), new Date(
+				600000L));
+		assertEquals("View should hold every repeated row at both bounds", 5,
+				view.size());
+		assertEquals(101, view.get(0).getMarketLoad(), 0);
+		assertEquals(105, view.get(4).getMarketLoad(), 0);
+	}
+
+	@Test
+	public void testToHourly() {
+		long hour = HourlyAggregation.MILLIS_PER_HOUR;
+		// Start of the repeated hour when daylight savings ended in 2013
+		long start = 1383458400000L;
+		GeneratorMixSeries series = new GeneratorMixSeries();
+		for (int i = 0; i < 36; i++) {
+			if (i != 24) {
+				series.add(start + i * 300000L, i, 0, 0, 0, 0, 0, 100);
+			}
+		}
+
+		GeneratorMixSeries mean = series.toHourly(HourlyAggregation.MEAN);
+		assertEquals("Repeated hour should stay two separate hours", 3,
+				mean.size());
+		assertEquals(start + hour, mean.getTime(1));
+		assertEquals("Mean should cover every row of the hour", 17.5,
+				mean.getCoal(1), 1e-12);
+		assertEquals("Mean should skip the missing row", 30,
+				mean.getCoal(2), 1e-12);
+		assertEquals(100, mean.getMarketLoad(2), 0);
+
+		GeneratorMixSeries point = series
+				.toHourly(HourlyAggregation.TOP_OF_HOUR);
+		assertEquals("Hour without its top row should be left out", 2,
+				point.size());
+		assertEquals(12, point.getCoal(1), 0);
+	}
+
+	@Test
+	public void testGeneratorMixView() {
+		GeneratorMix generatorMix = new GeneratorMix();
+		generatorMix.setDate(new Date(1388556000000L));
+		generatorMix.setCoal(1);
+		generatorMix.setHydro(2);
+		generatorMix.setDieselFuelOil(3);
+		generatorMix.setNaturalGas(4);
+		generatorMix.setNuclear(5);
+		generatorMix.setWind(6);
+		generatorMix.setMarketLoad(21);
+
+		GeneratorMixSeries series = new GeneratorMixSeries();
+		series.add(generatorMix);
+		List<GeneratorMix> generatorMixes = series.asList();
+
+		assertEquals("List view size differs from series", 1,
+				generatorMixes.size());
+		GeneratorMix view = generatorMixes.get(0);
+		assertEquals(generatorMix.getDate(), view.getDate());
+		assertEquals(generatorMix.getHydro(), view.getHydro(), 0);
+		assertEquals(generatorMix.getWind(), view.getWind(), 0);
+		assertEquals(generatorMix.getMarketLoad(), view.getMarketLoad(), 0);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testGetOutOfBounds() {
+		GeneratorMixSeries series = new GeneratorMixSeries();
+		series.add(0L, 1, 2, 3, 4, 5, 6, 21);
+		series.getWind(1);
+	}
+}
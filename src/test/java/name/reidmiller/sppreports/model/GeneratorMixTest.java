@@ -35,4 +35,13 @@ public class GeneratorMixTest {
 		assertTrue("First item (yesterday) is not before second item (today).",
 				genMixes.get(0).getDate().before(genMixes.get(1).getDate()));
 	}
+
+	@Test
+	public void testToStringHydroField() {
+		GeneratorMix generatorMix = new GeneratorMix();
+		generatorMix.setDate(new Date(1388556000000L));
+		generatorMix.setHydro(2.5);
+		assertTrue("Hydro value should not be followed by a stray quote",
+				generatorMix.toString().contains("\"hydro\": 2.5, "));
+	}
 }
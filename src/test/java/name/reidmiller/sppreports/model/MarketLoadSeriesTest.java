@@ -0,0 +1,84 @@
+package name.reidmiller.sppreports.model;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class MarketLoadSeriesTest {
+	private static final double DELTA = 1e-9;
+
+	@Test
+	public void testForecastErrors() {
+		MarketLoadSeries series = this.getSeries();
+
+		// Each row's forecast is compared with the next row's observed load
+		double[] errors = series.getForecastErrors();
+		assertEquals("Unexpected number of forecast errors", 3, errors.length);
+		assertEquals(110 - 100, errors[0], DELTA);
+		assertEquals(105 - 120, errors[1], DELTA);
+		assertEquals(100 - 100, errors[2], DELTA);
+
+		double[] sameRowErrors = series.getForecastErrors(0);
+		assertEquals("Lag of zero should compare every row", 4,
+				sameRowErrors.length);
+		assertEquals(110 - 100, sameRowErrors[0], DELTA);
+	}
+
+	@Test
+	public void testForecastErrorsSkipGaps() {
+		MarketLoadSeries series = new MarketLoadSeries();
+		series.add(0L, 100, 110);
+		series.add(300000L, 100, 105);
+		// Row at 600000 is missing, so the forecast before it has nothing to
+		// be compared with
+		series.add(900000L, 120, 100);
+		series.add(1200000L, 100, 100);
+
+		double[] errors = series.getForecastErrors();
+		assertEquals("Forecast before the gap should be skipped", 2,
+				errors.length);
+		assertEquals(110 - 100, errors[0], DELTA);
+		assertEquals(100 - 100, errors[1], DELTA);
+		assertEquals("Unexpected bias", (10.0 + 0.0) / 2, series.getBias(),
+				DELTA);
+		assertEquals("Lag of two periods should pair across the gap", 1,
+				series.getForecastErrors(2).length);
+	}
+
+	@Test
+	public void testMeanAbsolutePercentageError() {
+		MarketLoadSeries series = this.getSeries();
+		double expected = 100 * (10.0 / 100 + 15.0 / 120 + 0.0 / 100) / 3;
+		assertEquals("Unexpected MAPE", expected,
+				series.getMeanAbsolutePercentageError(), DELTA);
+	}
+
+	@Test
+	public void testBias() {
+		MarketLoadSeries series = this.getSeries();
+		assertEquals("Unexpected bias", (10.0 - 15.0 + 0.0) / 3,
+				series.getBias(), DELTA);
+		assertTrue("Bias of empty series should be NaN",
+				Double.isNaN(new MarketLoadSeries().getBias()));
+	}
+
+	@Test
+	public void testRollingMeanAbsoluteError() {
+		MarketLoadSeries series = this.getSeries();
+		double[] rolling = series.getRollingMeanAbsoluteError(2);
+		assertEquals("Unexpected number of rolling windows", 2, rolling.length);
+		assertEquals((10.0 + 15.0) / 2, rolling[0], DELTA);
+		assertEquals((15.0 + 0.0) / 2, rolling[1], DELTA);
+		assertEquals("Window longer than series should be empty", 0,
+				series.getRollingMeanAbsoluteError(10).length);
+	}
+
+	private MarketLoadSeries getSeries() {
+		MarketLoadSeries series = new MarketLoadSeries(2);
+		series.add(0L, 100, 110);
+		series.add(300000L, 100, 105);
+		series.add(600000L, 120, 100);
+		series.add(900000L, 100, 100);
+		return series;
+	}
+}
@@ -0,0 +1,65 @@
+package name.reidmiller.sppreports.model;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class SystemSnapshotSeriesTest {
+	private static final long HOUR = 60 * 60 * 1000L;
+
+	@Test
+	public void testJoinAlignsRowsAndKeepsGaps() {
+		GeneratorMixSeries generatorMixes = new GeneratorMixSeries();
+		generatorMixes.add(0, 1, 1, 1, 1, 1, 1, 100);
+		generatorMixes.add(HOUR, 2, 2, 2, 2, 2, 2, 200);
+		// GenerationMix row for 2:00 is missing
+		generatorMixes.add(3 * HOUR, 4, 4, 4, 4, 4, 4, 400);
+		MarketLoadSeries marketLoads = new MarketLoadSeries();
+		// LoadForecast row for 0:00 is missing
+		marketLoads.add(HOUR, 210, 220);
+		marketLoads.add(2 * HOUR, 310, 320);
+		marketLoads.add(3 * HOUR, 410, 420);
+
+		SystemSnapshotSeries series = SystemSnapshotSeries.join(
+				generatorMixes, marketLoads);
+		assertEquals("Every timestamp of either report should be kept", 4,
+				series.size());
+		assertEquals(2, series.getNumMatched());
+		assertArrayEquals(new long[] { 0, HOUR, 2 * HOUR, 3 * HOUR },
+				series.getTimes());
+		assertFalse(series.isMatched(0));
+		assertTrue("Missing load should be NaN",
+				Double.isNaN(series.getCurrentLoad(0)));
+		assertEquals("Total generation should add every fuel", 12,
+				series.getTotalGeneration(1), 0);
+		assertEquals(210, series.getCurrentLoad(1), 0);
+		assertTrue("Missing generation should be NaN",
+				Double.isNaN(series.getMarketLoad(2)));
+		assertEquals(420, series.getLoadForecast(3), 0);
+		assertEquals("Load difference should be market minus current load",
+				-10, series.getLoadDifferences()[3], 0);
+	}
+
+	@Test
+	public void testInnerJoin() {
+		GeneratorMixSeries generatorMixes = new GeneratorMixSeries();
+		generatorMixes.add(0, 0, 0, 0, 0, 0, 0, 100);
+		generatorMixes.add(2 * HOUR, 0, 0, 0, 0, 0, 0, 300);
+		MarketLoadSeries marketLoads = new MarketLoadSeries();
+		marketLoads.add(HOUR, 200, 200);
+		marketLoads.add(2 * HOUR, 310, 320);
+
+		SystemSnapshotSeries series = SystemSnapshotSeries.join(
+				generatorMixes, marketLoads, false);
+		assertEquals("Only the shared timestamp should be kept", 1,
+				series.size());
+		assertEquals(2 * HOUR, series.getTime(0));
+		assertTrue(series.isMatched(0));
+		assertEquals(300, series.getMarketLoad(0), 0);
+		assertEquals(310, series.getCurrentLoad(0), 0);
+
+		assertTrue("Joining empty series should be empty", SystemSnapshotSeries
+				.join(new GeneratorMixSeries(), new MarketLoadSeries())
+				.isEmpty());
+	}
+}